@@ -0,0 +1,194 @@
+package Cluedo;
+import Cluedo.Navigation.CellBits;
+import Cluedo.Navigation.DistanceTable;
+import Cluedo.Tiles.DoorTile;
+import Cluedo.Tiles.HallTile;
+import Cluedo.Tiles.RoomTile;
+import Cluedo.Tiles.Tile;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The board kept as bit masks (see CellBits).
+ * The masks of the layout (walkable, door and room squares) never change and are shared by every board (see BoardLayout);
+ * each board only has its own mask of occupied squares, which Board keeps up to date as items move.
+ */
+public class BitBoard {
+    /** Move directions, in the order of the bits returned by legalMoves. */
+    public static final String[] MOVES = {"w", "a", "s", "d"};
+    private static final int[] CELL_STEP = {-DistanceTable.COLS, -1, DistanceTable.COLS, 1};
+
+    /** Hall and door tiles. */
+    private final long[] walkable;
+    /** Door tiles. */
+    private final long[] doors;
+    /** Room tiles of any room. */
+    private final long[] roomTiles;
+    /** Index of the room of each square, or -1. */
+    private final byte[] roomOf;
+    /** The doors a player can leave each room by (the room's door map), one mask per room. */
+    private final long[][] roomDoors;
+    /** Squares with a person or weapon on them. */
+    private final long[] occupied = CellBits.create();
+
+    /**
+     * Build the layout masks of a board, with nothing on it.
+     *
+     * @param tiles the tiles of the layout
+     * @param roomDoors the doors of each room, by door number
+     */
+    public BitBoard(Tile[][] tiles, List<Map<Integer, DoorTile>> roomDoors) {
+        walkable = CellBits.create();
+        doors = CellBits.create();
+        roomTiles = CellBits.create();
+        roomOf = new byte[DistanceTable.CELLS];
+        this.roomDoors = new long[roomDoors.size()][CellBits.WORDS];
+        for(int cell = 0; cell < DistanceTable.CELLS; cell++) {
+            Tile tile = tiles[cell / DistanceTable.COLS][cell % DistanceTable.COLS];
+            roomOf[cell] = -1;
+            if(tile instanceof HallTile || tile instanceof DoorTile) CellBits.set(walkable, cell);
+            if(tile instanceof DoorTile) CellBits.set(doors, cell);
+            if(tile instanceof RoomTile) {
+                CellBits.set(roomTiles, cell);
+                roomOf[cell] = (byte) ((RoomTile) tile).getRoomIndex();
+            }
+        }
+        for(int i = 0; i < roomDoors.size(); i++)
+            for(DoorTile door: roomDoors.get(i).values())
+                CellBits.set(this.roomDoors[i], DistanceTable.cell(door.getRow(), door.getCol()));
+    }
+
+    /**
+     * Construct an empty board that shares the layout masks of another.
+     * @param layout a board with the same layout
+     */
+    public BitBoard(BitBoard layout) {
+        walkable = layout.walkable;
+        doors = layout.doors;
+        roomTiles = layout.roomTiles;
+        roomOf = layout.roomOf;
+        roomDoors = layout.roomDoors;
+    }
+
+    /** Check whether a square is a hall or door tile. */
+    public boolean isWalkable(int cell) {
+        return CellBits.get(walkable, cell);
+    }
+
+    /** Check whether a square is a door tile. */
+    public boolean isDoor(int cell) {
+        return CellBits.get(doors, cell);
+    }
+
+    /** Check whether a square is a room tile. */
+    public boolean isRoomTile(int cell) {
+        return CellBits.get(roomTiles, cell);
+    }
+
+    /** Check whether a square has a person or weapon on it. */
+    public boolean isOccupied(int cell) {
+        return CellBits.get(occupied, cell);
+    }
+
+    /**
+     * Get the room of a square.
+     * @param cell the square
+     * @return index of the room, or -1 if the square is not a room tile
+     */
+    public int roomAt(int cell) {
+        return roomOf[cell];
+    }
+
+    /**
+     * Mark a square as occupied or free.
+     * @param cell the square
+     * @param isOccupied true if something is on the square now
+     */
+    public void setOccupied(int cell, boolean isOccupied) {
+        if(isOccupied) CellBits.set(occupied, cell);
+        else CellBits.clear(occupied, cell);
+    }
+
+    /**
+     * Move the occupant of a square to another square.
+     * @param from the square it leaves
+     * @param to the square it moves to
+     */
+    public void move(int from, int to) {
+        CellBits.clear(occupied, from);
+        CellBits.set(occupied, to);
+    }
+
+    /**
+     * Check whether every door of a room has someone on it.
+     * @param room index of the room
+     * @return true if nobody can leave the room
+     */
+    public boolean exitsBlocked(int room) {
+        long[] exits = roomDoors[room];
+        for(int i = 0; i < CellBits.WORDS; i++)
+            if((exits[i] & ~occupied[i]) != 0) return false;
+        return true;
+    }
+
+    /**
+     * Check whether a step can be made, following the rules of Board.movePerson:
+     * onto a free hall or door tile, or from a door tile into a room.
+     *
+     * @param from the square the player is on
+     * @param to a neighbouring square
+     * @return true if the step is allowed
+     */
+    public boolean canStep(int from, int to) {
+        if(CellBits.get(walkable, to)) return !CellBits.get(occupied, to);
+        return CellBits.get(doors, from) && CellBits.get(roomTiles, to);
+    }
+
+    /**
+     * Get the square a move leads to.
+     *
+     * @param cell the square the player is on
+     * @param move index of the move in MOVES
+     * @return the neighbouring square, or -1 if the move would leave the board
+     */
+    public static int neighbour(int cell, int move) {
+        int row = cell / DistanceTable.COLS, col = cell % DistanceTable.COLS;
+        if(move == 0 && row == 0 || move == 1 && col == 0 || move == 2 && row == DistanceTable.ROWS - 1
+                || move == 3 && col == DistanceTable.COLS - 1) return -1;
+        return cell + CELL_STEP[move];
+    }
+
+    /**
+     * Get the legal steps from a square.
+     *
+     * @param cell the square the player is on
+     * @return bit i set if MOVES[i] is allowed
+     */
+    public int legalMoves(int cell) {
+        int row = cell / DistanceTable.COLS, col = cell % DistanceTable.COLS;
+        int moves = 0;
+        for(int i = 0; i < 4; i++) {
+            if(i == 0 && row == 0 || i == 1 && col == 0 || i == 2 && row == DistanceTable.ROWS - 1
+                    || i == 3 && col == DistanceTable.COLS - 1) continue;
+            if(canStep(cell, cell + CELL_STEP[i])) moves |= 1 << i;
+        }
+        return moves;
+    }
+
+    /**
+     * Get the squares with something on them.
+     * @return the occupied mask (must not be changed)
+     */
+    public long[] occupied() {
+        return occupied;
+    }
+
+    /**
+     * Get the doors of a room.
+     * @param room index of the room
+     * @return the door mask (must not be changed)
+     */
+    public long[] doorsOf(int room) {
+        return roomDoors[room];
+    }
+}
@@ -1,47 +1,27 @@
 package Cluedo;
 import Cluedo.Items.*;
+import Cluedo.Navigation.DistanceTable;
+import Cluedo.Navigation.ReachabilityTable;
 import Cluedo.Tiles.*;
+import java.io.PrintStream;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.List;
 
 /**
  * This is the underlying data structure for a 24 x 25 board.
- * Each square for each position,
- * null if this square is not available.
+ *
+ * The squares, rooms and doors are a BoardLayout, which never changes and is shared by every game.
+ * The board keeps what changes during its game: the person or weapon on each square,
+ * which squares of each room are empty, and the drawing of the board.
  *
  * "@" is the partition (wall) (cannot go across it);
  * "|" is the separator of two horizontally adjacent tiles (can go across it);
  * "---" is the separator of two vertically adjacent tiles (can go across it).
  */
 public class Board {
-    /** Tiles on each square. */
-    private Tile[][] tiles;
-    /** Horizontal separator lines. */
-    private List<String> unmodifiableLines = new ArrayList<String>();
-    /**
-     *  Using different letters to represent different types of tiles:
-     *    numbers: DoorTile
-     *    B: BlockedTile
-     *    H: HallTile
-     *    K: RoomTile - Kitchen
-     *    A: RoomTile - Ballroom
-     *    C: RoomTile - Conservatory
-     *    O: RoomTile - Billiards Room
-     *    L: RoomTile - Library
-     *    S: RoomTile - Study
-     *    X: RoomTile - Hall
-     *    U: RoomTile - Lounge
-     *    I: RoomTile - Dining Room
-     *
-     */
-
-    private String initialTiles;
-
-    /**
-     * Show the name of the characters for short.
-     */
-    private List<String> keyStrings = new ArrayList<String>();
+    /** The squares, rooms and doors of the board. */
+    private final BoardLayout layout;
 
     /**
      * "Kitchen", "Ballroom", "Conservatory", "Billiards Room",
@@ -54,20 +34,166 @@ public class Board {
      */
     private Weapon[] weapons;
 
+    /**
+     * The people and weapons that have been on the board, by their number (Item.getId).
+     */
+    private MovableItem[] items = new MovableItem[12];
+
+    /**
+     * The number (Item.getId) plus one of what is on each square, or 0 if it is empty.
+     */
+    private final byte[] occupants = new byte[DistanceTable.CELLS];
+
+    /**
+     * The Zobrist hash of where the items are (Zobrist.item), kept in step with the occupants.
+     */
+    private long hash;
+
+    /**
+     * Where the board and its messages are printed, or null when running headless.
+     */
+    private PrintStream out = System.out;
+
+    /**
+     * The layout and occupancy of this board as bit masks, kept in step with the occupants.
+     */
+    private final BitBoard bits;
+
+    /**
+     * Draws this board; created the first time the board is drawn.
+     */
+    private BoardRenderer renderer;
+
+    /**
+     * Told about every move, or null.
+     */
+    private GameListener listener;
+
+    /**
+     * Random numbers of the game, for placing weapons and choosing the squares items land on in rooms.
+     */
+    private final GameRandom random;
+
     /**
      * Constructor
      * @param rooms 9 rooms in the game
      */
     public Board(Room[] rooms, Weapon[] weapons) {
+        this(rooms, weapons, new GameRandom());
+    }
+
+    /**
+     * Construct a board using a game's random numbers.
+     * @param rooms 9 rooms in the game
+     * @param weapons 6 weapons in the game
+     * @param random the game's random numbers
+     */
+    public Board(Room[] rooms, Weapon[] weapons, GameRandom random) {
+        this(BoardLayout.standard(), rooms, weapons, random);
+    }
+
+    /**
+     * Construct a board with a given layout, and place the weapons in random rooms.
+     * @param layout the squares, rooms and doors of the board
+     * @param rooms a room for each room of the layout
+     * @param weapons 6 weapons in the game
+     * @param random the game's random numbers
+     */
+    public Board(BoardLayout layout, Room[] rooms, Weapon[] weapons, GameRandom random) {
+        if(rooms.length != layout.roomCount())
+            throw new IllegalArgumentException("The layout has " + layout.roomCount() + " rooms, not " + rooms.length);
+        this.layout = layout;
+        this.random = random;
         this.rooms = rooms;
         this.weapons = weapons;
-        this.tiles = new Tile[25][24];
-        generateTiles();
-        generateLines();
-        assignRoomsToDoors();
+        for(int i = 0; i < rooms.length; i++)
+            rooms[i].setLayout(layout.roomCells(i), layout.roomSlots(), layout.roomDoors(i));
+        bits = new BitBoard(layout.getBits());
         placeWeapons();
     }
 
+    /**
+     * Get the squares, rooms and doors of the board.
+     * @return the layout
+     */
+    public BoardLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * Get the shortest paths between the squares of the board.
+     * @return the distance table
+     */
+    public DistanceTable getDistances() {
+        return layout.getDistances();
+    }
+
+    /**
+     * Get the squares and rooms reachable from each square with each dice roll.
+     * @return the reachability table
+     */
+    public ReachabilityTable getReachability() {
+        return layout.getReachability();
+    }
+
+    /**
+     * Get the board as bit masks.
+     * @return the bit board of this board
+     */
+    public BitBoard getBits() {
+        return bits;
+    }
+
+    /**
+     * Get the Zobrist hash of where the people and weapons are, which changes in O(1) with every move.
+     * Boards with their items on the same squares have the same hash.
+     * @return the hash
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * Get the tile at a position.
+     * @param row row index
+     * @param col column index
+     * @return the tile
+     */
+    public Tile getTile(int row, int col) {
+        return layout.getTile(row, col);
+    }
+
+    /**
+     * Get what is on a square.
+     * @param row row index
+     * @param col column index
+     * @return the person or weapon on the square, or null
+     */
+    public MovableItem getItemAt(int row, int col) {
+        return getItemAt(DistanceTable.cell(row, col));
+    }
+
+    /**
+     * Get what is on a square.
+     * @param cell the square (see DistanceTable.cell)
+     * @return the person or weapon on the square, or null
+     */
+    public MovableItem getItemAt(int cell) {
+        int number = occupants[cell] & 0xFF;
+        return number == 0 ? null : items[number - 1];
+    }
+
+    /**
+     * Get the index of a room on the board.
+     * @param room a room of the board
+     * @return its index (order of Game.ROOM_NAMES), or -1 if it is not on the board
+     */
+    public int roomIndex(Room room) {
+        for(int i = 0; i < rooms.length; i++)
+            if(rooms[i] == room) return i;
+        return -1;
+    }
+
     /**
      * Move the person following input move direction.
      *
@@ -87,34 +213,144 @@ public class Board {
         if(move.equalsIgnoreCase("a")) dx--;
         if(move.equalsIgnoreCase("s")) dy++;
         if(move.equalsIgnoreCase("d")) dx++;
-        Tile oldTile = tiles[row][col];
         // check if the new position is out of boundary
         if((row + dy) < 0 || (row + dy) >= 25 || (col + dx) < 0 || (col + dx) >= 24){
             return false;
         }
 
-        Tile newTile = tiles[row + dy][col + dx];
-        if(newTile instanceof DoorTile || newTile instanceof HallTile) {
-            if(newTile.getItem() != null) {
-                System.out.println("Someone is already on that square");
+        int oldCell = DistanceTable.cell(row, col);
+        int newCell = DistanceTable.cell(row + dy, col + dx);
+        if(bits.isWalkable(newCell)) {
+            if(bits.isOccupied(newCell)) {
+                message("Someone is already on that square");
                 return false;
             }else{
-                tiles[row][col].setItem(null);
-                newTile.setItem(person);
-                person.setRow(row + dy);
-                person.setCol(col + dx);
+                vacate(oldCell);
+                occupy(person, newCell);
+                itemMoved(person, oldCell, newCell);
                 return true;
             }
-        }else if(oldTile instanceof DoorTile && newTile instanceof RoomTile){
-            tiles[row][col].setItem(null);
-            ((RoomTile) newTile).getRoom().placeRandom(player.getPerson());
+        }else if(bits.isDoor(oldCell) && bits.isRoomTile(newCell)){
+            Room room = rooms[bits.roomAt(newCell)];
+            int cell = room.randomFreeCell(random);
+            if(cell < 0) {
+                message("There is no space left in the " + room.getName());
+                return false;
+            }
+            occupy(person, cell);
+            vacate(oldCell);
+            itemMoved(person, oldCell, cell);
             return true;
         }else{
-            System.out.println("You can't move to that square");
+            message("You can't move to that square");
             return false;
         }
     }
 
+    /**
+     * Move the person along a whole move at once, such as "wwddds", checking every step before moving.
+     * Each step follows the rules of movePerson, and a move ends once it enters a room.
+     * The person moves only if every step is allowed, and then goes straight to the end of the move
+     * (a random free square of the room, for a move into a room).
+     *
+     * @param player the one who is moving
+     * @param path   the steps (w, a, s, d)
+     * @param maxSteps the most steps the player may take (what is left of the dice total)
+     * @return -1 if the person moved along the whole path,
+     *         otherwise the position in path of the first step that is not allowed (and the person does not move)
+     */
+    public int movePersonAlong(Player player, String path, int maxSteps){
+        Person person = player.getPerson();
+        int start = DistanceTable.cell(person.row(), person.col());
+        int cell = start;
+        int room = -1;
+        for(int i = 0; i < path.length(); i++) {
+            int move = "wasd".indexOf(Character.toLowerCase(path.charAt(i)));
+            int next = move < 0 ? -1 : BitBoard.neighbour(cell, move);
+            String refusal = null;
+            if(i >= maxSteps) refusal = "You don't have that many moves";
+            else if(room >= 0) refusal = "Your move ends in the " + rooms[room].getName();
+            else if(move < 0) refusal = "Moves are w, a, s and d";
+            else if(next < 0) refusal = "You can't move off the board";
+            else if(bits.isWalkable(next)) {
+                // the square the person started on is empty once they have left it
+                if(bits.isOccupied(next) && next != start) refusal = "Someone is already on that square";
+            }else if(bits.isDoor(cell) && bits.isRoomTile(next)) {
+                room = bits.roomAt(next);
+                if(rooms[room].getFreeTileCount() == 0) refusal = "There is no space left in the " + rooms[room].getName();
+            }else refusal = "You can't move to that square";
+            if(refusal != null) {
+                message("Step " + (i + 1) + " of " + path + ": " + refusal);
+                return i;
+            }
+            cell = next;
+        }
+        if(room >= 0) {
+            int end = rooms[room].randomFreeCell(random);
+            occupy(person, end);
+            vacate(start);
+            itemMoved(person, start, end);
+        }else if(cell != start) {
+            vacate(start);
+            occupy(person, cell);
+            itemMoved(person, start, cell);
+        }
+        return -1;
+    }
+
+    /**
+     * Find a shortest move for a person to a square, going round anyone in the way.
+     * A square in a room is reached by entering the room, landing on any of its free squares.
+     *
+     * @param player the one who is moving
+     * @param row row index of the target square
+     * @param col column index of the target square
+     * @param maxSteps the most steps the player may take
+     * @return the move for movePersonAlong, or null if the square cannot be reached in maxSteps steps
+     */
+    public String pathTo(Player player, int row, int col, int maxSteps){
+        Person person = player.getPerson();
+        int start = DistanceTable.cell(person.row(), person.col());
+        int target = DistanceTable.cell(row, col);
+        int targetRoom = bits.roomAt(target);
+        if(targetRoom < 0 && !bits.isWalkable(target)) return null;
+        // breadth-first search from the start; cameFrom holds the move into each square reached, plus one
+        byte[] cameFrom = new byte[DistanceTable.CELLS];
+        int[] queue = new int[DistanceTable.CELLS];
+        int head = 0, tail = 0;
+        queue[tail++] = start;
+        cameFrom[start] = -1;
+        int found = start == target ? start : -1;
+        for(int depth = 0; depth < maxSteps && found < 0 && head < tail; depth++) {
+            int levelEnd = tail;
+            while(head < levelEnd && found < 0) {
+                int cell = queue[head++];
+                // a move ends in the room it enters, so no step leaves a room square
+                if(bits.isRoomTile(cell) && cell != start) continue;
+                int moves = bits.legalMoves(cell);
+                for(int move = 0; move < 4; move++) {
+                    if((moves & (1 << move)) == 0) continue;
+                    int next = BitBoard.neighbour(cell, move);
+                    if(cameFrom[next] != 0) continue;
+                    cameFrom[next] = (byte) (move + 1);
+                    queue[tail++] = next;
+                    if(next == target || targetRoom >= 0 && bits.roomAt(next) == targetRoom) {
+                        found = next;
+                        break;
+                    }
+                }
+            }
+        }
+        if(found < 0) return null;
+        StringBuilder path = new StringBuilder();
+        for(int cell = found; cell != start; ) {
+            int move = cameFrom[cell] - 1;
+            path.append(BitBoard.MOVES[move]);
+            cell = BitBoard.neighbour(cell, move ^ 2);
+        }
+        return path.reverse().toString();
+    }
+
     /**
      * Teleport a person on the board from a tile to a door
      *
@@ -122,17 +358,16 @@ public class Board {
      * @param door the door the player will be sent to
      */
     public boolean teleportPersonToDoor(Player player, Tile door){
-        if(door.getItem() != null){
-            System.out.println("Someone is blocking that door");
+        int doorCell = DistanceTable.cell(door.getRow(), door.getCol());
+        if(occupants[doorCell] != 0){
+            message("Someone is blocking that door");
             return false;
         }
         Person person = player.getPerson();
-        int row = person.row();
-        int col = person.col();
-        tiles[row][col].setItem(null);
-        door.setItem(player.getPerson());
-        person.setRow(door.getRow());
-        person.setCol(door.getCol());
+        int oldCell = DistanceTable.cell(person.row(), person.col());
+        vacate(oldCell);
+        occupy(person, doorCell);
+        itemMoved(person, oldCell, doorCell);
         return true;
     }
 
@@ -141,12 +376,108 @@ public class Board {
      *
      * @param item the item that is moved to the room
      * @param room the room to which the item is moving
+     * @return false if the room is full, in which case the item stays where it is.
+     */
+    public boolean teleportItemToRoom(MovableItem item, Room room){
+        int oldCell = DistanceTable.cell(item.row(), item.col());
+        int cell = room.randomFreeCell(random);
+        if(cell < 0) return false;
+        boolean wasOnBoard = getItemAt(oldCell) == item;
+        occupy(item, cell);
+        if(wasOnBoard) vacate(oldCell);
+        itemMoved(item, oldCell, cell);
+        return true;
+    }
+
+    /**
+     * Put an item on a particular square, such as when restoring a saved game.
+     *
+     * @param item a person or weapon
+     * @param row row of the square
+     * @param col column of the square
+     * @return false if the square is not a hall, door or room square, or something else is on it;
+     *         the item then stays where it is.
+     */
+    public boolean placeItem(MovableItem item, int row, int col){
+        if(row < 0 || row >= 25 || col < 0 || col >= 24) return false;
+        int cell = DistanceTable.cell(row, col);
+        if(!bits.isWalkable(cell) && !bits.isRoomTile(cell)) return false;
+        MovableItem there = getItemAt(cell);
+        if(there == item) return true;
+        if(there != null) return false;
+        removeItem(item);
+        occupy(item, cell);
+        itemPlaced(cell);
+        return true;
+    }
+
+    /**
+     * Take an item off the board, until it is put back with placeItem.
+     *
+     * @param item a person or weapon
      */
-    public void teleportItemToRoom(MovableItem item, Room room){
-        int oldRow = item.row();
-        int oldCol = item.col();
-        tiles[oldRow][oldCol].setItem(null);
-        room.placeRandom(item);
+    public void removeItem(MovableItem item){
+        int cell = DistanceTable.cell(item.row(), item.col());
+        if(getItemAt(cell) != item) return;
+        vacate(cell);
+        if(renderer != null) renderer.cellChanged(cell);
+    }
+
+    /**
+     * Put an item on an empty square, and move it there.
+     */
+    private void occupy(MovableItem item, int cell) {
+        int id = register(item);
+        occupants[cell] = (byte) (id + 1);
+        hash ^= Zobrist.item(id, cell);
+        bits.setOccupied(cell, true);
+        int room = bits.roomAt(cell);
+        if(room >= 0) rooms[room].cellTaken(cell);
+        item.setRow(cell / DistanceTable.COLS);
+        item.setCol(cell % DistanceTable.COLS);
+    }
+
+    /**
+     * Take whatever is on a square off it.
+     */
+    private void vacate(int cell) {
+        if(occupants[cell] == 0) return;
+        hash ^= Zobrist.item((occupants[cell] & 0xFF) - 1, cell);
+        occupants[cell] = 0;
+        bits.setOccupied(cell, false);
+        int room = bits.roomAt(cell);
+        if(room >= 0) rooms[room].cellFreed(cell);
+    }
+
+    /**
+     * Get the number of an item, recording the item under its number the first time it is on this board.
+     */
+    private int register(MovableItem item) {
+        int id = item.getId();
+        if(id < 0 || id > 254) throw new IllegalArgumentException("The " + item.getName() + " has no number from 0 to 254");
+        if(id >= items.length) items = Arrays.copyOf(items, Math.max(id + 1, Math.min(255, items.length * 2)));
+        if(items[id] == null) items[id] = item;
+        else if(items[id] != item)
+            throw new IllegalArgumentException("The " + item.getName() + " has the number of the " + items[id].getName());
+        return id;
+    }
+
+    /**
+     * Record that an item moved between two squares.
+     */
+    private void itemMoved(MovableItem item, int fromCell, int toCell) {
+        if(listener != null) listener.itemMoved(item, fromCell, toCell);
+        if(renderer != null) {
+            renderer.cellChanged(fromCell);
+            renderer.cellChanged(toCell);
+        }
+    }
+
+    /**
+     * Record that an item was put on a square.
+     */
+    private void itemPlaced(int cell) {
+        if(renderer != null) renderer.cellChanged(cell);
     }
 
     /**
@@ -160,7 +491,28 @@ public class Board {
         Person person = player.getPerson();
         int row = person.row();
         int col = person.col();
-        return tiles[row][col] instanceof RoomTile;
+        return bits.isRoomTile(DistanceTable.cell(row, col));
+    }
+
+    /**
+     * Check if someone is standing on every door of a room.
+     *
+     * @param room a room
+     * @return true if nobody can leave the room.
+     */
+    public boolean exitsBlocked(Room room){
+        return bits.exitsBlocked(roomIndex(room));
+    }
+
+    /**
+     * Get the directions a player can move in without being refused.
+     *
+     * @param player a player
+     * @return bit i set if BitBoard.MOVES[i] is allowed
+     */
+    public int legalMoves(Player player){
+        Person person = player.getPerson();
+        return bits.legalMoves(DistanceTable.cell(person.row(), person.col()));
     }
 
     /**
@@ -171,14 +523,15 @@ public class Board {
     public void addPeople(Person[] people){
         for(int i = 0; i < people.length; i++){
             Person person = people[i];
-            int row = person.row();
-            int col = person.col();
-            tiles[row][col].setItem(person);
+            int cell = DistanceTable.cell(person.row(), person.col());
+            occupy(person, cell);
+            itemPlaced(cell);
         }
     }
 
     /**
      * Place 6 weapons into 6 different rooms randomly.
+     * @throws IllegalStateException if a room chosen has no free square, which BoardLayout.build rules out
      */
     public void placeWeapons() {
         List<Integer> unusedRooms = new ArrayList<Integer>();
@@ -187,8 +540,11 @@ public class Board {
         }
         int roomsLeft = 9;
         for(int i = 0; i < 6; i++) {
-            int newRoom = (int)(Math.random() * roomsLeft);
-            rooms[unusedRooms.get(newRoom)].placeRandom(weapons[i]);
+            int newRoom = random.nextInt(roomsLeft);
+            int cell = rooms[unusedRooms.get(newRoom)].randomFreeCell(random);
+            if(cell < 0) throw new IllegalStateException("No space for the " + weapons[i].getName());
+            occupy(weapons[i], cell);
+            itemPlaced(cell);
             unusedRooms.remove(newRoom);
             roomsLeft = roomsLeft - 1;
         }
@@ -203,246 +559,62 @@ public class Board {
         Person person = player.getPerson();
         int row = person.row();
         int col = person.col();
-        return ((RoomTile) tiles[row][col]).getRoom();
-    }
-
-    /**
-     * Generate the horizontal separator lines (generate one line every two lines of the board)
-     */
-    private void generateLines() {
-        unmodifiableLines.add("                                    @@@@@               @@@@@                                    \n");
-        unmodifiableLines.add("@@@@@@@@@@@@@@@@@@@@@@@@@   @@@@@@@@@---@@@@@@@@@@@@@@@@@---@@@@@@@@@   @@@@@@@@@@@@@@@@@@@@@@@@@       *************************\n");
-        unmodifiableLines.add("@        KITCHEN        @@@@@---@@@@@@@@@   BALLROOM    @@@@@@@@@---@@@@@      CONSERVATORY     @       *************************\n");
-        unmodifiableLines.add("@                       @-------@                               @-------@                       @       *  M - Colonel Mustard  *\n");
-        unmodifiableLines.add("@                       @-------@                               @-------@                       @       *  G - Mr. Green        *\n");
-        unmodifiableLines.add("@                       @-------@                               @-------@@@@@               @@@@@       *  P - Professor Plum   *\n");
-        unmodifiableLines.add("@@@@@                   @-------@                               @-----------@@@@@@@@@@@@@@@@@@@@@       *  D - Dagger           *\n");
-        unmodifiableLines.add("@@@@@@@@@@@@@@@@@---@@@@@-------@                               @---------------------------@@@@@       *  R - Revolver         *\n");
-        unmodifiableLines.add("@@@@@---------------------------@@@@@---@@@@@@@@@@@@@@@@@---@@@@@-------@@@@@@@@@@@@@@@@@@@@@@@@@       *  A - Spanner          *\n");
-        unmodifiableLines.add("@@@@@@@@@@@@@@@@@@@@@---------------------------------------------------@     BILLARD ROOM      @\n");
-        unmodifiableLines.add("@                   @@@@@@@@@@@@@-------@@@@@@@@@@@@@@@@@@@@@-----------@                       @\n");
-        unmodifiableLines.add("@         DINING ROOM           @-------@                   @-----------@                       @\n");
-        unmodifiableLines.add("@                               @-------@                   @-----------@                       @\n");
-        unmodifiableLines.add("@                               @-------@                   @-----------@@@@@@@@@@@@@@@@@---@@@@@\n");
-        unmodifiableLines.add("@                               @-------@                   @-----------@@@@@@@@@---@@@@@@@@@    \n");
-        unmodifiableLines.add("@                               @-------@                   @-------@@@@@      LIBRARY      @@@@@\n");
-        unmodifiableLines.add("@@@@@@@@@@@@@@@@@@@@@@@@@---@@@@@-------@                   @-------@                           @\n");
-        unmodifiableLines.add("@@@@@-----------------------------------@@@@@@@@@@@@@@@@@@@@@-------@                           @\n");
-        unmodifiableLines.add("@@@@@-------------------------------@@@@@@@@@-------@@@@@@@@@-------@@@@@                   @@@@@\n");
-        unmodifiableLines.add("@@@@@@@@@@@@@@@@@@@@@@@@@---@-------@          HALL         @-----------@@@@@@@@@@@@@@@@@@@@@@@@@\n");
-        unmodifiableLines.add("@          LOUNGE           @-------@                       @-------------------------------@@@@@\n");
-        unmodifiableLines.add("@                           @-------@                       @-------@---@@@@@@@@@@@@@@@@@@@@@@@@@\n");
-        unmodifiableLines.add("@                           @-------@                       @-------@            STUDY          @\n");
-        unmodifiableLines.add("@                           @-------@                       @-------@                           @\n");
-        unmodifiableLines.add("@                       @@@@@---@@@@@                       @@@@@---@@@@@                       @\n");
-        unmodifiableLines.add("@@@@@@@@@@@@@@@@@@@@@@@@@   @@@@@   @@@@@@@@@@@@@@@@@@@@@@@@@   @@@@@   @@@@@@@@@@@@@@@@@@@@@@@@@\n");
-
-        keyStrings.add(" @       *          KEY          *\n");
-        keyStrings.add(" @       *  S - Miss Scarlett    *\n");
-        keyStrings.add(" @       *  W - Mrs. White       *\n");
-        keyStrings.add(" @       *  E - Mrs. Peacock     *\n");
-        keyStrings.add("         *  C - Candlestick      *\n");
-        keyStrings.add(" @       *  L - Lead Pipe        *\n");
-        keyStrings.add("         *  O - Rope             *\n");
-        keyStrings.add(" @       *************************\n");
-
-    }
-
-    /**
-     * Tiles on the board.
-     */
-    public void generateTiles() {
-        initialTiles = "BBBBBBBBBHBBBBHBBBBBBBBB" +
-                "KKKKKKBHHHAAAAHHHBCCCCCC" +
-                "KKKKKKHHAAAAAAAAHHCCCCCC" +
-                "KKKKKKHHAAAAAAAAHHCCCCCC" +
-                "KKKKKKHHAAAAAAAAHHCCCCCC" +
-                "KKKKKKH1AAAAAAAA4H1CCCCB" +
-                "BKKKKKHHAAAAAAAAHHHHHHHH" +
-                "HHHH1HHHAAAAAAAAHHHHHHHB" +
-                "BHHHHHHHH2HHHH3HHHOOOOOO" +
-                "IIIIIHHHHHHHHHHHH1OOOOOO" +
-                "IIIIIIIIHHBBBBBHHHOOOOOO" +
-                "IIIIIIIIHHBBBBBHHHOOOOOO" +
-                "IIIIIIII1HBBBBBHHHOOOOOO" +
-                "IIIIIIIIHHBBBBBHHHHH1H2B" +
-                "IIIIIIIIHHBBBBBHHHLLLLLB" +
-                "IIIIIIIIHHBBBBBHHLLLLLLL" +
-                "BHHHHH2HHHBBBBBH2LLLLLLL" +
-                "HHHHHHHHHHH12HHHHLLLLLLL" +
-                "BHHHHH1HHXXXXXXHHHLLLLLB" +
-                "UUUUUUUHHXXXXXXHHHHHHHHH" +
-                "UUUUUUUHHXXXXXX3H1HHHHHB" +
-                "UUUUUUUHHXXXXXXHHSSSSSSS" +
-                "UUUUUUUHHXXXXXXHHSSSSSSS" +
-                "UUUUUUUHHXXXXXXHHSSSSSSS" +
-                "UUUUUUBHBXXXXXXBHBSSSSSS";
-        int index = 0;
-        char currentChar;
-        for(int i = 0; i< 25; i++) {
-            for(int j = 0; j<24; j++) {
-                currentChar = initialTiles.charAt(index);
-                if(currentChar == 'B') {
-                    tiles[i][j] = new BlockedTile(i, j);
-                }
-                else if(currentChar == 'H') {
-                    tiles[i][j] = new HallTile(i, j);
-                }
-                else if(currentChar == '1' || currentChar == '2' || currentChar == '3' || currentChar == '4') {
-                    tiles[i][j] = new DoorTile(Integer.parseInt(String.valueOf(currentChar)), i, j);
-                }
-                else{
-                    if(currentChar == 'K') {
-                        tiles[i][j] = new RoomTile(rooms[0], i, j);
-                        rooms[0].addRoomTile((RoomTile)tiles[i][j]);
-                    }
-                    if(currentChar == 'A') {
-                        tiles[i][j] = new RoomTile(rooms[1], i, j);
-                        rooms[1].addRoomTile((RoomTile)tiles[i][j]);
-                    }
-                    if(currentChar == 'C') {
-                        tiles[i][j] = new RoomTile(rooms[2], i, j);
-                        rooms[2].addRoomTile((RoomTile)tiles[i][j]);
-                    }
-                    if(currentChar == 'O') {
-                        tiles[i][j] = new RoomTile(rooms[3], i, j);
-                        rooms[3].addRoomTile((RoomTile)tiles[i][j]);
-                    }
-                    if(currentChar == 'L') {
-                        tiles[i][j] = new RoomTile(rooms[4], i, j);
-                        rooms[4].addRoomTile((RoomTile)tiles[i][j]);
-                    }
-                    if(currentChar == 'S') {
-                        tiles[i][j] = new RoomTile(rooms[5], i, j);
-                        rooms[5].addRoomTile((RoomTile)tiles[i][j]);
-                    }
-                    if(currentChar == 'X') {
-                        tiles[i][j] = new RoomTile(rooms[6], i, j);
-                        rooms[6].addRoomTile((RoomTile)tiles[i][j]);
-                    }
-                    if(currentChar == 'U') {
-                        tiles[i][j] = new RoomTile(rooms[7], i, j);
-                        rooms[7].addRoomTile((RoomTile)tiles[i][j]);
-                    }
-                    if(currentChar == 'I') {
-                        tiles[i][j] = new RoomTile(rooms[8], i, j);
-                        rooms[8].addRoomTile((RoomTile)tiles[i][j]);
-                    }
-                }
-                index = index + 1;
-            }
-        }
+        return rooms[bits.roomAt(DistanceTable.cell(row, col))];
     }
 
     /**
-     * Assign each door tile to a specific room
+     * Set where the board and its messages are printed.
+     *
+     * @param out the stream to print to, or null to run without any output (headless games)
      */
-    public void assignRoomsToDoors() {
-        for(int i = 0; i<25; i++) {
-            for(int j = 0; j <24; j++) {
-                if(tiles[i][j] instanceof DoorTile) {
-                    if(tiles[i][j+1] instanceof RoomTile) {
-                        ((DoorTile) tiles[i][j]).setRoom(((RoomTile) tiles[i][j+1]).getRoom());
-                        ((RoomTile)(tiles[i][j+1])).getRoom().removeTile(tiles[i][j+1]);
-                    }
-                    else if(tiles[i][j-1] instanceof RoomTile) {
-                        ((DoorTile) tiles[i][j]).setRoom(((RoomTile) tiles[i][j-1]).getRoom());
-                        ((RoomTile)tiles[i][j-1]).getRoom().removeTile(tiles[i][j+1]);
-                    }
-                    else if(tiles[i+1][j] instanceof RoomTile) {
-                        ((DoorTile) tiles[i][j]).setRoom(((RoomTile) tiles[i+1][j]).getRoom());
-                        ((RoomTile) tiles[i+1][j]).getRoom().removeTile(tiles[i][j+1]);
-                    }
-                    else if(tiles[i-1][j] instanceof RoomTile) {
-                        ((DoorTile) tiles[i][j]).setRoom(((RoomTile) tiles[i-1][j]).getRoom());
-                        ((RoomTile) tiles[i-1][j]).getRoom().removeTile(tiles[i][j+1]);
-                    }
-                }
-            }
-        }
-        ((DoorTile) tiles[13][20]).setRoom(((RoomTile) tiles[14][20]).getRoom());
-        ((DoorTile) tiles[13][22]).setRoom(((RoomTile) tiles[12][22]).getRoom());
+    public void setOutput(PrintStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Set what is told about every move of a person or weapon.
+     * Items put on the board by addPeople, placeWeapons, placeItem and removeItem are not reported.
+     *
+     * @param listener the listener, or null
+     */
+    public void setListener(GameListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Print a message to the player, unless the board is running headless.
+     * @param text the message
+     */
+    private void message(String text) {
+        if(out != null) out.println(text);
     }
 
     /**
      * Draw the board line by line: one horizontal separator line, followed by one line of tiles (looping in this way).
+     * Only the rows that changed since the last drawing are redrawn.
      */
     public void drawBoard() {
-        String boardOutput = "";
-        int i = 0;
-        while(i<25) {
-            boardOutput = boardOutput + unmodifiableLines.get(i);
-            String arrayLine = "";
-            for(int j = 0; j<24; j++) {
-
-                //Special cases - on either end of the board
-                if(j == 0) {
-                    if(tiles[i][j] instanceof RoomTile) {
-                        arrayLine = arrayLine + "@ ";
-                    }
-                    else if(tiles[i][j] instanceof HallTile) {
-                        arrayLine = arrayLine + "@ ";
-                    }
-                    else if(tiles[i][j] instanceof BlockedTile) {
-                        arrayLine = arrayLine + "  ";
-                    }
-                }
-
-                arrayLine = arrayLine + tiles[i][j].toString(); //put a key to represent what is actually in the tile
+        if(out == null) return;
+        if(renderer == null) renderer = new BoardRenderer(layout.getRenderer(), this);
+        char[] frame = renderer.render();
+        out.print(frame);
+        out.println();
+    }
 
-                if(j == 23) {
-                    if(i > 0 && i < 9) {
-                        arrayLine = arrayLine + keyStrings.get(i-1);
-                    }
-                    else {
-                        if(tiles[i][j] instanceof RoomTile) {
-                            arrayLine = arrayLine + " @\n";
-                        }
-                        else if(tiles[i][j] instanceof HallTile) {
-                            arrayLine = arrayLine + " @\n";
-                        }
-                        else if(tiles[i][j] instanceof BlockedTile) {
-                            arrayLine = arrayLine + "  \n";
-                        }
-                    }
-                }
-                else {
-                    if(tiles[i][j] instanceof RoomTile && tiles[i][j+1] instanceof RoomTile) {
-                        arrayLine = arrayLine + "   ";
-                    }
-                    else if(tiles[i][j] instanceof HallTile && tiles[i][j+1] instanceof HallTile) {
-                        arrayLine = arrayLine + " | ";
-                    }
-                    else if(tiles[i][j] instanceof BlockedTile && tiles[i][j+1] instanceof BlockedTile){
-                        arrayLine = arrayLine + "   ";
-                    }
-                    else if(tiles[i][j] instanceof DoorTile && tiles[i][j+1] instanceof DoorTile){
-                        arrayLine = arrayLine + " | ";
-                    }
-                    else if(tiles[i][j] instanceof RoomTile && tiles[i][j+1] instanceof HallTile || tiles[i][j] instanceof HallTile && tiles[i][j+1] instanceof RoomTile){
-                        arrayLine = arrayLine + " @ ";
-                    }
-                    else if(tiles[i][j] instanceof BlockedTile && tiles[i][j+1] instanceof HallTile || tiles[i][j] instanceof HallTile && tiles[i][j+1] instanceof BlockedTile){
-                        arrayLine = arrayLine + " @ ";
-                    }
-                    else if(tiles[i][j] instanceof RoomTile && tiles[i][j+1] instanceof BlockedTile || tiles[i][j] instanceof BlockedTile && tiles[i][j+1] instanceof RoomTile){
-                        arrayLine = arrayLine + " @ ";
-                    }
-                    else if(tiles[i][j] instanceof DoorTile && tiles[i][j+1] instanceof HallTile || tiles[i][j] instanceof HallTile && tiles[i][j+1] instanceof DoorTile){
-                        arrayLine = arrayLine + " | ";
-                    }
-                    else if(tiles[i][j] instanceof BlockedTile && tiles[i][j+1] instanceof DoorTile || tiles[i][j] instanceof DoorTile && tiles[i][j+1] instanceof BlockedTile){
-                        arrayLine = arrayLine + " @ ";
-                    }
-                    else if(tiles[i][j] instanceof RoomTile && tiles[i][j+1] instanceof DoorTile || tiles[i][j] instanceof DoorTile && tiles[i][j+1] instanceof RoomTile){
-                        arrayLine = arrayLine + " | ";
-                    }
-                }
-            }
-            boardOutput = boardOutput + arrayLine;
-            i = i + 1;
+    /**
+     * Draw only the squares that changed since the last drawing, using ANSI cursor movement.
+     * The first call clears the terminal and draws the whole board.
+     */
+    public void drawBoardChanges() {
+        if(out == null) return;
+        if(renderer == null) {
+            renderer = new BoardRenderer(layout.getRenderer(), this);
+            out.print("\033[H\033[2J");
+            out.print(renderer.render());
+            out.flush();
+            return;
         }
-        boardOutput = boardOutput + unmodifiableLines.get(25);
-        System.out.println(boardOutput);
+        out.print(renderer.renderUpdates());
+        out.flush();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,553 @@
+package Cluedo;
+import Cluedo.Navigation.DistanceTable;
+import Cluedo.Navigation.ReachabilityTable;
+import Cluedo.Tiles.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The layout of a board: its tiles, the rooms' squares and numbered doors, and the tables worked out
+ * from them (distances, reachability, bit masks and the drawing template).
+ *
+ * None of it changes during a game, so one layout is built and shared by every game, from any thread.
+ * Each Board keeps only what moves: which person or weapon is on each square.
+ *
+ * The standard layout is built in; others are read from text files by LayoutCompiler,
+ * which keeps them compiled (see encode) so that they load without working out the tables again.
+ */
+public class BoardLayout {
+    /**
+     *  Using different letters to represent different types of tiles:
+     *    numbers: DoorTile
+     *    B: BlockedTile
+     *    H: HallTile
+     *    K: RoomTile - Kitchen
+     *    A: RoomTile - Ballroom
+     *    C: RoomTile - Conservatory
+     *    O: RoomTile - Billiards Room
+     *    L: RoomTile - Library
+     *    S: RoomTile - Study
+     *    X: RoomTile - Hall
+     *    U: RoomTile - Lounge
+     *    I: RoomTile - Dining Room
+     */
+    static final String STANDARD_TILES = "BBBBBBBBBHBBBBHBBBBBBBBB" +
+        "KKKKKKBHHHAAAAHHHBCCCCCC" +
+        "KKKKKKHHAAAAAAAAHHCCCCCC" +
+        "KKKKKKHHAAAAAAAAHHCCCCCC" +
+        "KKKKKKHHAAAAAAAAHHCCCCCC" +
+        "KKKKKKH1AAAAAAAA4H1CCCCB" +
+        "BKKKKKHHAAAAAAAAHHHHHHHH" +
+        "HHHH1HHHAAAAAAAAHHHHHHHB" +
+        "BHHHHHHHH2HHHH3HHHOOOOOO" +
+        "IIIIIHHHHHHHHHHHH1OOOOOO" +
+        "IIIIIIIIHHBBBBBHHHOOOOOO" +
+        "IIIIIIIIHHBBBBBHHHOOOOOO" +
+        "IIIIIIII1HBBBBBHHHOOOOOO" +
+        "IIIIIIIIHHBBBBBHHHHH1H2B" +
+        "IIIIIIIIHHBBBBBHHHLLLLLB" +
+        "IIIIIIIIHHBBBBBHHLLLLLLL" +
+        "BHHHHH2HHHBBBBBH2LLLLLLL" +
+        "HHHHHHHHHHH12HHHHLLLLLLL" +
+        "BHHHHH1HHXXXXXXHHHLLLLLB" +
+        "UUUUUUUHHXXXXXXHHHHHHHHH" +
+        "UUUUUUUHHXXXXXX3H1HHHHHB" +
+        "UUUUUUUHHXXXXXXHHSSSSSSS" +
+        "UUUUUUUHHXXXXXXHHSSSSSSS" +
+        "UUUUUUUHHXXXXXXHHSSSSSSS" +
+        "UUUUUUBHBXXXXXXBHBSSSSSS";
+
+    /** Room letters of STANDARD_TILES, in the order of Game.ROOM_NAMES. */
+    static final String ROOM_LETTERS = "KACOLSXUI";
+
+    /** Horizontal separator lines, one above each row of squares and one below the last. */
+    static final List<String> STANDARD_LINES = List.of(
+        "                                    @@@@@               @@@@@                                    \n",
+        "@@@@@@@@@@@@@@@@@@@@@@@@@   @@@@@@@@@---@@@@@@@@@@@@@@@@@---@@@@@@@@@   @@@@@@@@@@@@@@@@@@@@@@@@@       *************************\n",
+        "@        KITCHEN        @@@@@---@@@@@@@@@   BALLROOM    @@@@@@@@@---@@@@@      CONSERVATORY     @       *************************\n",
+        "@                       @-------@                               @-------@                       @       *  M - Colonel Mustard  *\n",
+        "@                       @-------@                               @-------@                       @       *  G - Mr. Green        *\n",
+        "@                       @-------@                               @-------@@@@@               @@@@@       *  P - Professor Plum   *\n",
+        "@@@@@                   @-------@                               @-----------@@@@@@@@@@@@@@@@@@@@@       *  D - Dagger           *\n",
+        "@@@@@@@@@@@@@@@@@---@@@@@-------@                               @---------------------------@@@@@       *  R - Revolver         *\n",
+        "@@@@@---------------------------@@@@@---@@@@@@@@@@@@@@@@@---@@@@@-------@@@@@@@@@@@@@@@@@@@@@@@@@       *  A - Spanner          *\n",
+        "@@@@@@@@@@@@@@@@@@@@@---------------------------------------------------@     BILLARD ROOM      @\n",
+        "@                   @@@@@@@@@@@@@-------@@@@@@@@@@@@@@@@@@@@@-----------@                       @\n",
+        "@         DINING ROOM           @-------@                   @-----------@                       @\n",
+        "@                               @-------@                   @-----------@                       @\n",
+        "@                               @-------@                   @-----------@@@@@@@@@@@@@@@@@---@@@@@\n",
+        "@                               @-------@                   @-----------@@@@@@@@@---@@@@@@@@@    \n",
+        "@                               @-------@                   @-------@@@@@      LIBRARY      @@@@@\n",
+        "@@@@@@@@@@@@@@@@@@@@@@@@@---@@@@@-------@                   @-------@                           @\n",
+        "@@@@@-----------------------------------@@@@@@@@@@@@@@@@@@@@@-------@                           @\n",
+        "@@@@@-------------------------------@@@@@@@@@-------@@@@@@@@@-------@@@@@                   @@@@@\n",
+        "@@@@@@@@@@@@@@@@@@@@@@@@@---@-------@          HALL         @-----------@@@@@@@@@@@@@@@@@@@@@@@@@\n",
+        "@          LOUNGE           @-------@                       @-------------------------------@@@@@\n",
+        "@                           @-------@                       @-------@---@@@@@@@@@@@@@@@@@@@@@@@@@\n",
+        "@                           @-------@                       @-------@            STUDY          @\n",
+        "@                           @-------@                       @-------@                           @\n",
+        "@                       @@@@@---@@@@@                       @@@@@---@@@@@                       @\n",
+        "@@@@@@@@@@@@@@@@@@@@@@@@@   @@@@@   @@@@@@@@@@@@@@@@@@@@@@@@@   @@@@@   @@@@@@@@@@@@@@@@@@@@@@@@@\n");
+
+    /** The key, printed to the right of rows 1 to 8. */
+    static final List<String> STANDARD_KEY = List.of(
+        " @       *          KEY          *\n",
+        " @       *  S - Miss Scarlett    *\n",
+        " @       *  W - Mrs. White       *\n",
+        " @       *  E - Mrs. Peacock     *\n",
+        "         *  C - Candlestick      *\n",
+        " @       *  L - Lead Pipe        *\n",
+        "         *  O - Rope             *\n",
+        " @       *************************\n");
+
+    /** Start square of each character, in the order of Game.CHARACTER_NAMES. */
+    static final int[] STANDARD_STARTS = {DistanceTable.cell(24, 7), DistanceTable.cell(17, 0),
+        DistanceTable.cell(0, 9), DistanceTable.cell(0, 14), DistanceTable.cell(6, 23), DistanceTable.cell(19, 23)};
+
+    /**
+     * Doors that are next to two rooms, and the room each belongs to
+     * (the Library door between the Library and the Billiards Room, and the Billiards Room door beside it).
+     */
+    static final Map<Integer, Character> STANDARD_DOORS = Map.of(
+        DistanceTable.cell(13, 20), 'L',
+        DistanceTable.cell(13, 22), 'O');
+
+    public static final byte MAGIC = 'L';
+    public static final byte VERSION = 2;
+
+    /** Fewest squares a room may have for items, so that every person and weapon fits in it at once. */
+    public static final int MIN_ROOM_SQUARES = 12;
+
+    private final String name;
+    /** CRC-32 of the text the layout was compiled from, or 0 for the standard layout. */
+    private final int sourceCrc;
+    private final String tileString;
+    private final String roomLetters;
+    private final int[] startCells;
+    /** The room of each door square, or -1. */
+    private final byte[] doorRoom;
+
+    /** Tiles on each square. */
+    private final Tile[][] tiles;
+    /** The squares of each room that items are put on, in the order the rooms first offer them. */
+    private final int[][] roomCells;
+    /** Position of each square in its room's roomCells, or -1. */
+    private final byte[] roomSlot;
+    /** The doors of each room, by door number. */
+    private final List<Map<Integer, DoorTile>> roomDoors;
+
+    private final DistanceTable distances;
+    private final ReachabilityTable reachability;
+    private final BitBoard bits;
+    private final BoardRenderer renderer;
+
+    /**
+     * Holds the standard layout, built the first time it is used.
+     */
+    private static class Standard {
+        static final BoardLayout LAYOUT = build("Standard", STANDARD_TILES, ROOM_LETTERS, STANDARD_STARTS, STANDARD_DOORS,
+                STANDARD_LINES, STANDARD_KEY, 0);
+    }
+
+    /**
+     * Get the layout of the Cluedo board.
+     * @return the layout, shared by every game
+     */
+    public static BoardLayout standard() {
+        return Standard.LAYOUT;
+    }
+
+    /**
+     * Build a layout, checking that a game can be played on it.
+     *
+     * A door belongs to the room next to it, looking right, left, down and then up,
+     * unless it is given a room in doorRooms; the room square to the right of a door is not used for items.
+     *
+     * @param name name of the layout
+     * @param tileString a letter for each square, row by row (see STANDARD_TILES)
+     * @param roomLetters the letter of each room, in the order of Game.ROOM_NAMES
+     * @param startCells start square of each character, in the order of Game.CHARACTER_NAMES
+     * @param doorRooms the room letter of doors that are next to more than one room, by square
+     * @param lines the separator lines drawn between the rows
+     * @param keyStrings the key drawn to the right of rows 1 to 8
+     * @param sourceCrc CRC-32 of the text the layout is compiled from, or 0
+     * @return the layout
+     * @throws IllegalArgumentException if a game cannot be played on the layout
+     */
+    public static BoardLayout build(String name, String tileString, String roomLetters, int[] startCells,
+                                    Map<Integer, Character> doorRooms, List<String> lines, List<String> keyStrings,
+                                    int sourceCrc) {
+        if(tileString.length() != DistanceTable.CELLS)
+            throw new IllegalArgumentException("The board needs " + DistanceTable.CELLS + " squares, not " + tileString.length());
+        if(roomLetters.length() != Game.ROOM_NAMES.length)
+            throw new IllegalArgumentException("The board needs " + Game.ROOM_NAMES.length + " rooms, not " + roomLetters.length());
+        for(int i = 0; i < roomLetters.length(); i++) {
+            char c = roomLetters.charAt(i);
+            if(c == 'B' || c == 'H' || (c >= '0' && c <= '9') || c <= ' ' || c > '~' || roomLetters.indexOf(c) != i)
+                throw new IllegalArgumentException("Room letter " + c + " cannot be used");
+        }
+        if(startCells.length != Game.CHARACTER_NAMES.length)
+            throw new IllegalArgumentException("The board needs " + Game.CHARACTER_NAMES.length + " start squares");
+        if(lines.size() != DistanceTable.ROWS + 1 || keyStrings.size() != 8)
+            throw new IllegalArgumentException("The board needs " + (DistanceTable.ROWS + 1) + " separator lines and 8 key lines");
+
+        int roomCount = roomLetters.length();
+        List<List<Integer>> cells = new ArrayList<>();
+        for(int i = 0; i < roomCount; i++) cells.add(new ArrayList<>());
+        for(int cell = 0; cell < DistanceTable.CELLS; cell++) {
+            char c = tileString.charAt(cell);
+            int room = roomLetters.indexOf(c);
+            if(room >= 0) cells.get(room).add(cell);
+            else if(c != 'B' && c != 'H' && (c < '1' || c > '9'))
+                throw new IllegalArgumentException("Unknown square " + c + " at " + position(cell));
+        }
+        for(int cell: doorRooms.keySet())
+            if(cell < 0 || cell >= DistanceTable.CELLS || !isDoor(tileString.charAt(cell)))
+                throw new IllegalArgumentException("The square at " + position(cell) + " is given a room but is not a door");
+
+        byte[] doorRoom = new byte[DistanceTable.CELLS];
+        Arrays.fill(doorRoom, (byte) -1);
+        // door numbers taken in each room
+        int[] numbers = new int[roomCount];
+        for(int cell = 0; cell < DistanceTable.CELLS; cell++) {
+            if(!isDoor(tileString.charAt(cell))) continue;
+            int i = cell / DistanceTable.COLS, j = cell % DistanceTable.COLS;
+            int room;
+            Character given = doorRooms.get(cell);
+            if(given != null) {
+                room = roomLetters.indexOf(given);
+                if(room < 0 || (roomAt(tileString, roomLetters, i, j + 1) != room && roomAt(tileString, roomLetters, i, j - 1) != room
+                        && roomAt(tileString, roomLetters, i + 1, j) != room && roomAt(tileString, roomLetters, i - 1, j) != room))
+                    throw new IllegalArgumentException("The door at row " + i + ", column " + j + " is not next to room " + given);
+            }else if((room = roomAt(tileString, roomLetters, i, j + 1)) >= 0) removeSwapping(cells.get(room), cell + 1);
+            else if((room = roomAt(tileString, roomLetters, i, j - 1)) < 0 && (room = roomAt(tileString, roomLetters, i + 1, j)) < 0
+                    && (room = roomAt(tileString, roomLetters, i - 1, j)) < 0)
+                throw new IllegalArgumentException("The door at row " + i + ", column " + j + " is not next to a room");
+            int number = tileString.charAt(cell) - '0';
+            if((numbers[room] & (1 << number)) != 0)
+                throw new IllegalArgumentException("The " + Game.ROOM_NAMES[room] + " has two doors numbered " + number);
+            numbers[room] |= 1 << number;
+            doorRoom[cell] = (byte) room;
+        }
+
+        int[][] roomCells = new int[roomCount][];
+        for(int room = 0; room < roomCount; room++) {
+            if(numbers[room] == 0) throw new IllegalArgumentException("The " + Game.ROOM_NAMES[room] + " has no door");
+            List<Integer> list = cells.get(room);
+            if(list.size() < MIN_ROOM_SQUARES || list.size() > Byte.MAX_VALUE)
+                throw new IllegalArgumentException("The " + Game.ROOM_NAMES[room] + " has " + list.size()
+                        + " squares for items, not " + MIN_ROOM_SQUARES + " to " + Byte.MAX_VALUE);
+            roomCells[room] = new int[list.size()];
+            for(int k = 0; k < list.size(); k++) roomCells[room][k] = list.get(k);
+        }
+        for(int start: startCells)
+            if(start < 0 || start >= DistanceTable.CELLS || !(tileString.charAt(start) == 'H' || isDoor(tileString.charAt(start))))
+                throw new IllegalArgumentException("The start square at " + position(start) + " is not a hall or door square");
+        if(Arrays.stream(startCells).distinct().count() != startCells.length)
+            throw new IllegalArgumentException("Two characters start on the same square");
+
+        BoardLayout layout = new BoardLayout(name, sourceCrc, tileString, roomLetters, startCells.clone(), doorRoom, roomCells,
+                new BoardRenderer(createTiles(tileString, roomLetters, doorRoom), lines, keyStrings), null, null);
+        for(int start: startCells)
+            for(int room = 0; room < roomCount; room++)
+                if(layout.distances.distanceToRoom(start, room) == DistanceTable.UNREACHABLE)
+                    throw new IllegalArgumentException("The " + Game.ROOM_NAMES[room] + " cannot be reached from the start square at "
+                            + position(start));
+        return layout;
+    }
+
+    /**
+     * Put a layout together from its parts, working out the tables that are not given.
+     */
+    private BoardLayout(String name, int sourceCrc, String tileString, String roomLetters, int[] startCells, byte[] doorRoom,
+                        int[][] roomCells, BoardRenderer renderer, DistanceTable distances, ReachabilityTable reachability) {
+        this.name = name;
+        this.sourceCrc = sourceCrc;
+        this.tileString = tileString;
+        this.roomLetters = roomLetters;
+        this.startCells = startCells;
+        this.doorRoom = doorRoom;
+        this.roomCells = roomCells;
+        this.renderer = renderer;
+        tiles = createTiles(tileString, roomLetters, doorRoom);
+        roomSlot = new byte[DistanceTable.CELLS];
+        Arrays.fill(roomSlot, (byte) -1);
+        List<Map<Integer, DoorTile>> doorTiles = new ArrayList<>();
+        for(int room = 0; room < roomCells.length; room++) {
+            doorTiles.add(new HashMap<>());
+            for(int k = 0; k < roomCells[room].length; k++) roomSlot[roomCells[room][k]] = (byte) k;
+        }
+        for(int cell = 0; cell < DistanceTable.CELLS; cell++)
+            if(doorRoom[cell] >= 0) {
+                DoorTile door = (DoorTile) tiles[cell / DistanceTable.COLS][cell % DistanceTable.COLS];
+                doorTiles.get(doorRoom[cell]).put(door.getDoorNumber(), door);
+            }
+        for(int room = 0; room < doorTiles.size(); room++) doorTiles.set(room, Collections.unmodifiableMap(doorTiles.get(room)));
+        roomDoors = Collections.unmodifiableList(doorTiles);
+
+        this.distances = distances != null ? distances : new DistanceTable(tiles, roomDoors);
+        this.reachability = reachability != null ? reachability : new ReachabilityTable(this.distances);
+        bits = new BitBoard(tiles, roomDoors);
+    }
+
+    private static String position(int cell) {
+        return "row " + cell / DistanceTable.COLS + ", column " + cell % DistanceTable.COLS;
+    }
+
+    private static boolean isDoor(char c) {
+        return c >= '1' && c <= '9';
+    }
+
+    /**
+     * The room of a square from its letter, or -1 if it is off the board or not a room square.
+     */
+    private static int roomAt(String tileString, String roomLetters, int row, int col) {
+        if(row < 0 || row >= DistanceTable.ROWS || col < 0 || col >= DistanceTable.COLS) return -1;
+        return roomLetters.indexOf(tileString.charAt(DistanceTable.cell(row, col)));
+    }
+
+    /**
+     * Create the tiles of a layout.
+     */
+    private static Tile[][] createTiles(String tileString, String roomLetters, byte[] doorRoom) {
+        Tile[][] tiles = new Tile[DistanceTable.ROWS][DistanceTable.COLS];
+        for(int cell = 0; cell < DistanceTable.CELLS; cell++) {
+            int i = cell / DistanceTable.COLS, j = cell % DistanceTable.COLS;
+            char c = tileString.charAt(cell);
+            if(c == 'B') tiles[i][j] = new BlockedTile(i, j);
+            else if(c == 'H') tiles[i][j] = new HallTile(i, j);
+            else if(isDoor(c)) tiles[i][j] = new DoorTile(c - '0', doorRoom[cell], i, j);
+            else tiles[i][j] = new RoomTile(roomLetters.indexOf(c), i, j);
+        }
+        return tiles;
+    }
+
+    /**
+     * Take a square out of a room's list by moving the last square into its place.
+     */
+    private static void removeSwapping(List<Integer> cells, int cell) {
+        int at = cells.indexOf(cell);
+        if(at < 0) return;
+        int last = cells.remove(cells.size() - 1);
+        if(at < cells.size()) cells.set(at, last);
+    }
+
+    /**
+     * Compile the layout into its binary form, which decode reads back without working out any of the tables again.
+     *
+     * Format (version 1), big-endian:
+     *   'L', version                                   2 bytes
+     *   CRC-32 of the text compiled from               4 bytes
+     *   name                                           1 byte length, then one byte per character
+     *   room letters                                   1 byte count, then one byte each
+     *   the letter of each square, row by row          600 bytes
+     *   start square of each character                 1 byte count, then 2 bytes each
+     *   room of each door square, in square order      1 byte each
+     *   each room's squares for items, in the order they are first offered
+     *                                                  1 byte count, then 2 bytes each
+     *   drawing template                               see BoardRenderer.write
+     *   distances and first steps between squares      see DistanceTable.write
+     *   squares and rooms reachable with each roll     see ReachabilityTable.write
+     *
+     * @return the compiled layout
+     */
+    public byte[] encode() {
+        int size = 2 + 4 + 1 + name.length() + 1 + roomLetters.length() + DistanceTable.CELLS + 1 + 2 * startCells.length
+                + renderer.byteSize() + distances.byteSize() + reachability.byteSize();
+        for(int cell = 0; cell < DistanceTable.CELLS; cell++) if(doorRoom[cell] >= 0) size++;
+        for(int[] cells: roomCells) size += 1 + 2 * cells.length;
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.put(MAGIC).put(VERSION).putInt(sourceCrc);
+        putString(buffer, name);
+        putString(buffer, roomLetters);
+        buffer.put(tileString.getBytes(StandardCharsets.US_ASCII));
+        buffer.put((byte) startCells.length);
+        for(int start: startCells) buffer.putShort((short) start);
+        for(int cell = 0; cell < DistanceTable.CELLS; cell++) if(doorRoom[cell] >= 0) buffer.put(doorRoom[cell]);
+        for(int[] cells: roomCells) {
+            buffer.put((byte) cells.length);
+            for(int cell: cells) buffer.putShort((short) cell);
+        }
+        renderer.write(buffer);
+        distances.write(buffer);
+        reachability.write(buffer);
+        return buffer.array();
+    }
+
+    private static void putString(ByteBuffer buffer, String text) {
+        buffer.put((byte) text.length()).put(text.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] text = new byte[buffer.get() & 0xFF];
+        buffer.get(text);
+        return new String(text, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Read a layout compiled by encode.
+     * The layout is not checked again, only that the data is well formed.
+     *
+     * @param buffer the compiled layout
+     * @return the layout
+     * @throws IllegalArgumentException if the data is not a compiled layout of a supported version
+     */
+    public static BoardLayout decode(ByteBuffer buffer) {
+        try {
+            if(buffer.get() != MAGIC) throw new IllegalArgumentException("Not a compiled board layout");
+            int version = buffer.get();
+            if(version != VERSION) throw new IllegalArgumentException("Unsupported layout version " + version);
+            int sourceCrc = buffer.getInt();
+            String name = getString(buffer);
+            String roomLetters = getString(buffer);
+            if(roomLetters.length() != Game.ROOM_NAMES.length) throw new IllegalArgumentException("Bad number of rooms");
+            byte[] letters = new byte[DistanceTable.CELLS];
+            buffer.get(letters);
+            String tileString = new String(letters, StandardCharsets.US_ASCII);
+            for(int cell = 0; cell < DistanceTable.CELLS; cell++) {
+                char c = tileString.charAt(cell);
+                if(c != 'B' && c != 'H' && !isDoor(c) && roomLetters.indexOf(c) < 0)
+                    throw new IllegalArgumentException("Unknown square " + c);
+            }
+            int[] startCells = new int[buffer.get()];
+            if(startCells.length != Game.CHARACTER_NAMES.length) throw new IllegalArgumentException("Bad number of start squares");
+            for(int i = 0; i < startCells.length; i++) startCells[i] = checkCell(buffer.getShort());
+            byte[] doorRoom = new byte[DistanceTable.CELLS];
+            Arrays.fill(doorRoom, (byte) -1);
+            for(int cell = 0; cell < DistanceTable.CELLS; cell++)
+                if(isDoor(tileString.charAt(cell))) {
+                    doorRoom[cell] = buffer.get();
+                    if(doorRoom[cell] < 0 || doorRoom[cell] >= roomLetters.length()) throw new IllegalArgumentException("Bad door");
+                }
+            int[][] roomCells = new int[roomLetters.length()][];
+            for(int room = 0; room < roomCells.length; room++) {
+                roomCells[room] = new int[buffer.get()];
+                for(int k = 0; k < roomCells[room].length; k++) {
+                    roomCells[room][k] = checkCell(buffer.getShort());
+                    if(roomLetters.indexOf(tileString.charAt(roomCells[room][k])) != room)
+                        throw new IllegalArgumentException("Bad square in the " + Game.ROOM_NAMES[room]);
+                }
+            }
+            BoardRenderer renderer = BoardRenderer.read(buffer);
+            DistanceTable distances = DistanceTable.read(buffer);
+            ReachabilityTable reachability = ReachabilityTable.read(buffer, distances);
+            return new BoardLayout(name, sourceCrc, tileString, roomLetters, startCells, doorRoom, roomCells, renderer,
+                    distances, reachability);
+        }catch(BufferUnderflowException | NegativeArraySizeException e) {
+            throw new IllegalArgumentException("Compiled layout is cut short");
+        }
+    }
+
+    private static int checkCell(int cell) {
+        if(cell < 0 || cell >= DistanceTable.CELLS) throw new IllegalArgumentException("Bad square " + cell);
+        return cell;
+    }
+
+    /**
+     * Get the name of the layout.
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get the CRC-32 of the text the layout was compiled from.
+     * @return the checksum, or 0 for the standard layout
+     */
+    public int getSourceCrc() {
+        return sourceCrc;
+    }
+
+    /**
+     * Get the square a character starts on.
+     * @param character index of the character (order of Game.CHARACTER_NAMES)
+     * @return the square (see DistanceTable.cell)
+     */
+    public int startCell(int character) {
+        return startCells[character];
+    }
+
+    /**
+     * Get the tile of a square.
+     * @param row row index
+     * @param col column index
+     * @return the tile
+     */
+    public Tile getTile(int row, int col) {
+        return tiles[row][col];
+    }
+
+    /**
+     * Get the number of rooms.
+     * @return number of rooms
+     */
+    public int roomCount() {
+        return roomCells.length;
+    }
+
+    /**
+     * Get the squares of a room that items can be put on.
+     * @param room index of the room
+     * @return the squares (must not be changed)
+     */
+    public int[] roomCells(int room) {
+        return roomCells[room];
+    }
+
+    /**
+     * Get the position of each square in its room's roomCells.
+     * @return the positions by square, -1 for squares items are not put on by a room (must not be changed)
+     */
+    public byte[] roomSlots() {
+        return roomSlot;
+    }
+
+    /**
+     * Get the doors of a room.
+     * @param room index of the room
+     * @return the doors by door number (unmodifiable)
+     */
+    public Map<Integer, DoorTile> roomDoors(int room) {
+        return roomDoors.get(room);
+    }
+
+    /**
+     * Get the shortest paths between the squares.
+     * @return the distance table
+     */
+    public DistanceTable getDistances() {
+        return distances;
+    }
+
+    /**
+     * Get the squares and rooms reachable with each dice roll.
+     * @return the reachability table
+     */
+    public ReachabilityTable getReachability() {
+        return reachability;
+    }
+
+    /**
+     * Get the layout masks, with nothing on the board.
+     * @return the bit board of the layout
+     */
+    public BitBoard getBits() {
+        return bits;
+    }
+
+    /**
+     * Get the drawing template.
+     * @return the template renderer
+     */
+    public BoardRenderer getRenderer() {
+        return renderer;
+    }
+}
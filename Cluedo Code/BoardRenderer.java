@@ -0,0 +1,261 @@
+package Cluedo;
+import Cluedo.Items.MovableItem;
+import Cluedo.Navigation.DistanceTable;
+import Cluedo.Tiles.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Draws the board into a reusable character buffer.
+ *
+ * The walls, separators and key never change, so they are worked out once into a template
+ * (shared by every board with the same layout) together with the position of every square in it.
+ * Each board copies the template into its own frame and only rewrites the rows of squares
+ * that changed since the last frame (Board marks them with cellChanged).
+ *
+ * The renderer can also write just the squares that changed as ANSI cursor-addressed updates,
+ * for terminals that already show the previous frame.
+ */
+public class BoardRenderer {
+    /** The frame with every square empty. */
+    private final char[] template;
+    /** Offset of each square's character in the frame. */
+    private final int[] cellOffset;
+    /** Terminal line (from 1) and column (from 1) of each square, for cursor addressing. */
+    private final int[] cellLine, cellColumn;
+    /** Number of lines in the frame. */
+    private final int lineCount;
+
+    /** The board being drawn, or null for a template. */
+    private final Board board;
+    /** The last frame drawn. */
+    private char[] frame;
+    /** The character shown for each square in the last frame or update. */
+    private char[] shown;
+    /** Bit i is set if row i has changed since it was last drawn. */
+    private int dirtyRows;
+    /** Reused for ANSI updates. */
+    private final StringBuilder updates = new StringBuilder();
+
+    /**
+     * Build the template of a layout:
+     * one separator line, then one line of tiles, for each row, and a final separator line.
+     *
+     * @param tiles the tiles of the layout
+     * @param lines the separator lines (one more than the number of rows)
+     * @param keyStrings the key printed to the right of rows 1 to 8
+     */
+    public BoardRenderer(Tile[][] tiles, List<String> lines, List<String> keyStrings) {
+        StringBuilder sb = new StringBuilder();
+        cellOffset = new int[DistanceTable.CELLS];
+        cellLine = new int[DistanceTable.CELLS];
+        cellColumn = new int[DistanceTable.CELLS];
+        int rows = DistanceTable.ROWS, cols = DistanceTable.COLS;
+        for(int i = 0; i < rows; i++) {
+            sb.append(lines.get(i));
+            int lineStart = sb.length();
+            for(int j = 0; j < cols; j++) {
+                Tile tile = tiles[i][j];
+                //Special cases - on either end of the board
+                if(j == 0) {
+                    if(tile instanceof RoomTile || tile instanceof HallTile) sb.append("@ ");
+                    else if(tile instanceof BlockedTile) sb.append("  ");
+                }
+
+                int cell = DistanceTable.cell(i, j);
+                cellOffset[cell] = sb.length();
+                cellLine[cell] = 2 * i + 2;
+                cellColumn[cell] = sb.length() - lineStart + 1;
+                sb.append(emptyGlyph(tile));
+
+                if(j == cols - 1) {
+                    if(i > 0 && i < 9) sb.append(keyStrings.get(i - 1));
+                    else if(tile instanceof RoomTile || tile instanceof HallTile) sb.append(" @\n");
+                    else if(tile instanceof BlockedTile) sb.append("  \n");
+                }else {
+                    sb.append(separator(tile, tiles[i][j + 1]));
+                }
+            }
+        }
+        sb.append(lines.get(rows));
+        template = new char[sb.length()];
+        sb.getChars(0, sb.length(), template, 0);
+        lineCount = 2 * rows + 1;
+        this.board = null;
+    }
+
+    private BoardRenderer(char[] template, int[] cellOffset, int[] cellColumn) {
+        this.template = template;
+        this.cellOffset = cellOffset;
+        this.cellColumn = cellColumn;
+        this.cellLine = new int[DistanceTable.CELLS];
+        for(int cell = 0; cell < DistanceTable.CELLS; cell++) cellLine[cell] = 2 * (cell / DistanceTable.COLS) + 2;
+        this.lineCount = 2 * DistanceTable.ROWS + 1;
+        this.board = null;
+    }
+
+    /**
+     * Write the template into a buffer, for a compiled layout (see BoardLayout.encode).
+     * @param buffer the buffer, with at least byteSize() bytes remaining
+     */
+    public void write(ByteBuffer buffer) {
+        buffer.putShort((short) template.length);
+        for(char c: template) buffer.put((byte) c);
+        for(int cell = 0; cell < DistanceTable.CELLS; cell++)
+            buffer.putShort((short) cellOffset[cell]).putShort((short) cellColumn[cell]);
+    }
+
+    /**
+     * Get the number of bytes written by write.
+     * @return the size of the template
+     */
+    public int byteSize() {
+        return 2 + template.length + 4 * DistanceTable.CELLS;
+    }
+
+    /**
+     * Read a template written by write.
+     *
+     * @param buffer the buffer, left after the template
+     * @return the template renderer
+     * @throws IllegalArgumentException if the template is not well formed
+     */
+    public static BoardRenderer read(ByteBuffer buffer) {
+        byte[] text = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(text);
+        char[] template = new String(text, StandardCharsets.ISO_8859_1).toCharArray();
+        int[] cellOffset = new int[DistanceTable.CELLS];
+        int[] cellColumn = new int[DistanceTable.CELLS];
+        for(int cell = 0; cell < DistanceTable.CELLS; cell++) {
+            cellOffset[cell] = buffer.getShort() & 0xFFFF;
+            cellColumn[cell] = buffer.getShort() & 0xFFFF;
+            if(cellOffset[cell] >= template.length) throw new IllegalArgumentException("Bad square in the drawing template");
+        }
+        return new BoardRenderer(template, cellOffset, cellColumn);
+    }
+
+    /**
+     * Construct a renderer for a board, sharing the template of its layout.
+     *
+     * @param layout the template renderer of the layout
+     * @param board the board
+     */
+    public BoardRenderer(BoardRenderer layout, Board board) {
+        this.template = layout.template;
+        this.cellOffset = layout.cellOffset;
+        this.cellLine = layout.cellLine;
+        this.cellColumn = layout.cellColumn;
+        this.lineCount = layout.lineCount;
+        this.board = board;
+        this.frame = template.clone();
+        this.shown = new char[DistanceTable.CELLS];
+        for(int cell = 0; cell < DistanceTable.CELLS; cell++) shown[cell] = template[cellOffset[cell]];
+        this.dirtyRows = (1 << DistanceTable.ROWS) - 1;
+    }
+
+    /**
+     * Draw a frame from where each item is rather than from a board, such as for a spectator.
+     * Only the template is read, so any thread can draw.
+     *
+     * @param cells the square of each item, or -1 for an item that is not on the board
+     * @param glyphs the character of each item
+     * @return a new frame
+     */
+    public char[] draw(int[] cells, char[] glyphs) {
+        char[] drawn = template.clone();
+        for(int i = 0; i < cells.length; i++)
+            if(cells[i] >= 0) drawn[cellOffset[cells[i]]] = glyphs[i];
+        return drawn;
+    }
+
+    /**
+     * The character of a tile with nothing on it: the door number for a door, otherwise a space.
+     */
+    private static char emptyGlyph(Tile tile) {
+        if(tile instanceof DoorTile) return (char) ('0' + ((DoorTile) tile).getDoorNumber());
+        return ' ';
+    }
+
+    /**
+     * The separator between two horizontally neighbouring tiles:
+     * "|" if a player can step between them, "@" for a wall, and nothing inside a room or blocked area.
+     */
+    private static String separator(Tile left, Tile right) {
+        if(left instanceof RoomTile && right instanceof RoomTile) return "   ";
+        if(left instanceof BlockedTile && right instanceof BlockedTile) return "   ";
+        if(left instanceof HallTile && right instanceof HallTile) return " | ";
+        if(left instanceof DoorTile || right instanceof DoorTile) {
+            Tile other = left instanceof DoorTile ? right : left;
+            return other instanceof BlockedTile ? " @ " : " | ";
+        }
+        return " @ ";
+    }
+
+    /**
+     * Record that the item on a square has changed.
+     * @param cell the square
+     */
+    public void cellChanged(int cell) {
+        dirtyRows |= 1 << (cell / DistanceTable.COLS);
+    }
+
+    /**
+     * Bring the frame up to date, rewriting only the rows that changed.
+     *
+     * @return the frame (reused by the next call); its length is frameLength()
+     */
+    public char[] render() {
+        for(int rows = dirtyRows; rows != 0; rows &= rows - 1) {
+            int row = Integer.numberOfTrailingZeros(rows);
+            for(int cell = row * DistanceTable.COLS; cell < (row + 1) * DistanceTable.COLS; cell++) {
+                char glyph = glyph(cell);
+                frame[cellOffset[cell]] = glyph;
+                shown[cell] = glyph;
+            }
+        }
+        dirtyRows = 0;
+        return frame;
+    }
+
+    /**
+     * Get the length of the frame.
+     * @return number of characters in the frame
+     */
+    public int frameLength() {
+        return frame.length;
+    }
+
+    /**
+     * Write ANSI cursor-addressed updates for the squares that changed since the last frame or update,
+     * assuming the last frame is shown from the top-left corner of the terminal.
+     * The cursor is left on the line below the board.
+     *
+     * @return the updates (empty if nothing changed); reused by the next call
+     */
+    public CharSequence renderUpdates() {
+        updates.setLength(0);
+        for(int rows = dirtyRows; rows != 0; rows &= rows - 1) {
+            int row = Integer.numberOfTrailingZeros(rows);
+            for(int cell = row * DistanceTable.COLS; cell < (row + 1) * DistanceTable.COLS; cell++) {
+                char glyph = glyph(cell);
+                frame[cellOffset[cell]] = glyph;
+                if(glyph == shown[cell]) continue;
+                shown[cell] = glyph;
+                updates.append("\033[").append(cellLine[cell]).append(';').append(cellColumn[cell]).append('H').append(glyph);
+            }
+        }
+        dirtyRows = 0;
+        if(updates.length() > 0) updates.append("\033[").append(lineCount + 1).append(";1H");
+        return updates;
+    }
+
+    /**
+     * The character drawn for a square: its item, or its empty character.
+     */
+    private char glyph(int cell) {
+        MovableItem item = board.getItemAt(cell);
+        if(item == null) return template[cellOffset[cell]];
+        return item.getGlyph();
+    }
+}
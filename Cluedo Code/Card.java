@@ -12,7 +12,7 @@ public class Card {
     Item item;
 
     /**
-     * Construct the Card using its Item
+     * Construct the Card using its Item; the card is numbered by the item (Item.getId).
      * @param item the item the card represents
      */
     public Card(Item item) {
@@ -35,4 +35,12 @@ public class Card {
         return item.getName();
     }
 
+    /**
+     * Get the number of the card.
+     * @return 0 to 5 for characters, 6 to 11 for weapons, 12 to 20 for rooms
+     */
+    public int getIndex(){
+        return item.getId();
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,170 @@
+package Cluedo;
+import java.util.Arrays;
+
+/**
+ * Who holds each card of a deal, so accusations are settled without searching the players' hands.
+ *
+ * Cards are numbered as in Card.getIndex, and a set of cards is a mask with bit i set for card i.
+ * The player who disputes an accusation is the first player after the accuser who holds one of its
+ * three cards, so it is found from the owners of just those three cards, whatever the number of players.
+ * The deal does not change during a game, so neither does the index.
+ */
+public final class CardOwners {
+    public static final int CARDS = 21;
+    /** Owner of the murder cards. */
+    public static final int ENVELOPE = -1;
+    /** Owner of the extra cards, which every player can see. */
+    public static final int EXTRA = -2;
+    /** Number of different accusations: a character, a weapon and a room. */
+    public static final int ACCUSATIONS = 6 * 6 * 9;
+
+    /** Index of the player holding each card, or ENVELOPE or EXTRA. */
+    private final byte[] owners = new byte[CARDS];
+    /** The cards of each player. */
+    private final int[] hands;
+
+    /**
+     * Index a deal. Cards in no hand and not in the envelope are the extra cards.
+     *
+     * @param hands the cards of each player
+     * @param envelope the murder cards
+     * @throws IllegalArgumentException if a card is dealt twice
+     */
+    public CardOwners(int[] hands, int envelope) {
+        this.hands = hands.clone();
+        Arrays.fill(owners, (byte) EXTRA);
+        int dealt = envelope;
+        for(int card = 0; card < CARDS; card++)
+            if((envelope & (1 << card)) != 0) owners[card] = ENVELOPE;
+        for(int player = 0; player < hands.length; player++) {
+            if((dealt & hands[player]) != 0) throw new IllegalArgumentException("A card is dealt twice");
+            dealt |= hands[player];
+            for(int card = 0; card < CARDS; card++)
+                if((hands[player] & (1 << card)) != 0) owners[card] = (byte) player;
+        }
+    }
+
+    /**
+     * Get the number of players.
+     * @return number of players
+     */
+    public int playerCount() {
+        return hands.length;
+    }
+
+    /**
+     * Get who holds a card.
+     * @param card index of the card
+     * @return index of the player, ENVELOPE or EXTRA
+     */
+    public int owner(int card) {
+        return owners[card];
+    }
+
+    /**
+     * Get the cards of a player.
+     * @param player index of the player
+     * @return the player's cards as a mask
+     */
+    public int hand(int player) {
+        return hands[player];
+    }
+
+    /**
+     * Find the card a player would use to dispute an accusation.
+     * The weapon is shown first, then the room, then the character (as in Game.disputeCard).
+     *
+     * @param player index of the disputing player
+     * @param person index of the accused character's card
+     * @param weapon index of the accused weapon's card
+     * @param room index of the accused room's card
+     * @return index of the card shown, or -1 if the player holds none of the three cards
+     */
+    public int disputeCard(int player, int person, int weapon, int room) {
+        if(owners[weapon] == player) return weapon;
+        if(owners[room] == player) return room;
+        if(owners[person] == player) return person;
+        return -1;
+    }
+
+    /**
+     * Find the first player after the accuser (in turn order) who can dispute an accusation.
+     *
+     * @param accuser index of the accusing player
+     * @param person index of the accused character's card
+     * @param weapon index of the accused weapon's card
+     * @param room index of the accused room's card
+     * @return index of the disputing player, or -1 if nobody can dispute the accusation
+     */
+    public int findDisputer(int accuser, int person, int weapon, int room) {
+        int card = dispute(accuser, person, weapon, room);
+        return card < 0 ? -1 : owners[card];
+    }
+
+    /**
+     * Settle an accusation: find the card shown by the first player after the accuser who can dispute it.
+     * The player who shows it is owner(card).
+     *
+     * @param accuser index of the accusing player
+     * @param person index of the accused character's card
+     * @param weapon index of the accused weapon's card
+     * @param room index of the accused room's card
+     * @return index of the card shown, or -1 if nobody can dispute the accusation
+     */
+    public int dispute(int accuser, int person, int weapon, int room) {
+        int w = turnsAfter(accuser, weapon), r = turnsAfter(accuser, room), p = turnsAfter(accuser, person);
+        // on a tie the disputer holds more than one of the cards, and shows the weapon, then the room
+        if(w <= r && w <= p) return w == Integer.MAX_VALUE ? -1 : weapon;
+        return r <= p ? room : person;
+    }
+
+    /**
+     * Count the turns from the accuser to the holder of a card.
+     * @return 1 for the next player and so on, or Integer.MAX_VALUE if the card is the accuser's or nobody's
+     */
+    private int turnsAfter(int accuser, int card) {
+        int owner = owners[card];
+        if(owner < 0 || owner == accuser) return Integer.MAX_VALUE;
+        return owner > accuser ? owner - accuser : owner - accuser + hands.length;
+    }
+
+    /**
+     * Get the number of an accusation among the ACCUSATIONS accusations, as used by disputes.
+     *
+     * @param person index of the character's card (0 to 5)
+     * @param weapon index of the weapon's card (6 to 11)
+     * @param room index of the room's card (12 to 20)
+     * @return the number, from 0 to ACCUSATIONS - 1
+     */
+    public static int accusation(int person, int weapon, int room) {
+        return (person * 6 + weapon - 6) * 9 + room - 12;
+    }
+
+    /**
+     * Settle every accusation a player could make at once.
+     *
+     * @param accuser index of the accusing player
+     * @return for each accusation (numbered by accusation), the index of the card shown,
+     *         or -1 if nobody can dispute it
+     */
+    public byte[] disputes(int accuser) {
+        byte[] disputes = new byte[ACCUSATIONS];
+        int[] turns = new int[CARDS];
+        for(int card = 0; card < CARDS; card++) turns[card] = turnsAfter(accuser, card);
+        int i = 0;
+        for(int person = 0; person < 6; person++) {
+            int p = turns[person];
+            for(int weapon = 6; weapon < 12; weapon++) {
+                int w = turns[weapon];
+                for(int room = 12; room < 21; room++) {
+                    int r = turns[room];
+                    int card;
+                    if(w <= r && w <= p) card = w == Integer.MAX_VALUE ? -1 : weapon;
+                    else card = r <= p ? room : person;
+                    disputes[i++] = (byte) card;
+                }
+            }
+        }
+        return disputes;
+    }
+}
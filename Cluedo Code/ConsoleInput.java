@@ -0,0 +1,31 @@
+package Cluedo;
+import java.io.InputStream;
+import java.util.Scanner;
+
+/**
+ * Reads words from a stream, normally the console.
+ * One scanner is kept for the whole game, so words typed ahead are not lost between questions.
+ */
+public class ConsoleInput implements GameInput {
+    private final Scanner scanner;
+
+    /**
+     * Construct an input reading from the console.
+     */
+    public ConsoleInput() {
+        this(System.in);
+    }
+
+    /**
+     * Construct an input reading from a stream.
+     * @param in the stream to read words from
+     */
+    public ConsoleInput(InputStream in) {
+        this.scanner = new Scanner(in);
+    }
+
+    @Override
+    public String next() {
+        return scanner.next();
+    }
+}
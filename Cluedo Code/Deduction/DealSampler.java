@@ -0,0 +1,129 @@
+package Cluedo.Deduction;
+import java.util.SplittableRandom;
+
+/**
+ * Draws whole deals (the envelope and every hand) at random from the deals consistent with a Notepad,
+ * every consistent deal as likely as any other, such as for a bot searching over the cards it cannot see.
+ *
+ * The envelope is taken as three more owners with room for one card each, of their own kind, so a deal is
+ * the unknown cards given out one at a time to owners with room left, as in EnvelopeProbability's sampler;
+ * the number of ways to give out the rest from each state is worked out once, when the sampler is made.
+ * "Has one of these" facts are checked after a deal is drawn, and sample reports a deal that breaks one.
+ * The sampler only reads its tables once made, so one sampler can be used by many threads.
+ */
+public class DealSampler {
+    /** Owner given to the extra cards, which every player can see. */
+    public static final int EXTRA = -1;
+
+    private static final int[] KINDS = {Notepad.CHARACTERS, Notepad.WEAPONS, Notepad.ROOMS};
+
+    private final Notepad notepad;
+    private final int playerNum;
+    /** The players, then the envelope's character, weapon and room. */
+    private final int ownerNum;
+    /** The owner of every card known to the notepad, or EXTRA. */
+    private final byte[] known = new byte[Notepad.CARDS];
+    /** The cards nobody is known to have, in the order they are given out. */
+    private final int[] cards;
+    /** allowed[k] has bit o set if owner o may have cards[k]. */
+    private final int[] allowed;
+    /** Mixed-radix encoding of the room each owner has left. */
+    private final int[] stride;
+    /** digit[state * ownerNum + o] is the room owner o has left in a state. */
+    private final byte[] digit;
+    private final int startState;
+    /** ways[k][s] is the number of ways to give out cards k onwards from state s. */
+    private final double[][] ways;
+
+    /**
+     * Prepare to draw deals consistent with a notepad. The notepad must not change while the sampler is used.
+     *
+     * @param notepad what is known
+     * @throws IllegalStateException if no deal fits the notepad
+     */
+    public DealSampler(Notepad notepad) {
+        this.notepad = notepad;
+        this.playerNum = notepad.playerCount();
+        this.ownerNum = playerNum + KINDS.length;
+        int envelope = notepad.envelope();
+        int unknown = notepad.inPlay();
+        for(int card = 0; card < Notepad.CARDS; card++) known[card] = EXTRA;
+        for(int owner = 0; owner <= playerNum; owner++) {
+            int has = notepad.knownHas(owner);
+            unknown &= ~has;
+            for(int c = has; c != 0; c &= c - 1) known[Integer.numberOfTrailingZeros(c)] = (byte) owner;
+        }
+
+        int[] room = new int[ownerNum];
+        for(int p = 0; p < playerNum; p++) room[p] = notepad.handSize(p) - Integer.bitCount(notepad.knownHas(p));
+        for(int k = 0; k < KINDS.length; k++) room[playerNum + k] = (notepad.knownHas(envelope) & KINDS[k]) == 0 ? 1 : 0;
+        cards = new int[Integer.bitCount(unknown)];
+        allowed = new int[cards.length];
+        for(int i = 0, c = unknown; c != 0; c &= c - 1, i++) {
+            int card = Integer.numberOfTrailingZeros(c);
+            cards[i] = card;
+            for(int p = 0; p < playerNum; p++)
+                if((notepad.knownLacks(p) & (1 << card)) == 0) allowed[i] |= 1 << p;
+            for(int k = 0; k < KINDS.length; k++)
+                if((KINDS[k] & (1 << card)) != 0 && (notepad.knownLacks(envelope) & (1 << card)) == 0)
+                    allowed[i] |= 1 << (playerNum + k);
+        }
+
+        stride = new int[ownerNum];
+        int states = 1;
+        for(int o = 0; o < ownerNum; o++) {
+            stride[o] = states;
+            states *= room[o] + 1;
+        }
+        digit = new byte[states * ownerNum];
+        for(int s = 0; s < states; s++)
+            for(int o = 0; o < ownerNum; o++)
+                digit[s * ownerNum + o] = (byte) ((s / stride[o]) % (room[o] + 1));
+        int start = 0;
+        for(int o = 0; o < ownerNum; o++) start += room[o] * stride[o];
+        startState = start;
+
+        ways = new double[cards.length + 1][states];
+        ways[cards.length][0] = 1;
+        for(int k = cards.length - 1; k >= 0; k--)
+            for(int s = 0; s < states; s++)
+                for(int owners = allowed[k]; owners != 0; owners &= owners - 1) {
+                    int o = Integer.numberOfTrailingZeros(owners);
+                    if(digit[s * ownerNum + o] > 0) ways[k][s] += ways[k + 1][s - stride[o]];
+                }
+        if(ways[0][startState] == 0) throw new IllegalStateException("No deal fits what is known");
+    }
+
+    /**
+     * Draw a deal.
+     *
+     * @param random the random numbers to draw it with
+     * @param owner set to the owner of every card: a player, the notepad's envelope(), or EXTRA
+     * @return false if the deal breaks a "has one of these" fact, and should be drawn again
+     */
+    public boolean sample(SplittableRandom random, int[] owner) {
+        for(int card = 0; card < Notepad.CARDS; card++) owner[card] = known[card];
+        int s = startState;
+        for(int k = 0; k < cards.length; k++) {
+            double u = random.nextDouble() * ways[k][s];
+            int chosen = -1;
+            for(int owners = allowed[k]; owners != 0; owners &= owners - 1) {
+                int o = Integer.numberOfTrailingZeros(owners);
+                if(digit[s * ownerNum + o] == 0) continue;
+                chosen = o;
+                u -= ways[k + 1][s - stride[o]];
+                if(u < 0) break;
+            }
+            owner[cards[k]] = Math.min(chosen, playerNum);
+            s -= stride[chosen];
+        }
+        for(int c = 0; c < notepad.clauseCount(); c++) {
+            int who = notepad.clauseOwner(c);
+            boolean fits = false;
+            for(int clause = notepad.clauseCards(c); clause != 0; clause &= clause - 1)
+                if(owner[Integer.numberOfTrailingZeros(clause)] == who) fits = true;
+            if(!fits) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,450 @@
+package Cluedo.Deduction;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * The probability of each of the 324 possible envelopes (character, weapon, room),
+ * given what a Notepad knows.
+ *
+ * Every deal (envelope plus hands of the known sizes) is equally likely, so the probability of an envelope is
+ * the number of deals consistent with the notepad that have that envelope, divided by the number of all
+ * consistent deals. The deals are counted, not listed: the unknown cards are given to players one at a time
+ * and only the number of cards each player still has room for is remembered (a dynamic programme over
+ * those capacity vectors). The cards are taken a kind at a time, so the counts for every character and
+ * weapon are run forwards, the counts for every room are run backwards, and each envelope's count is
+ * the product of the two where they meet.
+ *
+ * "Has one of these" facts are counted exactly by inclusion-exclusion when there are few of them.
+ * With more, the probabilities are estimated by sampling deals without them and keeping the samples that
+ * satisfy them, spread over a fork-join pool, with a Hoeffding bound on the error.
+ */
+public class EnvelopeProbability {
+    public static final int ENVELOPES = 6 * 6 * 9;
+
+    /** Most "has one of these" facts counted exactly (the work doubles with each one). */
+    public static final int MAX_EXACT_CLAUSES = 4;
+
+    /** Samples taken by compute() when the count cannot be exact. */
+    public static final int DEFAULT_SAMPLES = 200000;
+
+    /** Chance that a Monte Carlo estimate is further from the truth than its error bound. */
+    public static final double CONFIDENCE_RISK = 0.01;
+
+    private final Notepad notepad;
+    private final int playerNum;
+    /** Cards nobody is known to have. */
+    private final int unknown;
+    /** Mixed-radix encoding of the cards each player still has room for. */
+    private final int[] stride;
+    private final int stateCount;
+    /** digit[state * playerNum + p] is the room player p has left in a state. */
+    private final byte[] digit;
+    /** The state with every player's room left. */
+    private final int startState;
+    /**
+     * The states sorted by level (the total room left): the states of level l are
+     * byLevel[levelStart[l]] to byLevel[levelStart[l + 1] - 1].
+     * Giving out a card always moves down one level, so only one level is ever looked at.
+     */
+    private final int[] byLevel, levelStart;
+
+    /** Error bound of the last estimate (0 if it was exact). */
+    private double error;
+
+    /**
+     * Prepare to count the deals consistent with a notepad.
+     * @param notepad what is known
+     */
+    public EnvelopeProbability(Notepad notepad) {
+        this.notepad = notepad;
+        this.playerNum = notepad.playerCount();
+        int known = 0;
+        for(int owner = 0; owner <= playerNum; owner++) known |= notepad.knownHas(owner);
+        unknown = notepad.inPlay() & ~known;
+
+        stride = new int[playerNum];
+        int[] room = new int[playerNum];
+        int states = 1;
+        for(int p = 0; p < playerNum; p++) {
+            room[p] = notepad.handSize(p) - Integer.bitCount(notepad.knownHas(p));
+            stride[p] = states;
+            states *= room[p] + 1;
+        }
+        stateCount = states;
+        digit = new byte[states * playerNum];
+        for(int s = 0; s < states; s++)
+            for(int p = 0; p < playerNum; p++)
+                digit[s * playerNum + p] = (byte) ((s / stride[p]) % (room[p] + 1));
+        int start = 0;
+        for(int p = 0; p < playerNum; p++) start += room[p] * stride[p];
+        startState = start;
+        int levels = level(startState) + 1;
+        levelStart = new int[levels + 1];
+        for(int s = 0; s < states; s++) levelStart[level(s) + 1]++;
+        for(int l = 0; l < levels; l++) levelStart[l + 1] += levelStart[l];
+        byLevel = new int[states];
+        int[] next = levelStart.clone();
+        for(int s = 0; s < states; s++) byLevel[next[level(s)]++] = s;
+    }
+
+    /**
+     * Get the index of an envelope.
+     * @param person index of the character card (0 to 5)
+     * @param weapon index of the weapon card (6 to 11)
+     * @param room index of the room card (12 to 20)
+     * @return 0 to 323
+     */
+    public static int envelope(int person, int weapon, int room) {
+        return (person * 6 + (weapon - 6)) * 9 + (room - 12);
+    }
+
+    /** Get the character card of an envelope index. */
+    public static int personOf(int envelope) {
+        return envelope / 54;
+    }
+
+    /** Get the weapon card of an envelope index. */
+    public static int weaponOf(int envelope) {
+        return 6 + (envelope / 9) % 6;
+    }
+
+    /** Get the room card of an envelope index. */
+    public static int roomOf(int envelope) {
+        return 12 + envelope % 9;
+    }
+
+    /**
+     * Add up the probability that each card is in the envelope.
+     * @param probabilities probabilities of the 324 envelopes
+     * @return probability of each of the 21 cards
+     */
+    public static double[] cardProbabilities(double[] probabilities) {
+        double[] cards = new double[Notepad.CARDS];
+        for(int e = 0; e < ENVELOPES; e++) {
+            cards[personOf(e)] += probabilities[e];
+            cards[weaponOf(e)] += probabilities[e];
+            cards[roomOf(e)] += probabilities[e];
+        }
+        return cards;
+    }
+
+    /**
+     * Get the error bound of the last result: 0 if it was exact, otherwise a bound that every
+     * envelope's estimate is within, except with probability CONFIDENCE_RISK.
+     * @return the error bound
+     */
+    public double getError() {
+        return error;
+    }
+
+    /**
+     * Work out the probabilities exactly if there are few enough undecided facts, or estimate them otherwise.
+     * @return probabilities of the 324 envelopes
+     */
+    public double[] compute() {
+        if(notepad.clauseCount() <= MAX_EXACT_CLAUSES) return exact();
+        return monteCarlo(DEFAULT_SAMPLES, System.nanoTime(), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Work out the probabilities exactly.
+     * @return probabilities of the 324 envelopes
+     * @throws IllegalStateException if no deal fits the notepad
+     */
+    public double[] exact() {
+        double[] counts = new double[ENVELOPES];
+        int clauses = notepad.clauseCount();
+        // inclusion-exclusion: add the deals breaking no chosen clause, with the sign of how many were chosen
+        for(int subset = 0; subset < (1 << clauses); subset++) {
+            int[] lacks = lacks();
+            for(int c = 0; c < clauses; c++)
+                if((subset & (1 << c)) != 0) lacks[notepad.clauseOwner(c)] |= notepad.clauseCards(c);
+            count(allowedOwners(lacks), lacks[playerNum], Integer.bitCount(subset) % 2 == 0 ? 1 : -1, counts);
+        }
+        error = 0;
+        return normalise(counts);
+    }
+
+    private int[] lacks() {
+        int[] lacks = new int[playerNum + 1];
+        for(int owner = 0; owner <= playerNum; owner++) lacks[owner] = notepad.knownLacks(owner);
+        return lacks;
+    }
+
+    /**
+     * Get the players each card may belong to.
+     * @return allowed[card] has bit p set if player p may have the card
+     */
+    private int[] allowedOwners(int[] lacks) {
+        int[] allowed = new int[Notepad.CARDS];
+        for(int card = 0; card < Notepad.CARDS; card++)
+            for(int p = 0; p < playerNum; p++)
+                if((lacks[p] & (1 << card)) == 0) allowed[card] |= 1 << p;
+        return allowed;
+    }
+
+    /**
+     * Get the cards of a kind that may be the envelope's card.
+     */
+    private int envelopeChoices(int kind, int envelopeLacks) {
+        int known = notepad.knownHas(notepad.envelope()) & kind;
+        return known != 0 ? known : kind & notepad.inPlay() & ~envelopeLacks;
+    }
+
+    /**
+     * Add sign times the number of deals of each envelope to counts.
+     */
+    private void count(int[] allowed, int envelopeLacks, int sign, double[] counts) {
+        int people = envelopeChoices(Notepad.CHARACTERS, envelopeLacks);
+        int weapons = envelopeChoices(Notepad.WEAPONS, envelopeLacks);
+        int rooms = envelopeChoices(Notepad.ROOMS, envelopeLacks);
+        // the players' room must be exactly the unknown cards that do not go in the envelope
+        int toPlayers = Integer.bitCount(unknown);
+        for(int choices: new int[] {people, weapons, rooms}) if((choices & unknown) != 0) toPlayers--;
+        if(toPlayers != level(startState)) return;
+        int[] weaponCards = cardsOf(unknown & Notepad.WEAPONS);
+        int m = weaponCards.length;
+        boolean weaponKnown = (weapons & unknown) == 0;
+
+        // after[room][i]: ways to give out weapon cards i onwards and the rooms, with room in the envelope
+        double[][][] after = new double[Notepad.CARDS][][];
+        for(int r = rooms; r != 0; r &= r - 1) {
+            int room = Integer.numberOfTrailingZeros(r);
+            double[][] ways = after[room] = new double[m + 1][stateCount];
+            int level = 0;
+            ways[m][0] = 1;
+            for(int c = unknown & Notepad.ROOMS & ~(1 << room); c != 0; c &= c - 1) {
+                double[] next = new double[stateCount];
+                giveBackward(ways[m], next, ++level, allowed[Integer.numberOfTrailingZeros(c)]);
+                ways[m] = next;
+            }
+            for(int i = m - 1; i >= 0; i--) giveBackward(ways[i + 1], ways[i], ++level, allowed[weaponCards[i]]);
+        }
+
+        // before[i]: ways to give out the characters and weapon cards before i, with person in the envelope
+        double[][] before = new double[m + 1][stateCount];
+        for(int p = people; p != 0; p &= p - 1) {
+            int person = Integer.numberOfTrailingZeros(p);
+            int level = level(startState);
+            Arrays.fill(before[0], 0);
+            before[0][startState] = 1;
+            for(int c = unknown & Notepad.CHARACTERS & ~(1 << person); c != 0; c &= c - 1) {
+                giveForward(before[0], before[1], level--, allowed[Integer.numberOfTrailingZeros(c)]);
+                double[] swap = before[0]; before[0] = before[1]; before[1] = swap;
+            }
+            int first = level;
+            for(int i = 0; i < m; i++) giveForward(before[i], before[i + 1], level--, allowed[weaponCards[i]]);
+
+            for(int r = rooms; r != 0; r &= r - 1) {
+                int room = Integer.numberOfTrailingZeros(r);
+                if(weaponKnown) {
+                    int weapon = Integer.numberOfTrailingZeros(weapons);
+                    counts[envelope(person, weapon, room)] += sign * dot(before[m], after[room][m], first - m);
+                    continue;
+                }
+                // the weapon in the envelope is skipped between before[i] and after[room][i + 1]
+                for(int i = 0; i < m; i++)
+                    if((weapons & (1 << weaponCards[i])) != 0)
+                        counts[envelope(person, weaponCards[i], room)] += sign * dot(before[i], after[room][i + 1], first - i);
+            }
+        }
+    }
+
+    /**
+     * Give one card to one of some players, going forwards.
+     * @param in ways to reach each state of a level
+     * @param out set to the ways to reach each state of the level below
+     * @param level the level of in (cards the players still have room for)
+     * @param owners the players the card may go to
+     */
+    private void giveForward(double[] in, double[] out, int level, int owners) {
+        for(int i = levelStart[level - 1]; i < levelStart[level]; i++) out[byLevel[i]] = 0;
+        for(int i = levelStart[level]; i < levelStart[level + 1]; i++) {
+            int s = byLevel[i];
+            double v = in[s];
+            if(v == 0) continue;
+            for(int o = owners; o != 0; o &= o - 1) {
+                int p = Integer.numberOfTrailingZeros(o);
+                if(digit[s * playerNum + p] != 0) out[s - stride[p]] += v;
+            }
+        }
+    }
+
+    /**
+     * Give one card to one of some players, going backwards.
+     * @param in ways to finish from each state of the level below
+     * @param out set to the ways to finish from each state of the level
+     * @param level the level of out
+     * @param owners the players the card may go to
+     */
+    private void giveBackward(double[] in, double[] out, int level, int owners) {
+        for(int i = levelStart[level]; i < levelStart[level + 1]; i++) {
+            int s = byLevel[i];
+            double v = 0;
+            for(int o = owners; o != 0; o &= o - 1) {
+                int p = Integer.numberOfTrailingZeros(o);
+                if(digit[s * playerNum + p] != 0) v += in[s - stride[p]];
+            }
+            out[s] = v;
+        }
+    }
+
+    private double dot(double[] a, double[] b, int level) {
+        double total = 0;
+        for(int i = levelStart[level]; i < levelStart[level + 1]; i++) total += a[byLevel[i]] * b[byLevel[i]];
+        return total;
+    }
+
+    private int level(int state) {
+        int level = 0;
+        for(int p = 0; p < playerNum; p++) level += digit[state * playerNum + p];
+        return level;
+    }
+
+    private static double[] normalise(double[] counts) {
+        double total = 0;
+        for(double c: counts) total += c;
+        if(total <= 0) throw new IllegalStateException("No deal fits what is known");
+        double[] p = new double[ENVELOPES];
+        for(int e = 0; e < ENVELOPES; e++) p[e] = Math.max(0, counts[e] / total);
+        return p;
+    }
+
+    /**
+     * Estimate the probabilities by sampling deals.
+     * Deals are drawn exactly from the deals that fit everything but the undecided facts,
+     * and the ones breaking an undecided fact are thrown away.
+     *
+     * @param samples number of deals to draw
+     * @param seed seed of the random numbers (the same seed and pool size give the same estimate)
+     * @param pool the pool to draw them on
+     * @return probabilities of the 324 envelopes
+     * @throws IllegalStateException if no drawn deal fits the notepad
+     */
+    public double[] monteCarlo(int samples, long seed, ForkJoinPool pool) {
+        int[] lacks = lacks();
+        int[] allowed = allowedOwners(lacks);
+        double[] counts = new double[ENVELOPES];
+        count(allowed, lacks[playerNum], 1, counts);
+        double[] prior = normalise(counts);
+        long[] kept = pool.invoke(new Sampler(prior, allowed, 0, samples, new SplittableRandom(seed)));
+        long total = 0;
+        for(long k: kept) total += k;
+        if(total == 0) throw new IllegalStateException("No sampled deal fits what is known");
+        double[] p = new double[ENVELOPES];
+        for(int e = 0; e < ENVELOPES; e++) p[e] = (double) kept[e] / total;
+        // Hoeffding bound for every envelope at once (union bound over the 324 envelopes)
+        error = Math.sqrt(Math.log(2.0 * ENVELOPES / CONFIDENCE_RISK) / (2.0 * total));
+        return p;
+    }
+
+    /**
+     * Draws a range of samples, splitting it over the pool.
+     */
+    @SuppressWarnings("serial") // never serialized
+    private class Sampler extends RecursiveTask<long[]> {
+        private static final int BATCH = 4096;
+        private final double[] prior;
+        private final int[] allowed;
+        private final int from, to;
+        private final SplittableRandom random;
+
+        Sampler(double[] prior, int[] allowed, int from, int to, SplittableRandom random) {
+            this.prior = prior;
+            this.allowed = allowed;
+            this.from = from;
+            this.to = to;
+            this.random = random;
+        }
+
+        @Override
+        protected long[] compute() {
+            if(to - from > BATCH) {
+                int mid = (from + to) >>> 1;
+                Sampler left = new Sampler(prior, allowed, from, mid, random.split());
+                left.fork();
+                long[] right = new Sampler(prior, allowed, mid, to, random).compute();
+                long[] result = left.join();
+                for(int e = 0; e < ENVELOPES; e++) result[e] += right[e];
+                return result;
+            }
+            long[] kept = new long[ENVELOPES];
+            // draw the envelopes first, then the hands for each envelope, so each envelope's table is built once
+            int[] drawn = new int[ENVELOPES];
+            for(int i = from; i < to; i++) drawn[drawEnvelope(random.nextDouble())]++;
+            int[] owner = new int[Notepad.CARDS];
+            for(int e = 0; e < ENVELOPES; e++) {
+                if(drawn[e] == 0) continue;
+                int inEnvelope = (1 << personOf(e)) | (1 << weaponOf(e)) | (1 << roomOf(e));
+                int[] cards = cardsOf(unknown & ~inEnvelope);
+                double[][] ways = waysToFinish(cards);
+                owner[personOf(e)] = owner[weaponOf(e)] = owner[roomOf(e)] = playerNum;
+                for(int i = 0; i < drawn[e]; i++) {
+                    drawHands(cards, ways, owner);
+                    if(fitsClauses(owner)) kept[e]++;
+                }
+            }
+            return kept;
+        }
+
+        private int drawEnvelope(double u) {
+            for(int e = 0; e < ENVELOPES; e++) {
+                u -= prior[e];
+                if(u < 0) return e;
+            }
+            // rounding: take the last possible envelope
+            for(int e = ENVELOPES - 1; ; e--) if(prior[e] > 0) return e;
+        }
+
+        /**
+         * ways[k][s] is the number of ways to give out cards k onwards from state s.
+         */
+        private double[][] waysToFinish(int[] cards) {
+            double[][] ways = new double[cards.length + 1][stateCount];
+            ways[cards.length][0] = 1;
+            for(int k = cards.length - 1; k >= 0; k--)
+                for(int s = 0; s < stateCount; s++)
+                    for(int owners = allowed[cards[k]]; owners != 0; owners &= owners - 1) {
+                        int p = Integer.numberOfTrailingZeros(owners);
+                        if(digit[s * playerNum + p] > 0) ways[k][s] += ways[k + 1][s - stride[p]];
+                    }
+            return ways;
+        }
+
+        private void drawHands(int[] cards, double[][] ways, int[] owner) {
+            int s = startState;
+            for(int k = 0; k < cards.length; k++) {
+                double u = random.nextDouble() * ways[k][s];
+                int chosen = -1;
+                for(int owners = allowed[cards[k]]; owners != 0; owners &= owners - 1) {
+                    int p = Integer.numberOfTrailingZeros(owners);
+                    if(digit[s * playerNum + p] == 0) continue;
+                    chosen = p;
+                    u -= ways[k + 1][s - stride[p]];
+                    if(u < 0) break;
+                }
+                owner[cards[k]] = chosen;
+                s -= stride[chosen];
+            }
+        }
+
+        private boolean fitsClauses(int[] owner) {
+            for(int c = 0; c < notepad.clauseCount(); c++) {
+                int who = notepad.clauseOwner(c);
+                boolean fits = false;
+                for(int cards = notepad.clauseCards(c) & unknown; cards != 0; cards &= cards - 1)
+                    if(owner[Integer.numberOfTrailingZeros(cards)] == who) fits = true;
+                if(!fits) return false;
+            }
+            return true;
+        }
+    }
+
+    private static int[] cardsOf(int mask) {
+        int[] cards = new int[Integer.bitCount(mask)];
+        for(int i = 0; mask != 0; mask &= mask - 1) cards[i++] = Integer.numberOfTrailingZeros(mask);
+        return cards;
+    }
+}
@@ -0,0 +1,294 @@
+package Cluedo.Deduction;
+
+/**
+ * What one player knows about where every card is.
+ *
+ * Cards are bits of an int, numbered by Card.getIndex(): characters 0 to 5, weapons 6 to 11, rooms 12 to 20.
+ * The owners of cards are the players (0 to playerNum - 1) and the envelope (owner playerNum).
+ * For each owner the notepad keeps a mask of cards it is known to have and a mask of cards it is known
+ * not to have; every other card is unknown. The extra cards are seen by everyone and belong to no owner.
+ *
+ * Every observation adds facts and then propagates them until nothing more follows:
+ * a card has exactly one owner, every hand has a known size, the envelope has one card of each kind,
+ * and a disputing player whose card was not seen has at least one of the three accused cards.
+ * Only int operations are used, so a notepad can be updated after every accusation of a simulated game.
+ */
+public class Notepad {
+    public static final int CARDS = 21;
+    public static final int ALL_CARDS = (1 << CARDS) - 1;
+    public static final int CHARACTERS = 0x3F;
+    public static final int WEAPONS = 0x3F << 6;
+    public static final int ROOMS = 0x1FF << 12;
+
+    public static final int UNKNOWN = 0, HAS = 1, LACKS = 2;
+
+    private static final int[] KINDS = {CHARACTERS, WEAPONS, ROOMS};
+
+    /** Most undecided "has one of these" facts kept at a time; older ones are dropped when it is full. */
+    private static final int MAX_CLAUSES = 32;
+
+    private final int playerNum;
+    /** Index of the envelope among the owners. */
+    private final int envelope;
+    /** Number of cards each owner holds. */
+    private final int[] size;
+    private final int[] has;
+    private final int[] lacks;
+    /** Cards not seen by everyone (every card but the extra cards). */
+    private int inPlay = ALL_CARDS;
+
+    /** Undecided facts: owner clauseOwner[i] has at least one card of clauseCards[i]. */
+    private final int[] clauseOwner = new int[MAX_CLAUSES];
+    private final int[] clauseCards = new int[MAX_CLAUSES];
+    private int clauseCount;
+
+    /**
+     * Construct an empty notepad.
+     * @param playerNum number of players (from 3 to 6)
+     */
+    public Notepad(int playerNum) {
+        this.playerNum = playerNum;
+        this.envelope = playerNum;
+        size = new int[playerNum + 1];
+        has = new int[playerNum + 1];
+        lacks = new int[playerNum + 1];
+        for(int i = 0; i < playerNum; i++) size[i] = 18 / playerNum;
+        size[envelope] = 3;
+    }
+
+    /**
+     * Copy another notepad.
+     * @param other the notepad to copy
+     */
+    public Notepad(Notepad other) {
+        playerNum = other.playerNum;
+        envelope = other.envelope;
+        size = other.size.clone();
+        has = other.has.clone();
+        lacks = other.lacks.clone();
+        inPlay = other.inPlay;
+        System.arraycopy(other.clauseOwner, 0, clauseOwner, 0, other.clauseCount);
+        System.arraycopy(other.clauseCards, 0, clauseCards, 0, other.clauseCount);
+        clauseCount = other.clauseCount;
+    }
+
+    /**
+     * Learn a player's whole hand (usually the notepad owner's own).
+     * @param player index of the player
+     * @param cards the cards in the hand
+     */
+    public void learnHand(int player, int cards) {
+        has[player] |= cards;
+        lacks[player] |= ALL_CARDS & ~cards;
+        propagate();
+    }
+
+    /**
+     * Learn the extra cards that everyone can see.
+     * @param cards the extra cards
+     */
+    public void learnExtraCards(int cards) {
+        inPlay &= ~cards;
+        for(int i = 0; i <= playerNum; i++) lacks[i] |= cards;
+        propagate();
+    }
+
+    /**
+     * Learn that a player has a card.
+     * @param owner index of the player (or envelope())
+     * @param card index of the card
+     */
+    public void learnHas(int owner, int card) {
+        has[owner] |= 1 << card;
+        propagate();
+    }
+
+    /**
+     * Learn that a player has none of some cards.
+     * @param owner index of the player (or envelope())
+     * @param cards the cards
+     */
+    public void learnLacks(int owner, int cards) {
+        lacks[owner] |= cards;
+        propagate();
+    }
+
+    /**
+     * Learn the result of an accusation. The players after the accuser (in turn order) up to the disputer
+     * could not dispute it, so they have none of the three cards.
+     * The disputer shows the weapon if they have it, then the room, then the character (Game.disputeCard),
+     * so showing a card also means the disputer lacks the cards that come before it.
+     *
+     * @param accuser index of the accusing player
+     * @param person index of the accused character card
+     * @param weapon index of the accused weapon card
+     * @param room index of the accused room card
+     * @param disputer index of the disputing player, or -1 if nobody could dispute
+     * @param shown index of the card shown, or -1 if it was not seen
+     */
+    public void learnAccusation(int accuser, int person, int weapon, int room, int disputer, int shown) {
+        int accused = (1 << person) | (1 << weapon) | (1 << room);
+        for(int i = (accuser + 1) % playerNum; i != accuser && i != disputer; i = (i + 1) % playerNum)
+            lacks[i] |= accused;
+        if(disputer >= 0) {
+            if(shown == weapon) {
+                has[disputer] |= 1 << weapon;
+            }else if(shown == room) {
+                has[disputer] |= 1 << room;
+                lacks[disputer] |= 1 << weapon;
+            }else if(shown == person) {
+                has[disputer] |= 1 << person;
+                lacks[disputer] |= (1 << weapon) | (1 << room);
+            }else {
+                addClause(disputer, accused);
+            }
+        }
+        propagate();
+    }
+
+    private void addClause(int owner, int cards) {
+        if(clauseCount == MAX_CLAUSES) {
+            System.arraycopy(clauseOwner, 1, clauseOwner, 0, MAX_CLAUSES - 1);
+            System.arraycopy(clauseCards, 1, clauseCards, 0, MAX_CLAUSES - 1);
+            clauseCount--;
+        }
+        clauseOwner[clauseCount] = owner;
+        clauseCards[clauseCount++] = cards;
+    }
+
+    /**
+     * Apply the rules until no more facts follow.
+     *
+     * @throws IllegalStateException if the facts contradict each other
+     */
+    private void propagate() {
+        boolean changed = true;
+        while(changed) {
+            changed = false;
+            // a card has one owner: a card someone has is lacked by everyone else;
+            // a card only one owner may have is had by that owner
+            int owned = 0, possibleOnce = 0, possibleTwice = 0;
+            for(int i = 0; i <= playerNum; i++) {
+                owned |= has[i];
+                int possible = inPlay & ~lacks[i];
+                possibleTwice |= possibleOnce & possible;
+                possibleOnce |= possible;
+            }
+            int onlyOwner = possibleOnce & ~possibleTwice;
+            if((inPlay & ~possibleOnce) != 0) throw new IllegalStateException("A card has no possible owner");
+            for(int i = 0; i <= playerNum; i++) {
+                int newLacks = lacks[i] | (owned & ~has[i]);
+                int newHas = has[i] | (onlyOwner & ~lacks[i]);
+                // hand sizes: a full hand lacks everything else; a hand with only size cards left has them all
+                int possible = inPlay & ~newLacks;
+                if(Integer.bitCount(newHas) == size[i]) newLacks |= ALL_CARDS & ~newHas;
+                else if(Integer.bitCount(possible) == size[i]) newHas |= possible;
+                if((newHas & newLacks) != 0 || Integer.bitCount(newHas) > size[i])
+                    throw new IllegalStateException("Owner " + i + " cannot hold these cards");
+                if(newHas != has[i] || newLacks != lacks[i]) changed = true;
+                has[i] = newHas;
+                lacks[i] = newLacks;
+            }
+            // the envelope has exactly one card of each kind
+            for(int kind: KINDS) {
+                int newHas = has[envelope], newLacks = lacks[envelope];
+                if((newHas & kind) != 0) newLacks |= kind & ~newHas;
+                int possible = kind & ~newLacks;
+                if(possible == 0) throw new IllegalStateException("The envelope has no possible card");
+                if(Integer.bitCount(possible) == 1) newHas |= possible;
+                if(newHas != has[envelope] || newLacks != lacks[envelope]) changed = true;
+                has[envelope] = newHas;
+                lacks[envelope] = newLacks;
+            }
+            // clauses: drop satisfied ones, and decide the ones with a single possible card left
+            for(int c = 0; c < clauseCount; c++) {
+                int owner = clauseOwner[c];
+                int cards = clauseCards[c] & ~lacks[owner];
+                if((cards & has[owner]) != 0 || Integer.bitCount(cards) <= 1) {
+                    if(cards == 0) throw new IllegalStateException("Owner " + owner + " has none of the disputed cards");
+                    if((cards & has[owner]) == 0) {
+                        has[owner] |= cards;
+                        changed = true;
+                    }
+                    // remove the clause by moving the last one into its place, and look at this place again
+                    clauseCount--;
+                    clauseOwner[c] = clauseOwner[clauseCount];
+                    clauseCards[c] = clauseCards[clauseCount];
+                    c--;
+                }else {
+                    clauseCards[c] = cards;
+                }
+            }
+        }
+    }
+
+    /**
+     * Get what is known about a card.
+     * @param owner index of the player, or envelope()
+     * @param card index of the card
+     * @return HAS, LACKS, or UNKNOWN
+     */
+    public int status(int owner, int card) {
+        if((has[owner] & (1 << card)) != 0) return HAS;
+        if((lacks[owner] & (1 << card)) != 0) return LACKS;
+        return UNKNOWN;
+    }
+
+    /** Get the cards an owner is known to have. */
+    public int knownHas(int owner) {
+        return has[owner];
+    }
+
+    /** Get the cards an owner is known not to have. */
+    public int knownLacks(int owner) {
+        return lacks[owner];
+    }
+
+    /** Get the cards that may still be in the envelope. */
+    public int envelopeCandidates() {
+        return inPlay & ~lacks[envelope];
+    }
+
+    /** Get the cards not seen by everyone. */
+    public int inPlay() {
+        return inPlay;
+    }
+
+    /** Get the number of cards an owner holds. */
+    public int handSize(int owner) {
+        return size[owner];
+    }
+
+    /** Get the owner index of the envelope. */
+    public int envelope() {
+        return envelope;
+    }
+
+    /** Get the number of players. */
+    public int playerCount() {
+        return playerNum;
+    }
+
+    /** Get the number of undecided "has one of these" facts. */
+    public int clauseCount() {
+        return clauseCount;
+    }
+
+    /** Get the owner of an undecided fact. */
+    public int clauseOwner(int clause) {
+        return clauseOwner[clause];
+    }
+
+    /** Get the cards of an undecided fact. */
+    public int clauseCards(int clause) {
+        return clauseCards[clause];
+    }
+
+    /**
+     * Check whether all three envelope cards are known.
+     * @return true if the murder is solved
+     */
+    public boolean solved() {
+        return Integer.bitCount(has[envelope]) == 3;
+    }
+}
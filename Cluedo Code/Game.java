@@ -1,11 +1,19 @@
 package Cluedo;
+import Cluedo.Items.Item;
 import Cluedo.Items.MovableItem;
 import Cluedo.Items.Person;
 import Cluedo.Items.Room;
 import Cluedo.Items.Weapon;
+import Cluedo.Monitoring.FlightEvents;
+import Cluedo.Monitoring.GameMetrics;
+import Cluedo.Monitoring.InputEvent;
+import Cluedo.Monitoring.RenderEvent;
+import Cluedo.Monitoring.StepEvent;
+import Cluedo.Monitoring.TurnEvent;
+import Cluedo.Navigation.DistanceTable;
 import Cluedo.Tiles.DoorTile;
-import Cluedo.Tiles.Tile;
 
+import java.io.PrintStream;
 import java.util.*;
 
 /**
@@ -20,6 +28,10 @@ public class Game {
      *                        --- is the separator of two vertically adjacent tiles (can go across it).
      */
     private Board board;
+    /**
+     * The squares, rooms and doors the board is made from.
+     */
+    private BoardLayout layout = BoardLayout.standard();
     /**
      * Six persons on the board.
      */
@@ -36,94 +48,145 @@ public class Game {
      * Three murder cards.
      */
     private Card[] murderCards;
+    /**
+     * Who holds each card, for settling accusations.
+     */
+    private CardOwners owners;
     /**
      * Players in the game (from 3 to 6).
      */
     private Player[] players;
     /**
-     * A collection of all cards in the game:
-     *    key is the name of the card,
-     *    value is the card object.
+     * All cards in the game, by their index, which is also the number of their item
+     * (characters, then weapons, then rooms).
      */
-    private Map<String, Card> cards;
+    private Card[] cardList;
 
     /**
      * Extra cards after assigning cards to players at first.
      */
     private List<Card> extraCards;
 
+    /**
+     * Where the players' answers are read from.
+     */
+    private final GameInput in;
+
+    /**
+     * Where the game is printed.
+     */
+    private final PrintStream out;
+
+    /**
+     * Index of the player whose turn it is.
+     */
+    private volatile int currentPlayer;
+
+    /**
+     * Told about everything that happens in the game, or null.
+     */
+    private GameListener listener;
+
+    /**
+     * Where the turns, steps, drawing and waits for input are counted and timed, or null.
+     */
+    private GameMetrics metrics;
+
+    /**
+     * The dice total and squares moved in the current turn, for the turn's monitoring event.
+     */
+    private int turnDice, turnSteps;
+
+    /**
+     * The moves the current player has left this turn, or 0 between turns, for the state's hash.
+     */
+    private int movesRemaining;
+
+    /**
+     * Random numbers of the game: the deal, the weapons' rooms and the dice.
+     */
+    private final GameRandom random;
+
+    /**
+     * The decisions of the players of run, asked on the game's input.
+     */
+    private final TurnDecisions console = new ConsoleDecisions();
+
     /**
      * Names of the six characters.
      */
-    private static final String[] CHARACTER_NAMES = {"Miss Scarlett", "Colonel Mustard", "Mrs. White", "Mr. Green",
+    public static final String[] CHARACTER_NAMES = {"Miss Scarlett", "Colonel Mustard", "Mrs. White", "Mr. Green",
             "Mrs. Peacock", "Professor Plum"};
 
     /**
      * Names of the nine rooms.
      */
-    private static final String[] ROOM_NAMES = {"Kitchen", "Ballroom", "Conservatory", "Billiards Room",
+    public static final String[] ROOM_NAMES = {"Kitchen", "Ballroom", "Conservatory", "Billiards Room",
             "Library", "Study", "Hall", "Lounge", "Dining Room"};
 
     /**
      * Names of the weapons.
      */
-    private static final String[] WEAPON_NAMES = {"Candlestick", "Revolver", "Spanner", "Rope", "Dagger", "Lead Pipe"};
+    public static final String[] WEAPON_NAMES = {"Candlestick", "Revolver", "Spanner", "Rope", "Dagger", "Lead Pipe"};
 
     /**
-     * Starting rows of the corresponding characters in CHARACTER_NAMES (same order).
+     * Construct a game played on the console.
      */
-    private static final int[] STARTING_ROWS = {24, 17, 0,  0, 6, 19};
+    public Game(){
+        this(new ConsoleInput(), System.out);
+    }
+
+    /**
+     * Construct a game played over some other input and output, such as a network connection.
+     *
+     * @param in where the players' answers are read from
+     * @param out where the game is printed
+     */
+    public Game(GameInput in, PrintStream out){
+        this(in, out, new GameRandom());
+    }
+
+    /**
+     * Construct a game with given random numbers, so that it can be played again the same way.
+     *
+     * @param in where the players' answers are read from
+     * @param out where the game is printed
+     * @param random the random numbers of the game
+     */
+    public Game(GameInput in, PrintStream out, GameRandom random){
+        this.in = in;
+        this.out = out;
+        this.random = random;
+    }
 
     /**
-     * Starting columns of the corresponding characters in CHARACTER_NAMES (same order).
+     * Ask the number of players, then initialise the game for them.
      */
-    private static final int[] STARTING_COLS = {7, 0, 9, 14,  23, 23};
+    public void initialise(){
+        out.print("Number of players ");
+        initialise(getNumber(3, 6));
+    }
 
     /**
      * Initialize the people, rooms, weapons, cards, and assigning murder cards.
-     * Also, it asks the number of players, and assigns cards to the players.
+     * Also, it assigns cards to the players.
      * After all the extra cards have been assigned, initialize the board and add people onto the board.
+     *
+     * @param playerNum the number of players (from 3 to 6)
      */
-    public void initialise(){
-        // objects and cards
-        people = new Person[6];
-        for(int i = 0; i < 6; i++)
-            people[i] = new Person(CHARACTER_NAMES[i], STARTING_ROWS[i], STARTING_COLS[i]);
-        rooms = new Room[9];
-        for(int i = 0; i < 9; i++)
-            rooms[i] = new Room(ROOM_NAMES[i]);
-        weapons = new Weapon[6];
-        for(int i = 0; i < 6; i++)
-            weapons[i] = new Weapon(WEAPON_NAMES[i], 0, 0);
-
-        List<Card> characterCards = new ArrayList<>();
-        List<Card> weaponCards = new ArrayList<>();
-        List<Card> roomCards = new ArrayList<>();
-
-        cards = new HashMap<>();
-        for(Person c: people) {
-            Card card = new Card(c);
-            characterCards.add(card);
-            cards.put(c.getName(), card);
-        }
-        for(Weapon w: weapons) {
-            Card c = new Card(w);
-            weaponCards.add(c);
-            cards.put(w.getName(), c);
-        }
-        for(Room r: rooms) {
-            Card c = new Card(r);
-            roomCards.add(c);
-            cards.put(r.getName(), c);
-        }
+    public void initialise(int playerNum){
+        createItems();
+        List<Card> characterCards = new ArrayList<>(Arrays.asList(cardList).subList(0, 6));
+        List<Card> weaponCards = new ArrayList<>(Arrays.asList(cardList).subList(6, 12));
+        List<Card> roomCards = new ArrayList<>(Arrays.asList(cardList).subList(12, 21));
 
         // assigning murder cards
         murderCards = new Card[3];
-        Card murderCharacter = characterCards.get((int) (Math.random() * characterCards.size()));
+        Card murderCharacter = characterCards.get(random.nextInt(characterCards.size()));
         characterCards.remove(murderCharacter);
-        Card murderWeapon = weaponCards.get((int) (Math.random() * weaponCards.size()));
+        Card murderWeapon = weaponCards.get(random.nextInt(weaponCards.size()));
         weaponCards.remove(murderWeapon);
-        Card murderRoom = roomCards.get((int) (Math.random() * roomCards.size()));
+        Card murderRoom = roomCards.get(random.nextInt(roomCards.size()));
         roomCards.remove(murderRoom);
         murderCards[0] = murderCharacter;
         murderCards[1] = murderWeapon;
@@ -134,14 +197,12 @@ public class Game {
         handCards.addAll(roomCards);
 
         // players and hands
-        System.out.print("Number of players ");
-        int playerNum = getNumber(3, 6);
         players = new Player[playerNum];
         int cardNum = 18 / playerNum;
         for(int i = 0; i < playerNum; i++) {
             List<Card> hand = new ArrayList<>();
             for (int j = 0; j < cardNum; j++) {
-                int index = (int) (Math.random() * handCards.size());
+                int index = random.nextInt(handCards.size());
                 hand.add(handCards.get(index));
                 handCards.remove(index);
             }
@@ -149,9 +210,92 @@ public class Game {
         }
 
         extraCards = handCards;
+        indexOwners();
+        createBoard();
+    }
 
-        // initialize a new board
-        board = new Board(rooms, weapons);
+    /**
+     * Set up a game saved earlier, with its cards dealt and every person and weapon on the square it was on.
+     * The game carries on from the start of the current player's turn.
+     *
+     * @param murder indexes of the murder character, weapon and room cards
+     * @param hands indexes of the cards in each player's hand (3 to 6 players)
+     * @param extra indexes of the extra cards
+     * @param cells squares of the six characters then the six weapons, as DistanceTable cells
+     * @param current index of the player whose turn it is
+     * @throws IllegalArgumentException if an item cannot be put on its square
+     */
+    public void restore(int[] murder, int[][] hands, int[] extra, int[] cells, int current){
+        createItems();
+        murderCards = new Card[3];
+        for(int i = 0; i < 3; i++) murderCards[i] = cardList[murder[i]];
+        players = new Player[hands.length];
+        for(int i = 0; i < hands.length; i++) {
+            List<Card> hand = new ArrayList<>();
+            for(int card: hands[i]) hand.add(cardList[card]);
+            players[i] = new Player(CHARACTER_NAMES[i], hand, people[i]);
+        }
+        extraCards = new ArrayList<>();
+        for(int card: extra) extraCards.add(cardList[card]);
+        indexOwners();
+        createBoard();
+
+        MovableItem[] items = new MovableItem[12];
+        System.arraycopy(people, 0, items, 0, 6);
+        System.arraycopy(weapons, 0, items, 6, 6);
+        // move everything off the board first, so that no item is in the way of another
+        for(MovableItem item: items) board.removeItem(item);
+        for(int i = 0; i < 12; i++) {
+            int row = cells[i] / DistanceTable.COLS, col = cells[i] % DistanceTable.COLS;
+            if(!board.placeItem(items[i], row, col))
+                throw new IllegalArgumentException("The " + items[i].getName() + " cannot be put on square " + cells[i]);
+        }
+        currentPlayer = current;
+    }
+
+    /**
+     * Index who holds each card, once the cards are dealt.
+     */
+    private void indexOwners(){
+        int[] hands = new int[players.length];
+        for(int i = 0; i < players.length; i++)
+            for(Card card: players[i].getHand()) hands[i] |= 1 << card.getIndex();
+        int envelope = 0;
+        for(Card card: murderCards) envelope |= 1 << card.getIndex();
+        owners = new CardOwners(hands, envelope);
+    }
+
+    /**
+     * Create the people, rooms, weapons and their cards.
+     */
+    private void createItems(){
+        // every item is numbered by its card: characters 0 to 5, weapons 6 to 11, rooms 12 to 20
+        cardList = new Card[21];
+        people = new Person[6];
+        for(int i = 0; i < 6; i++) {
+            people[i] = new Person(CHARACTER_NAMES[i], i, layout.startCell(i) / DistanceTable.COLS,
+                    layout.startCell(i) % DistanceTable.COLS);
+            cardList[i] = new Card(people[i]);
+        }
+        weapons = new Weapon[6];
+        for(int i = 0; i < 6; i++) {
+            weapons[i] = new Weapon(WEAPON_NAMES[i], 6 + i, 0, 0);
+            cardList[6 + i] = new Card(weapons[i]);
+        }
+        rooms = new Room[9];
+        for(int i = 0; i < 9; i++) {
+            rooms[i] = new Room(ROOM_NAMES[i], 12 + i);
+            cardList[12 + i] = new Card(rooms[i]);
+        }
+    }
+
+    /**
+     * Create a new board, with the weapons in random rooms and the people on their starting squares.
+     */
+    private void createBoard(){
+        board = new Board(layout, rooms, weapons, random);
+        board.setOutput(out);
+        board.setListener(listener);
         board.addPeople(people);
     }
 
@@ -161,79 +305,135 @@ public class Game {
      * Print the number of remaining moves, and ask for a move if there is any move remaining;
      * or turn to the next player.
      * When a player makes a correct accusation, stop running and return.
+     * The first turn is the current player's (the first player's, unless the game was restored).
      */
     public void run(){
         while(true){
-            for(int i = 0; i < players.length; i++) {
-                System.out.println("\n=================================================================================================================================\n");
-                board.drawBoard();
-                System.out.println(players[i].getName() + "'s turn");
-
-                int diceOne = (int) (Math.random() * 6) + 1;
-                int diceTwo = (int) (Math.random() * 6) + 1;
-                int turnsRemaining = diceOne + diceTwo;
-
-                boolean allowMoves = true;
-                if(board.inRoom(players[i])){
-                    if(askAccusation(i)) {
-                        if (makeAccusation(i)) return;
-                        else allowMoves = false;
-                    }else{
-                        Room room = board.getRoom(players[i]);
-                        Map<Integer, DoorTile> doorTiles = room.getDoorTiles();
-                        boolean blocked = true;
-                        for(Tile tile: doorTiles.values())
-                            if(tile.getItem() == null) blocked = false;
-                        if(blocked) {
-                            System.out.println("You can't leave the room because all the exits are blocked");
-                            allowMoves = false;
-                            enterLetter();
-                        }else {
-                            if (doorTiles.size() > 1) {
-                                System.out.print("What door would you like to exit from ");
-                                int doorNum = getNumber(1, doorTiles.size());
-                                while(!board.teleportPersonToDoor(players[i], doorTiles.get(doorNum))){
-                                    System.out.print("What door would you like to exit from ");
-                                    doorNum = getNumber(1, doorTiles.size());
-                                }
-                                board.drawBoard();
-                            } else {
-                                board.teleportPersonToDoor(players[i], doorTiles.get(1));
-                                board.drawBoard();
-                                System.out.println("You have left the room");
-                                enterLetter();
-                            }
-                            turnsRemaining--;
+            for(int i = currentPlayer; i < players.length; i++) {
+                if(playTurn(i, console)) return;
+            }
+            currentPlayer = 0;
+        }
+    }
+
+    /**
+     * Play one player's turn: leave the room the player is in or make an accusation there,
+     * then move with the dice, making an accusation if the player enters a room.
+     * The players of run are asked on the game's input; other players, such as bots, make their own decisions.
+     *
+     * @param i index of the player
+     * @param decisions makes the player's decisions
+     * @return true if the player won
+     */
+    public boolean playTurn(int i, TurnDecisions decisions){
+        currentPlayer = i;
+        if(listener != null) listener.turnStarted(i);
+        TurnEvent event = FlightEvents.beginTurn();
+        long start = metrics == null ? 0 : System.nanoTime();
+        turnDice = 0;
+        turnSteps = 0;
+        boolean won = turn(i, decisions);
+        movesRemaining = 0;
+        if(metrics != null) metrics.turnEnded(System.nanoTime() - start);
+        if(event != null) event.end(i, turnDice, turnSteps, won);
+        return won;
+    }
+
+    private boolean turn(int i, TurnDecisions decisions){
+        decisions.turnStarted(i);
+        int diceOne = random.rollDie();
+        int diceTwo = random.rollDie();
+        int turnsRemaining = diceOne + diceTwo;
+        turnDice = turnsRemaining;
+        movesRemaining = turnsRemaining;
+
+        boolean allowMoves = true;
+        if(board.inRoom(players[i])){
+            if(decisions.wantsAccusation(i)) {
+                if (accuse(i, decisions)) return true;
+                else allowMoves = false;
+            }else{
+                Room room = board.getRoom(players[i]);
+                Map<Integer, DoorTile> doorTiles = room.getDoorTiles();
+                if(board.exitsBlocked(room)) {
+                    decisions.exitsBlocked(i);
+                    allowMoves = false;
+                }else {
+                    if (doorTiles.size() > 1) {
+                        DoorTile door = doorTiles.get(decisions.chooseExit(i, doorTiles));
+                        while(!board.teleportPersonToDoor(players[i], door)){
+                            door = doorTiles.get(decisions.chooseExit(i, doorTiles));
                         }
+                        drawBoard();
+                    } else {
+                        board.teleportPersonToDoor(players[i], doorTiles.get(1));
+                        drawBoard();
+                        decisions.leftRoom(i);
                     }
+                    turnsRemaining--;
+                    movesRemaining = turnsRemaining;
                 }
-                if(allowMoves) {
-                    System.out.println("You rolled a " + diceOne + " and a " + diceTwo);
-                    outerLoop:
-                    for (int j = turnsRemaining; j >= 1; j--) {
-                        System.out.println(players[i].getName() + ", you have " + j + " moves remaining");
-                        String move = getMove();
-                        if(move.contentEquals("x")) {
-                            System.out.println(true);
-                            break;
-                        }
-                        while (!board.movePerson(players[i], move)) {
-                            move = getMove();
-                            if(move.contentEquals("x")) {
-                                break outerLoop;
-                            }
-                        }
-                        board.drawBoard();
-                        if (board.inRoom(players[i])) {
-                            if (askAccusation(i)) {
-                                if (makeAccusation(i)) return;
-                            }
-                            break;
-                        }
+            }
+        }
+        if(allowMoves) {
+            decisions.rolled(i, diceOne, diceTwo);
+            outerLoop:
+            for (int j = turnsRemaining; j >= 1; j--) {
+                String move = decisions.nextMove(i, j, 0);
+                if(move.contentEquals("x")) {
+                    break;
+                }
+                int steps, refused = 0;
+                while ((steps = step(i, move, j)) == 0) {
+                    move = decisions.nextMove(i, j, ++refused);
+                    if(move.contentEquals("x")) {
+                        break outerLoop;
                     }
                 }
+                // a whole move typed at once uses up a move for each step
+                j -= steps - 1;
+                movesRemaining = j - 1;
+                drawBoard();
+                if (board.inRoom(players[i])) {
+                    if (decisions.wantsAccusation(i) && accuse(i, decisions)) return true;
+                    break;
+                }
             }
         }
+        return false;
+    }
+
+    /**
+     * Move the player a square, or along a whole move such as "wwdds" (see Board.movePersonAlong),
+     * timing the step when it is monitored.
+     *
+     * @param player index of the player
+     * @param move w, a, s or d, or a whole move
+     * @param movesRemaining the most steps the player may take
+     * @return the number of squares moved, or 0 if the board refused the step or move
+     */
+    private int step(int player, String move, int movesRemaining){
+        StepEvent event = FlightEvents.beginStep();
+        Person person = players[player].getPerson();
+        int from = DistanceTable.cell(person.row(), person.col());
+        int steps;
+        if(move.length() == 1) steps = board.movePerson(players[player], move) ? 1 : 0;
+        else steps = board.movePersonAlong(players[player], move, movesRemaining) < 0 ? move.length() : 0;
+        turnSteps += steps;
+        if(metrics != null) metrics.stepped(steps);
+        if(event != null) event.end(player, move, from, DistanceTable.cell(person.row(), person.col()), steps > 0);
+        return steps;
+    }
+
+    /**
+     * Draw the board, timing it when it is monitored.
+     */
+    private void drawBoard(){
+        RenderEvent event = FlightEvents.beginRender();
+        long start = metrics == null ? 0 : System.nanoTime();
+        board.drawBoard();
+        if(metrics != null) metrics.rendered(System.nanoTime() - start);
+        if(event != null) event.end(currentPlayer);
     }
 
     /**
@@ -242,65 +442,90 @@ public class Game {
      * @return true if the player wants to make an accusation; otherwise return false.
      */
     public boolean askAccusation(int playerNum){
-        System.out.println("You are in the " + board.getRoom(players[playerNum]).getName());
-        System.out.print("Would you like to make an accusation (yes or no)? ");
+        out.println("You are in the " + board.getRoom(players[playerNum]).getName());
+        out.print("Would you like to make an accusation (yes or no)? ");
         return getAnswer();
     }
 
     /**
-     * Make an accusation.
+     * Make an accusation, asking the player on the game's input.
      *
      * @param playerNum index of the player
      * @return true if the player makes a correct accusation;
      *         otherwise return false.
      */
     public boolean makeAccusation(int playerNum){
-        System.out.println("Make an accusation");
-        System.out.println("Here is your hand: " + players[playerNum].getHandString());
-        if(!extraCards.isEmpty()) {
-            System.out.print("Here are the extra cards: " + extraCards.get(0).getName());
-            for(int i = 1; i < extraCards.size(); i++)
-                System.out.print(", " +extraCards.get(i).getName());
-            System.out.println();
-        }
+        return accuse(playerNum, console);
+    }
+
+    /**
+     * Make an accusation from the room the player is in, and settle it: the first player after the accuser
+     * who holds one of the cards shows it, and if nobody can, the player may check the envelope.
+     *
+     * @param playerNum index of the player
+     * @param decisions makes the player's decisions
+     * @return true if the player checked the envelope and the accusation was correct
+     */
+    private boolean accuse(int playerNum, TurnDecisions decisions){
         Room room = board.getRoom(players[playerNum]);
-        Card roomCard = cards.get(room.getName());
-        Card weaponCard = getCard("weapon", WEAPON_NAMES);
-        Card personCard = getCard("character", CHARACTER_NAMES);
+        Card roomCard = getCard(room);
+        Card weaponCard = decisions.chooseWeapon(playerNum);
+        Card personCard = decisions.chooseCharacter(playerNum);
+        if(listener != null) listener.accused(playerNum, personCard, weaponCard, roomCard);
+        FlightEvents.accusation(playerNum, personCard.getName(), weaponCard.getName(), roomCard.getName());
         board.teleportItemToRoom((MovableItem) weaponCard.getItem(), room);
         board.teleportItemToRoom((MovableItem) personCard.getItem(), room);
-        board.drawBoard();
+        drawBoard();
 
-        for(int i = playerNum + 1; i != playerNum; i++){
-            if(i == players.length){
-                if(playerNum == 0) break;
-                i = 0;
-            }
-            List<Card> hand = players[i].getHand();
-            Card card = null;
-            if(hand.contains(weaponCard)) card = weaponCard;
-            else if(hand.contains(roomCard)) card = roomCard;
-            else if(hand.contains(personCard)) card = personCard;
-            if(card != null){
-                System.out.println("Your accusation has been disputed: " +
-                        players[i].getName() + " has the " + card.getName() + " card");
-                enterLetter();
-                return false;
-            }
-            System.out.println(players[i].getName() + " can't dispute your accusation");
-        }
-        System.out.println("Nobody can dispute this guess. Would you like to check the envelope?");
-        boolean answer = getAnswer();
-        if(!answer) return false;
-        // accusation successful, win
-        if(murderCards[0] == personCard && murderCards[1] == weaponCard && murderCards[2] == roomCard){
-            System.out.println(players[playerNum].getName() + " wins");
-            return true;
-        }else{
-            System.out.println("These were not the correct cards");
-            enterLetter();
-            return false;
-        }
+        int card = owners.dispute(playerNum, personCard.getIndex(), weaponCard.getIndex(), roomCard.getIndex());
+        int disputer = card < 0 ? -1 : owners.owner(card);
+        Card shown = card < 0 ? null : cardList[card];
+        if(listener != null) listener.disputed(disputer, shown);
+        if(metrics != null) metrics.accused(shown != null);
+        FlightEvents.dispute(playerNum, disputer, shown == null ? null : shown.getName());
+        decisions.accusationSettled(playerNum, personCard, weaponCard, roomCard, disputer, shown);
+        if(shown != null || !decisions.checkEnvelope(playerNum, personCard, weaponCard, roomCard)) return false;
+        boolean correct = isSolution(personCard, weaponCard, roomCard);
+        if(listener != null) listener.envelopeChecked(playerNum, correct);
+        decisions.envelopeChecked(playerNum, correct);
+        return correct;
+    }
+
+    /**
+     * Find the card a player would use to dispute an accusation.
+     * The weapon is shown first, then the room, then the character.
+     *
+     * @param playerNum index of the disputing player
+     * @param personCard the accused character
+     * @param weaponCard the accused weapon
+     * @param roomCard the accused room
+     * @return the card shown, or null if the player holds none of the three cards.
+     */
+    public Card disputeCard(int playerNum, Card personCard, Card weaponCard, Card roomCard){
+        int card = owners.disputeCard(playerNum, personCard.getIndex(), weaponCard.getIndex(), roomCard.getIndex());
+        return card < 0 ? null : cardList[card];
+    }
+
+    /**
+     * Find the first player after the accusing player (in turn order) who can dispute an accusation.
+     *
+     * @param playerNum index of the accusing player
+     * @param personCard the accused character
+     * @param weaponCard the accused weapon
+     * @param roomCard the accused room
+     * @return index of the disputing player, or -1 if nobody can dispute the accusation.
+     */
+    public int findDisputer(int playerNum, Card personCard, Card weaponCard, Card roomCard){
+        return owners.findDisputer(playerNum, personCard.getIndex(), weaponCard.getIndex(), roomCard.getIndex());
+    }
+
+    /**
+     * Check an accusation against the envelope.
+     *
+     * @return true if the three cards are the murder cards.
+     */
+    public boolean isSolution(Card personCard, Card weaponCard, Card roomCard){
+        return murderCards[0] == personCard && murderCards[1] == weaponCard && murderCards[2] == roomCard;
     }
 
     /**
@@ -310,17 +535,18 @@ public class Game {
      * s: down;
      * d: right.
      * x to finish moving
+     * Several moves can be typed at once, such as wwdds, to take them all in one go.
      *
-     * @return w, a, s, or d.
+     * @return w, a, s, d, x, or several of w, a, s and d.
      */
     public String getMove(){
-        System.out.print("Please enter in your move (w a s d or x to finish): ");
-        Scanner scan = new Scanner(System.in);
-        String move = scan.next();
+        out.print("Please enter in your move (w a s d or x to finish): ");
+        String move = next();
         while (!(move.equalsIgnoreCase("w") || move.equalsIgnoreCase("a") ||
-                move.equalsIgnoreCase("s") || move.equalsIgnoreCase("d") || move.equalsIgnoreCase("x"))) {
-            System.out.print("Please enter a valid character (w, a, s, d or x):");
-            move = scan.next();
+                move.equalsIgnoreCase("s") || move.equalsIgnoreCase("d") || move.equalsIgnoreCase("x")
+                || move.length() > 1 && move.chars().allMatch(c -> "wasdWASD".indexOf(c) >= 0))) {
+            out.print("Please enter a valid character (w, a, s, d or x):");
+            move = next();
         }
         return move;
     }
@@ -333,11 +559,10 @@ public class Game {
      *         false if the user input "no".
      */
     public boolean getAnswer(){
-        Scanner sc = new Scanner(System.in);
-        String answer = sc.next();
+        String answer = next();
         while(!(answer.equalsIgnoreCase("yes") || answer.equalsIgnoreCase("no"))){
-            System.out.print("Please input yes or no: ");
-            answer = sc.next();
+            out.print("Please input yes or no: ");
+            answer = next();
         }
         if(answer.equalsIgnoreCase("yes")) return true;
         else return false;
@@ -351,18 +576,17 @@ public class Game {
     public int getNumber(int lowerBound, int upperBound){
         int number = -1;
         boolean validInput = false;
-        System.out.print("(integer between " + lowerBound + " and " + upperBound + "): ");
+        out.print("(integer between " + lowerBound + " and " + upperBound + "): ");
         while(!validInput) {
             try {
-                Scanner scan = new Scanner(System.in);
-                number = scan.nextInt();
+                number = Integer.parseInt(next());
                 if(number >= lowerBound && number <= upperBound) {
                     validInput = true;
                 }else{
-                    System.out.print("Please input an integer between " + lowerBound + " and " + upperBound + ": ");
+                    out.print("Please input an integer between " + lowerBound + " and " + upperBound + ": ");
                 }
-            }catch(java.util.InputMismatchException e) {
-                System.out.print("Please input an integer between " + lowerBound + " and " + upperBound + ": ");
+            }catch(NumberFormatException e) {
+                out.print("Please input an integer between " + lowerBound + " and " + upperBound + ": ");
             }
         }
         return number;
@@ -372,33 +596,291 @@ public class Game {
      * Allow the user to enter any letter to continue the game.
      */
     public void enterLetter(){
-        Scanner scan = new Scanner(System.in);
-        System.out.print("Enter any letter to continue: ");
-        scan.next();
+        out.print("Enter any letter to continue: ");
+        next();
     }
 
     /**
-     * Get the card based on the type or the corresponding array.
+     * Read the next word, first sending everything printed so far to the player.
+     *
+     * @return the word
+     */
+    private String next(){
+        out.flush();
+        InputEvent event = FlightEvents.beginInput();
+        long start = metrics == null ? 0 : System.nanoTime();
+        String word = in.next();
+        if(metrics != null) metrics.inputWaited(System.nanoTime() - start);
+        if(event != null) event.end(currentPlayer);
+        return word;
+    }
+
+    /**
+     * Ask the player to choose a card of one type.
      *
      * @param type weapon, room, or character
-     * @param names WEAPON_NAMES, ROOM_NAMES, or CHARACTER_NAMES
-     * @return the card that matches the type and name (input by the user)
+     * @param first index of the first card of the type (0 for characters, 6 for weapons, 12 for rooms)
+     * @param count number of cards of the type
+     * @return the card chosen (input by the user)
+     */
+    public Card getCard(String type, int first, int count){
+        for(int i = 0; i < count; i++){
+            out.println((i + 1) + " " + cardList[first + i].getName());
+        }
+        out.print("Enter a number to choose a "  + type + " ");
+        int num = getNumber(1, count);
+        return cardList[first + num - 1];
+    }
+
+    /**
+     * Get the card of an item by the item's name.
+     *
+     * @param name name of the character, weapon, or room
+     * @return the card with that name, or null if there is none
+     */
+    public Card getCard(String name){
+        for(Card card: cardList)
+            if(card.getName().equals(name)) return card;
+        return null;
+    }
+
+    /**
+     * Get the card of an item.
+     *
+     * @param item a character, weapon, or room of this game
+     * @return the card of the item
+     */
+    public Card getCard(Item item){
+        return cardList[item.getId()];
+    }
+
+    /**
+     * Get a card by its index.
+     *
+     * @param index 0 to 5 for characters, 6 to 11 for weapons, 12 to 20 for rooms
+     * @return the card
+     */
+    public Card getCard(int index){
+        return cardList[index];
+    }
+
+    /**
+     * Get the board of the game.
+     * @return the board
+     */
+    public Board getBoard(){ return board; }
+
+    /**
+     * Get the players in the game.
+     * @return the players, in turn order
+     */
+    public Player[] getPlayers(){ return players; }
+
+    /**
+     * Set what is told about everything that happens in the game, including every move on the board.
+     *
+     * @param listener the listener, or null
      */
-    public Card getCard(String type, String[] names){
-        for(int i = 0; i < names.length; i++){
-            System.out.println((i + 1) + " " + names[i]);
+    public void setListener(GameListener listener){
+        this.listener = listener;
+        if(board != null) board.setListener(listener);
+    }
+
+    /**
+     * Set where the game's turns, steps, drawing and waits for input are counted and timed.
+     * Games may share metrics. Without metrics, the game does not read the clock.
+     * The game also records JDK Flight Recorder events (see FlightEvents) whenever a recording asks for them.
+     *
+     * @param metrics the metrics, or null
+     */
+    public void setMetrics(GameMetrics metrics){
+        this.metrics = metrics;
+    }
+
+    /**
+     * Set the layout of the board, before the game is initialised or restored; the standard layout is used otherwise.
+     *
+     * @param layout the layout
+     */
+    public void setLayout(BoardLayout layout){
+        this.layout = layout;
+    }
+
+    /**
+     * Get the layout of the board.
+     * @return the layout
+     */
+    public BoardLayout getLayout(){ return layout; }
+
+    /**
+     * Start the next turn with another player, such as when replaying a recorded game.
+     *
+     * @param player index of the player
+     */
+    public void setCurrentPlayer(int player){
+        currentPlayer = player;
+    }
+
+    /**
+     * Get the random numbers of the game.
+     * @return the generator
+     */
+    public GameRandom getRandom(){ return random; }
+
+    /**
+     * Get the three murder cards in the envelope.
+     * @return the character, weapon and room cards
+     */
+    public Card[] getMurderCards(){ return murderCards; }
+
+    /**
+     * Get the player whose turn it is.
+     * @return index of the player in getPlayers()
+     */
+    public int getCurrentPlayer(){ return currentPlayer; }
+
+    /**
+     * Get the Zobrist hash of the game's state: where the people and weapons are (Board.getHash),
+     * whose turn it is and how many moves they have left. Equal states have equal hashes,
+     * so it can key a transposition table or find where two replays of a game part.
+     * @return the hash
+     */
+    public long getStateHash(){
+        return board.getHash() ^ Zobrist.player(currentPlayer) ^ Zobrist.moves(movesRemaining);
+    }
+
+    /**
+     * Get the six characters.
+     * @return the characters, in the order of CHARACTER_NAMES
+     */
+    public Person[] getPeople(){ return people; }
+
+    /**
+     * Get the nine rooms.
+     * @return the rooms, in the order of ROOM_NAMES
+     */
+    public Room[] getRooms(){ return rooms; }
+
+    /**
+     * Get the six weapons.
+     * @return the weapons, in the order of WEAPON_NAMES
+     */
+    public Weapon[] getWeapons(){ return weapons; }
+
+    /**
+     * Get the cards left over after dealing, which every player can see.
+     * @return the extra cards
+     */
+    public List<Card> getExtraCards(){ return extraCards; }
+
+    /**
+     * Get who holds each card of the deal, which settles any accusation at once.
+     * @return the owners of the cards
+     */
+    public CardOwners getCardOwners(){ return owners; }
+
+    /**
+     * Asks the player whose turn it is on the game's input, and prints what happens.
+     */
+    private class ConsoleDecisions implements TurnDecisions {
+        @Override
+        public void turnStarted(int player){
+            out.println("\n=================================================================================================================================\n");
+            drawBoard();
+            out.println(players[player].getName() + "'s turn");
+        }
+
+        @Override
+        public boolean wantsAccusation(int player){
+            return askAccusation(player);
+        }
+
+        @Override
+        public int chooseExit(int player, Map<Integer, DoorTile> doors){
+            out.print("What door would you like to exit from ");
+            return getNumber(1, doors.size());
+        }
+
+        @Override
+        public void exitsBlocked(int player){
+            out.println("You can't leave the room because all the exits are blocked");
+            enterLetter();
+        }
+
+        @Override
+        public void leftRoom(int player){
+            out.println("You have left the room");
+            enterLetter();
+        }
+
+        @Override
+        public void rolled(int player, int dieOne, int dieTwo){
+            out.println("You rolled a " + dieOne + " and a " + dieTwo);
+        }
+
+        @Override
+        public String nextMove(int player, int movesRemaining, int refused){
+            if(refused > 0) return getMove();
+            out.println(players[player].getName() + ", you have " + movesRemaining + " moves remaining");
+            String move = getMove();
+            if(move.contentEquals("x")) out.println(true);
+            return move;
+        }
+
+        @Override
+        public Card chooseWeapon(int player){
+            out.println("Make an accusation");
+            out.println("Here is your hand: " + players[player].getHandString());
+            if(!extraCards.isEmpty()) {
+                out.print("Here are the extra cards: " + extraCards.get(0).getName());
+                for(int i = 1; i < extraCards.size(); i++)
+                    out.print(", " +extraCards.get(i).getName());
+                out.println();
+            }
+            return getCard("weapon", CHARACTER_NAMES.length, WEAPON_NAMES.length);
+        }
+
+        @Override
+        public Card chooseCharacter(int player){
+            return getCard("character", 0, CHARACTER_NAMES.length);
+        }
+
+        @Override
+        public void accusationSettled(int accuser, Card person, Card weapon, Card room, int disputer, Card shown){
+            // the players asked in turn before the one who disputed
+            for(int i = accuser + 1 == players.length ? 0 : accuser + 1; i != accuser && i != disputer;
+                    i = i + 1 == players.length ? 0 : i + 1)
+                out.println(players[i].getName() + " can't dispute your accusation");
+            if(shown == null) return;
+            out.println("Your accusation has been disputed: " +
+                    players[disputer].getName() + " has the " + shown.getName() + " card");
+            enterLetter();
+        }
+
+        @Override
+        public boolean checkEnvelope(int player, Card person, Card weapon, Card room){
+            out.println("Nobody can dispute this guess. Would you like to check the envelope?");
+            return getAnswer();
+        }
+
+        @Override
+        public void envelopeChecked(int player, boolean correct){
+            if(correct){
+                out.println(players[player].getName() + " wins");
+            }else{
+                out.println("These were not the correct cards");
+                enterLetter();
+            }
         }
-        System.out.print("Enter a number to choose a "  + type + " ");
-        int num = getNumber(1, names.length);
-        return cards.get(names[num - 1]);
     }
 
     /**
      * Initialise game and run it.
-     * @param args
+     * @param args optionally a seed, to deal and roll the same way as an earlier game
      */
     public static void main(String args[]){
-        Game g = new Game();
+        GameRandom random = args.length > 0 ? new GameRandom(Long.parseLong(args[0])) : new GameRandom();
+        Game g = new Game(new WordReader(System.in), System.out, random);
         g.initialise();
         g.run();
     }
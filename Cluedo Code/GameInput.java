@@ -0,0 +1,16 @@
+package Cluedo;
+import java.util.NoSuchElementException;
+
+/**
+ * Where a game reads what its players type.
+ * The game only ever needs the next word (a move, yes or no, or a number).
+ */
+public interface GameInput {
+    /**
+     * Get the next word typed, waiting for it if there is none yet.
+     *
+     * @return the next word
+     * @throws NoSuchElementException if there will be no more input (the console or connection was closed)
+     */
+    String next();
+}
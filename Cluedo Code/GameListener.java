@@ -0,0 +1,50 @@
+package Cluedo;
+import Cluedo.Items.MovableItem;
+
+/**
+ * Told about everything that happens in a game, such as to record it.
+ * Every method does nothing unless overridden.
+ */
+public interface GameListener {
+    /**
+     * A player's turn has started.
+     * @param player index of the player
+     */
+    default void turnStarted(int player) {
+    }
+
+    /**
+     * A person or weapon has moved: a step, leaving a room, entering a room, or being called to a room.
+     * @param item the person or weapon
+     * @param fromCell the square it left, as a DistanceTable cell
+     * @param toCell the square it is now on
+     */
+    default void itemMoved(MovableItem item, int fromCell, int toCell) {
+    }
+
+    /**
+     * A player has made an accusation.
+     * @param player index of the player
+     * @param person the accused character
+     * @param weapon the accused weapon
+     * @param room the accused room
+     */
+    default void accused(int player, Card person, Card weapon, Card room) {
+    }
+
+    /**
+     * The last accusation has been disputed, or nobody could dispute it.
+     * @param disputer index of the disputing player, or -1 if nobody could dispute it
+     * @param shown the card shown, or null
+     */
+    default void disputed(int disputer, Card shown) {
+    }
+
+    /**
+     * A player has checked the envelope.
+     * @param player index of the player
+     * @param correct true if the accusation was the murder
+     */
+    default void envelopeChecked(int player, boolean correct) {
+    }
+}
@@ -0,0 +1,90 @@
+package Cluedo;
+import java.util.SplittableRandom;
+
+/**
+ * The random numbers of one game: the deal, the weapons' rooms, the squares items land on in rooms,
+ * the dice, and the choices of bots.
+ *
+ * Each game has its own generator, so games running in parallel never share one,
+ * and a game started from a seed plays out the same way every time.
+ * A generator is not thread safe; split() gives an independent generator for another thread.
+ */
+public class GameRandom {
+    /** Dice rolled ahead at a time. */
+    private static final int DICE_BATCH = 64;
+
+    private final SplittableRandom random;
+    private final byte[] dice = new byte[DICE_BATCH];
+    /** Index of the next die in the batch. */
+    private int nextDie = DICE_BATCH;
+
+    /**
+     * Construct a generator with a seed of its own.
+     */
+    public GameRandom() {
+        this(new SplittableRandom());
+    }
+
+    /**
+     * Construct a generator from a seed.
+     * @param seed the seed
+     */
+    public GameRandom(long seed) {
+        this(new SplittableRandom(seed));
+    }
+
+    private GameRandom(SplittableRandom random) {
+        this.random = random;
+    }
+
+    /**
+     * Get a new generator, independent of this one, for another thread or game.
+     * @return the new generator
+     */
+    public GameRandom split() {
+        return new GameRandom(random.split());
+    }
+
+    /**
+     * Get a random number from 0 (inclusive) to a bound (exclusive).
+     * @param bound the bound (positive)
+     * @return the number
+     */
+    public int nextInt(int bound) {
+        return random.nextInt(bound);
+    }
+
+    /**
+     * Get a random number from 0 (inclusive) to 1 (exclusive).
+     * @return the number
+     */
+    public double nextDouble() {
+        return random.nextDouble();
+    }
+
+    /**
+     * Get a random long, such as a seed for another generator.
+     * @return the number
+     */
+    public long nextLong() {
+        return random.nextLong();
+    }
+
+    /**
+     * Roll a die.
+     * Dice are rolled a batch at a time, two from each random number from 0 to 35.
+     *
+     * @return 1 to 6
+     */
+    public int rollDie() {
+        if(nextDie == DICE_BATCH) {
+            for(int i = 0; i < DICE_BATCH; i += 2) {
+                int pair = random.nextInt(36);
+                dice[i] = (byte) (pair / 6 + 1);
+                dice[i + 1] = (byte) (pair % 6 + 1);
+            }
+            nextDie = 0;
+        }
+        return dice[nextDie++];
+    }
+}
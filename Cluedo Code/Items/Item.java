@@ -6,14 +6,27 @@ package Cluedo.Items;
 public class Item {
     // Name of the Item
     private String name;
+    // Number of the Item, the same as the index of its card:
+    //             characters 0 to 5, weapons 6 to 11, rooms 12 to 20
+    private final int id;
 
     /**
      * Constructor
      *
      * @param name the name of the Item
+     * @param id the number of the Item (the index of its card)
      */
-    public Item(String name) {
+    public Item(String name, int id) {
         this.name = name;
+        this.id = id;
+    }
+
+    /**
+     * Get the number of the Item, which is also the index of its card (see Card.getIndex).
+     * @return the number of the Item
+     */
+    public int getId() {
+        return id;
     }
 
     /**
@@ -10,20 +10,33 @@ public class MovableItem extends Item{
      * row and col defines the position of the item.
      */
     private int row, col;
+    /**
+     * The letter the item is drawn as on the board.
+     */
+    private final char glyph;
 
     /**
      * Use the name of the item, and its position to construct the Movable item.
      *
      * @param name name of the item
+     * @param id   number of the item (the index of its card)
+     * @param glyph the letter the item is drawn as
      * @param row  index of the row that the item is in
      * @param col  index of the column that the item is in
      */
-    public MovableItem(String name, int row, int col) {
-        super(name);
+    public MovableItem(String name, int id, char glyph, int row, int col) {
+        super(name, id);
+        this.glyph = glyph;
         this.row = row;
         this.col = col;
     }
 
+    /**
+     * Get the letter the item is drawn as on the board.
+     * @return the letter
+     */
+    public char getGlyph(){ return glyph;}
+
     /**
      * Get the index of the row
      */
@@ -6,16 +6,16 @@ package Cluedo.Items;
  * we call the characters in the game "Person".
  */
 public class Person extends MovableItem {
-
     /**
      * Construct a Person object by its name, and original position (row and column).
      *
      * @param name name of the character/person
+     * @param id   number of the character (the index of its card)
      * @param row  original row (at the start of the game)
      * @param col  original column (at the start of the game)
      */
-    public Person(String name, int row, int col) {
-        super(name, row, col);
+    public Person(String name, int id, int row, int col) {
+        super(name, id, glyphOf(name), row, col);
     }
 
     /**
@@ -24,25 +24,26 @@ public class Person extends MovableItem {
      */
     public String getName(){ return super.getName(); }
 
+    /**
+     * Work out the letter for the name of a character.
+     */
+    private static char glyphOf(String name) {
+        switch(name) {
+            case "Miss Scarlett": return 'S';
+            case "Colonel Mustard": return 'M';
+            case "Mrs. White": return 'W';
+            case "Mr. Green": return 'G';
+            case "Mrs. Peacock": return 'E';
+            case "Professor Plum": return 'P';
+            default: throw new IllegalArgumentException("Invalid Player Name.");
+        }
+    }
+
     /**
      * A letter to represent the name of a character for short.
      * @return A letter representing the name of a character.
      */
     public String toString() {
-        if(getName().equals("Miss Scarlett")){
-            return "S";
-        }else if(getName().equals("Colonel Mustard")){
-            return "M";
-        }else if(getName().equals("Mrs. White")){
-            return "W";
-        }else if(getName().equals("Mr. Green")){
-            return "G";
-        }else if(getName().equals("Mrs. Peacock")){
-            return "E";
-        }else if(getName().equals("Professor Plum")){
-            return "P";
-        }else{
-            throw new Error("Invalid Player Name.");
-        }
+        return String.valueOf(getGlyph());
     }
-}
\ No newline at end of file
+}
@@ -1,50 +1,54 @@
 package Cluedo.Items;
+import Cluedo.GameRandom;
 import Cluedo.Tiles.DoorTile;
-import Cluedo.Tiles.RoomTile;
 import Cluedo.Tiles.Tile;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
+import java.util.Collections;
 import java.util.Map;
 
 /**
  * The Room class defines the 9 rooms in the game.
- * Each room has a list of RoomTiles,
+ * Each room has squares that items are put on,
  * and at least one DoorTile.
+ * The squares and doors belong to the layout shared by every game (BoardLayout);
+ * the room keeps only which of its squares are empty in this game.
  */
 public class Room extends Item{
-    // RoomTiles in the room.
-    private List<RoomTile> roomTiles = new ArrayList<RoomTile>();
+    // Position of each square among the squares of its room (shared with the layout).
+    private byte[] slotOfCell;
+    // Squares with nothing on them, in the first freeCount places (in no particular order).
+    // freeSlot[i] is the place of the room's square i in freeCells, or -1 if something is on it,
+    // so a square is taken or freed by swapping it with the last free square.
+    private int[] freeCells = new int[0];
+    private byte[] freeSlot = new byte[0];
+    private int freeCount;
     // DoorTile(s) for the room:
     //             key is the door number, value is the DoorTile
-    private Map<Integer, DoorTile> doorTiles;
+    private Map<Integer, DoorTile> doorTiles = Collections.emptyMap();
 
     /**
      * Constructor
      *
      * @param name Name of the room
+     * @param id Number of the room (the index of its card)
      */
-    public Room(String name) {
-        super(name);
-        doorTiles = new HashMap<>();
+    public Room(String name, int id) {
+        super(name, id);
     }
 
     /**
-     * Add RoomTile into this room.
-     * @param t the RoomTile that will be added into the room
-     */
-    public void addRoomTile(RoomTile t){
-        roomTiles.add(t);
-    }
-
-    /**
-     * Add DoorTile into this room.
+     * Give the room its squares and doors, with nothing on the squares (called by Board).
      *
-     * @param num the number of the door (starting from 1 for the doors of the room)
-     * @param d the DoorTile added to the room
+     * @param cells the squares items are put on, in the order they are first offered
+     * @param slotOfCell position of each square in cells, or -1
+     * @param doorTiles the doors by door number
      */
-    public void addDoorTile(int num, DoorTile d){
-        doorTiles.put(num, d);
+    public void setLayout(int[] cells, byte[] slotOfCell, Map<Integer, DoorTile> doorTiles) {
+        this.slotOfCell = slotOfCell;
+        this.doorTiles = doorTiles;
+        freeCells = cells.clone();
+        freeSlot = new byte[cells.length];
+        for(int i = 0; i < cells.length; i++) freeSlot[i] = (byte) i;
+        freeCount = cells.length;
     }
 
     /**
@@ -67,28 +71,46 @@ public class Room extends Item{
     }
 
     /**
-     * Remove a Tile from the tiles in the room.
-     * @param t the rile that is going to be removed.
+     * Record that something was put on a square of the room (called by Board).
+     * Squares items are not put on by the room are ignored.
+     * @param cell the square, which must be free
      */
-    public void removeTile(Tile t) {
-        roomTiles.remove(t);
+    public void cellTaken(int cell) {
+        int index = slotOfCell[cell];
+        if(index < 0 || freeSlot[index] < 0) return;
+        int slot = freeSlot[index];
+        int last = freeCells[--freeCount];
+        freeCells[slot] = last;
+        freeSlot[slotOfCell[last]] = (byte) slot;
+        freeSlot[index] = -1;
     }
 
     /**
-     * Place the item at a random position in the room
-     * @param i the movable item that will be placed in the room
+     * Record that a square of the room became empty (called by Board).
+     * @param cell the square, which must have been taken
      */
-    public void placeRandom(MovableItem i) {
-        while(true) {
-            int place = (int)Math.floor(Math.random()*roomTiles.size());
-            RoomTile tile = roomTiles.get(place);
-            if(tile.getItem() == null) {
-                tile.setItem(i);
-                i.setCol(tile.getCol());
-                i.setRow(tile.getRow());
-                break;
-            }
-        }
+    public void cellFreed(int cell) {
+        int index = slotOfCell[cell];
+        if(index < 0 || freeSlot[index] >= 0) return;
+        freeCells[freeCount] = cell;
+        freeSlot[index] = (byte) freeCount++;
     }
-}
 
+    /**
+     * Get the number of empty tiles in the room.
+     * @return number of tiles with nothing on them
+     */
+    public int getFreeTileCount() {
+        return freeCount;
+    }
+
+    /**
+     * Choose a random empty square of the room to put an item on.
+     * @param random the game's random numbers
+     * @return the square, or -1 if every square of the room is taken
+     */
+    public int randomFreeCell(GameRandom random) {
+        if(freeCount == 0) return -1;
+        return freeCells[random.nextInt(freeCount)];
+    }
+}
@@ -7,9 +7,10 @@ public class Weapon extends MovableItem {
     /**
      * Constructing a Weapon using its name
      * @param name name of the weapon
+     * @param id   number of the weapon (the index of its card)
      */
-    public Weapon(String name, int row, int col) {
-        super(name, row, col);
+    public Weapon(String name, int id, int row, int col) {
+        super(name, id, glyphOf(name), row, col);
     }
 
     /**
@@ -18,25 +19,26 @@ public class Weapon extends MovableItem {
      */
     public String getName(){ return super.getName(); }
 
+    /**
+     * Work out the letter for the name of a weapon.
+     */
+    private static char glyphOf(String name) {
+        switch(name) {
+            case "Candlestick": return 'C';
+            case "Dagger": return 'D';
+            case "Lead Pipe": return 'L';
+            case "Revolver": return 'R';
+            case "Rope": return 'O';
+            case "Spanner": return 'A';
+            default: throw new IllegalArgumentException("Invalid Weapon Name");
+        }
+    }
+
     /**
      * Get the letter representing the name of the weapon.
      * @return the letter representing the name of the weapon
      */
     public String toString() {
-        if(getName().equals("Candlestick")){
-            return "C";
-        }else if(getName().equals("Dagger")){
-            return "D";
-        }else if(getName().equals("Lead Pipe")){
-            return "L";
-        }else if(getName().equals("Revolver")){
-            return "R";
-        }else if(getName().equals("Rope")){
-            return "O";
-        }else if(getName().equals("Spanner")){
-            return "A";
-        }else{
-            throw new Error("Invalid Weapon Name");
-        }
+        return String.valueOf(getGlyph());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,269 @@
+package Cluedo;
+import Cluedo.Navigation.DistanceTable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Reads board layouts from text files, and keeps them compiled on disk.
+ *
+ * A layout file has a line for each setting; blank lines, and anything after a #, are ignored:
+ *   name Standard          the name of the layout
+ *   rooms KACOLSXUI        the letter of each room, in the order of Game.ROOM_NAMES
+ *   start 24 7             row and column of a character's start square, once for each character in order
+ *   door 13 22 O           the room of a door that is next to more than one room (as many as needed)
+ *   tiles                  followed by 25 lines of 24 letters: B blocked, H hall, 1 to 9 a door, or a room letter
+ *   lines                  followed by the 26 lines drawn above, between and below the rows of squares
+ *   key                    followed by the 8 lines drawn to the right of rows 1 to 8
+ * The lines after tiles, lines and key are taken as they are, spaces included.
+ *
+ * load compiles a file the first time and writes the compiled layout next to it (name.layout.bin);
+ * later loads read the compiled layout as long as the text has not changed since.
+ */
+public final class LayoutCompiler {
+    /** Ending of the compiled file written next to a layout file. */
+    public static final String COMPILED_SUFFIX = ".bin";
+
+    private LayoutCompiler() {
+    }
+
+    /**
+     * Read a layout file, from its compiled form if that is up to date,
+     * and otherwise by compiling it and writing the compiled form for next time.
+     * A compiled form that cannot be written (such as in a read-only folder) is not an error.
+     *
+     * @param file the layout file
+     * @return the layout
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the layout is not valid
+     */
+    public static BoardLayout load(Path file) throws IOException {
+        byte[] text = Files.readAllBytes(file);
+        int crc = crc(text);
+        Path compiled = compiledPath(file);
+        try {
+            BoardLayout layout = BoardLayout.decode(ByteBuffer.wrap(Files.readAllBytes(compiled)));
+            if(layout.getSourceCrc() == crc) return layout;
+        }catch(NoSuchFileException e) {
+            // not compiled yet
+        }catch(IOException | RuntimeException e) {
+            // compiled by another version, or damaged (its tables may fail in any way): compile again
+        }
+        BoardLayout layout = parse(new String(text, StandardCharsets.US_ASCII), crc);
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(compiled.toAbsolutePath().getParent(), "layout", ".tmp");
+            Files.write(temp, layout.encode());
+            Files.move(temp, compiled, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }catch(IOException | UnsupportedOperationException e) {
+            // played without the compiled form
+            if(temp != null) deleteQuietly(temp);
+        }
+        return layout;
+    }
+
+    /**
+     * Delete a file if it can be deleted.
+     */
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        }catch(IOException e) {
+            // left behind
+        }
+    }
+
+    /**
+     * Get the file the compiled form of a layout file is kept in.
+     * @param file the layout file
+     * @return the compiled file
+     */
+    public static Path compiledPath(Path file) {
+        return file.resolveSibling(file.getFileName() + COMPILED_SUFFIX);
+    }
+
+    private static int crc(byte[] data) {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Compile the text of a layout file.
+     *
+     * @param text the text
+     * @return the layout
+     * @throws IllegalArgumentException if the text is not a valid layout
+     */
+    public static BoardLayout parse(String text) {
+        return parse(text, crc(text.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    private static BoardLayout parse(String text, int crc) {
+        String[] lines = text.split("\r?\n", -1);
+        String name = null, roomLetters = null;
+        List<Integer> starts = new ArrayList<>();
+        Map<Integer, Character> doors = new HashMap<>();
+        StringBuilder tiles = null;
+        List<String> separators = null, key = null;
+        int at = 0;
+        while(at < lines.length) {
+            String line = lines[at++];
+            if(line.indexOf('#') >= 0) line = line.substring(0, line.indexOf('#'));
+            line = line.trim();
+            if(line.isEmpty()) continue;
+            String[] words = line.split("\\s+");
+            try {
+                switch(words[0]) {
+                    case "name":
+                        name = line.substring(4).trim();
+                        break;
+                    case "rooms":
+                        expectWords(words, 2);
+                        roomLetters = words[1];
+                        break;
+                    case "start":
+                        expectWords(words, 3);
+                        starts.add(cell(words[1], words[2]));
+                        break;
+                    case "door":
+                        expectWords(words, 4);
+                        if(words[3].length() != 1) throw new IllegalArgumentException("a room is one letter");
+                        if(doors.put(cell(words[1], words[2]), words[3].charAt(0)) != null)
+                            throw new IllegalArgumentException("the door is given a room twice");
+                        break;
+                    case "tiles":
+                        tiles = new StringBuilder();
+                        for(String row: block(lines, at, DistanceTable.ROWS)) {
+                            if(row.length() != DistanceTable.COLS)
+                                throw new IllegalArgumentException("row " + tiles.length() / DistanceTable.COLS + " has "
+                                        + row.length() + " squares, not " + DistanceTable.COLS);
+                            tiles.append(row);
+                        }
+                        at += DistanceTable.ROWS;
+                        break;
+                    case "lines":
+                        separators = withNewlines(block(lines, at, DistanceTable.ROWS + 1));
+                        at += DistanceTable.ROWS + 1;
+                        break;
+                    case "key":
+                        key = withNewlines(block(lines, at, 8));
+                        at += 8;
+                        break;
+                    default:
+                        throw new IllegalArgumentException("unknown setting " + words[0]);
+                }
+            }catch(IllegalArgumentException e) {
+                throw new IllegalArgumentException("Line " + at + ": " + e.getMessage());
+            }
+        }
+        if(name == null || name.isEmpty() || name.length() > 64) throw new IllegalArgumentException("The layout needs a name of up to 64 characters");
+        if(roomLetters == null) throw new IllegalArgumentException("The layout has no rooms setting");
+        if(tiles == null) throw new IllegalArgumentException("The layout has no tiles");
+        if(separators == null || key == null) throw new IllegalArgumentException("The layout has no lines or key");
+        int[] startCells = new int[starts.size()];
+        for(int i = 0; i < startCells.length; i++) startCells[i] = starts.get(i);
+        return BoardLayout.build(name, tiles.toString(), roomLetters, startCells, doors, separators, key, crc);
+    }
+
+    private static void expectWords(String[] words, int count) {
+        if(words.length != count) throw new IllegalArgumentException(words[0] + " takes " + (count - 1) + " values");
+    }
+
+    private static int cell(String row, String col) {
+        int r, c;
+        try {
+            r = Integer.parseInt(row);
+            c = Integer.parseInt(col);
+        }catch(NumberFormatException e) {
+            throw new IllegalArgumentException("bad row or column");
+        }
+        if(r < 0 || r >= DistanceTable.ROWS || c < 0 || c >= DistanceTable.COLS)
+            throw new IllegalArgumentException("row " + r + ", column " + c + " is off the board");
+        return DistanceTable.cell(r, c);
+    }
+
+    /**
+     * The lines of a block that follows a setting, which must be printable ASCII.
+     */
+    private static List<String> block(String[] lines, int from, int count) {
+        if(from + count > lines.length) throw new IllegalArgumentException("expected " + count + " lines");
+        List<String> block = new ArrayList<>();
+        for(int i = from; i < from + count; i++) {
+            for(char c: lines[i].toCharArray())
+                if(c < ' ' || c > '~') throw new IllegalArgumentException("line " + (i + 1) + " has a character that cannot be drawn");
+            block.add(lines[i]);
+        }
+        return block;
+    }
+
+    private static List<String> withNewlines(List<String> lines) {
+        List<String> result = new ArrayList<>();
+        for(String line: lines) result.add(line + "\n");
+        return result;
+    }
+
+    /**
+     * Write the standard layout as a layout file, as a starting point for other layouts.
+     * @return the text of the file
+     */
+    public static String standardText() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("# The Cluedo board\n");
+        sb.append("name Standard\n");
+        sb.append("rooms ").append(BoardLayout.ROOM_LETTERS).append('\n');
+        for(int i = 0; i < BoardLayout.STANDARD_STARTS.length; i++) {
+            int cell = BoardLayout.STANDARD_STARTS[i];
+            sb.append("start ").append(cell / DistanceTable.COLS).append(' ').append(cell % DistanceTable.COLS)
+                    .append("  # ").append(Game.CHARACTER_NAMES[i]).append('\n');
+        }
+        BoardLayout.STANDARD_DOORS.entrySet().stream().sorted(Map.Entry.comparingByKey()).forEach(door ->
+                sb.append("door ").append(door.getKey() / DistanceTable.COLS).append(' ')
+                        .append(door.getKey() % DistanceTable.COLS).append(' ').append(door.getValue()).append('\n'));
+        sb.append("tiles\n");
+        for(int row = 0; row < DistanceTable.ROWS; row++)
+            sb.append(BoardLayout.STANDARD_TILES, row * DistanceTable.COLS, (row + 1) * DistanceTable.COLS).append('\n');
+        sb.append("lines\n");
+        for(String line: BoardLayout.STANDARD_LINES) sb.append(line);
+        sb.append("key\n");
+        for(String line: BoardLayout.STANDARD_KEY) sb.append(line);
+        return sb.toString();
+    }
+
+    /**
+     * Compile layout files, or write the standard layout as a file.
+     *
+     * @param args layout files to compile, or "standard" and the file to write it to
+     * @throws IOException if a file cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        if(args.length == 2 && args[0].equals("standard")) {
+            Files.write(Paths.get(args[1]), standardText().getBytes(StandardCharsets.US_ASCII));
+            return;
+        }
+        for(String arg: args) {
+            Path file = Paths.get(arg);
+            try {
+                long start = System.nanoTime();
+                BoardLayout layout = load(file);
+                long loaded = System.nanoTime();
+                load(file);
+                long again = System.nanoTime();
+                System.out.printf("%s: %s, loaded in %.0f us, from %s in %.0f us%n", file, layout.getName(),
+                        (loaded - start) / 1e3, compiledPath(file).getFileName(), (again - loaded) / 1e3);
+            }catch(IllegalArgumentException | IOException e) {
+                System.out.println(file + ": " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package Cluedo.Monitoring;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A player has made an accusation.
+ */
+@Name("cluedo.Accusation")
+@Label("Accusation")
+@Category("Cluedo")
+@Description("A player has made an accusation")
+public class AccusationEvent extends Event {
+    @Label("Player")
+    private int player;
+    @Label("Character")
+    private String person;
+    @Label("Weapon")
+    private String weapon;
+    @Label("Room")
+    private String room;
+
+    /**
+     * Record an accusation, if accusation events are being recorded.
+     *
+     * @param player index of the player
+     * @param person name of the accused character
+     * @param weapon name of the accused weapon
+     * @param room name of the accused room
+     */
+    public static void emit(int player, String person, String weapon, String room) {
+        AccusationEvent event = new AccusationEvent();
+        if(!event.shouldCommit()) return;
+        event.player = player;
+        event.person = person;
+        event.weapon = weapon;
+        event.room = room;
+        event.commit();
+    }
+}
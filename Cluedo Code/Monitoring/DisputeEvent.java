@@ -0,0 +1,39 @@
+package Cluedo.Monitoring;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * An accusation has been disputed, or nobody could dispute it.
+ */
+@Name("cluedo.Dispute")
+@Label("Dispute")
+@Category("Cluedo")
+@Description("An accusation has been disputed, or nobody could dispute it")
+public class DisputeEvent extends Event {
+    @Label("Accuser")
+    private int accuser;
+    @Label("Disputer")
+    @Description("Index of the disputing player, or -1 if nobody could dispute the accusation")
+    private int disputer;
+    @Label("Card Shown")
+    private String card;
+
+    /**
+     * Record a dispute, if dispute events are being recorded.
+     *
+     * @param accuser index of the accusing player
+     * @param disputer index of the disputing player, or -1
+     * @param card name of the card shown, or null
+     */
+    public static void emit(int accuser, int disputer, String card) {
+        DisputeEvent event = new DisputeEvent();
+        if(!event.shouldCommit()) return;
+        event.accuser = accuser;
+        event.disputer = disputer;
+        event.card = card;
+        event.commit();
+    }
+}
@@ -0,0 +1,80 @@
+package Cluedo.Monitoring;
+import jdk.jfr.FlightRecorder;
+
+/**
+ * Starts the game's JDK Flight Recorder events, only once the flight recorder is running.
+ *
+ * Registering an event class with the recorder takes a few hundred milliseconds, so the event classes
+ * are not used at all (and so not registered) until a recording has been started, with
+ * -XX:StartFlightRecording or jcmd JFR.start. From then on each event is recorded when a recording asks for it.
+ */
+public final class FlightEvents {
+    private FlightEvents() {
+    }
+
+    /**
+     * Check whether the flight recorder has been started in this process.
+     * @return true once events can be recorded
+     */
+    public static boolean isActive() {
+        return FlightRecorder.isInitialized();
+    }
+
+    /**
+     * Start timing a turn.
+     * @return the event to end when the turn ends, or null if the flight recorder is not running
+     */
+    public static TurnEvent beginTurn() {
+        if(!isActive()) return null;
+        TurnEvent event = new TurnEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Start timing a step.
+     * @return the event to end after the step, or null if the flight recorder is not running
+     */
+    public static StepEvent beginStep() {
+        if(!isActive()) return null;
+        StepEvent event = new StepEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Start timing drawing the board.
+     * @return the event to end after drawing, or null if the flight recorder is not running
+     */
+    public static RenderEvent beginRender() {
+        if(!isActive()) return null;
+        RenderEvent event = new RenderEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Start timing a wait for input.
+     * @return the event to end when the input arrives, or null if the flight recorder is not running
+     */
+    public static InputEvent beginInput() {
+        if(!isActive()) return null;
+        InputEvent event = new InputEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Record an accusation (see AccusationEvent.emit), if the flight recorder is running.
+     */
+    public static void accusation(int player, String person, String weapon, String room) {
+        if(isActive()) AccusationEvent.emit(player, person, weapon, room);
+    }
+
+    /**
+     * Record a dispute (see DisputeEvent.emit), if the flight recorder is running.
+     */
+    public static void dispute(int accuser, int disputer, String card) {
+        if(isActive()) DisputeEvent.emit(accuser, disputer, card);
+    }
+}
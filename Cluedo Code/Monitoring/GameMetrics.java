@@ -0,0 +1,148 @@
+package Cluedo.Monitoring;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency histograms of the games that share them, such as every game of a server.
+ * Games record into them from their own threads without locking (see Game.setMetrics);
+ * a game without metrics does not read the clock at all.
+ */
+public class GameMetrics {
+    private final long startNanos = System.nanoTime();
+    private final LongAdder turns = new LongAdder();
+    private final LongAdder steps = new LongAdder();
+    private final LongAdder refusedSteps = new LongAdder();
+    private final LongAdder accusations = new LongAdder();
+    private final LongAdder disputes = new LongAdder();
+    private final LatencyHistogram turnTime = new LatencyHistogram();
+    private final LatencyHistogram renderTime = new LatencyHistogram();
+    private final LatencyHistogram inputWait = new LatencyHistogram();
+
+    /**
+     * A turn has ended.
+     * @param nanos how long the turn took
+     */
+    public void turnEnded(long nanos) {
+        turns.increment();
+        turnTime.record(nanos);
+    }
+
+    /**
+     * A player has tried to move a square, or along a whole move typed at once.
+     * @param squares the squares moved, or 0 if the board refused the move
+     */
+    public void stepped(int squares) {
+        if(squares > 0) steps.add(squares);
+        else refusedSteps.increment();
+    }
+
+    /**
+     * The board has been drawn.
+     * @param nanos how long drawing and printing it took
+     */
+    public void rendered(long nanos) {
+        renderTime.record(nanos);
+    }
+
+    /**
+     * A player's answer has been read.
+     * @param nanos how long the game waited for it
+     */
+    public void inputWaited(long nanos) {
+        inputWait.record(nanos);
+    }
+
+    /**
+     * A player has made an accusation.
+     * @param disputed whether another player disputed it
+     */
+    public void accused(boolean disputed) {
+        accusations.increment();
+        if(disputed) disputes.increment();
+    }
+
+    /**
+     * Copy the metrics. This only reads counters, so it can be called as often as needed while games run.
+     * @return the copy
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(System.nanoTime() - startNanos, turns.sum(), steps.sum(), refusedSteps.sum(),
+                accusations.sum(), disputes.sum(), turnTime.snapshot(), renderTime.snapshot(), inputWait.snapshot());
+    }
+
+    /**
+     * The metrics at one moment, counted from when the metrics were created.
+     */
+    public static class Snapshot {
+        private final long elapsedNanos;
+        private final long turns, steps, refusedSteps, accusations, disputes;
+        private final LatencyHistogram.Snapshot turnTime, renderTime, inputWait;
+
+        private Snapshot(long elapsedNanos, long turns, long steps, long refusedSteps, long accusations, long disputes,
+                         LatencyHistogram.Snapshot turnTime, LatencyHistogram.Snapshot renderTime,
+                         LatencyHistogram.Snapshot inputWait) {
+            this.elapsedNanos = elapsedNanos;
+            this.turns = turns;
+            this.steps = steps;
+            this.refusedSteps = refusedSteps;
+            this.accusations = accusations;
+            this.disputes = disputes;
+            this.turnTime = turnTime;
+            this.renderTime = renderTime;
+            this.inputWait = inputWait;
+        }
+
+        /**
+         * Get what happened between an earlier snapshot of the same metrics and this one.
+         * @param earlier the earlier snapshot
+         * @return the difference
+         */
+        public Snapshot since(Snapshot earlier) {
+            return new Snapshot(elapsedNanos - earlier.elapsedNanos, turns - earlier.turns, steps - earlier.steps,
+                    refusedSteps - earlier.refusedSteps, accusations - earlier.accusations, disputes - earlier.disputes,
+                    turnTime.since(earlier.turnTime), renderTime.since(earlier.renderTime), inputWait.since(earlier.inputWait));
+        }
+
+        /** Get the time covered, in nanoseconds. */
+        public long getElapsedNanos() { return elapsedNanos; }
+
+        /** Get the number of turns ended. */
+        public long getTurns() { return turns; }
+
+        /** Get the number of squares moved. */
+        public long getSteps() { return steps; }
+
+        /** Get the number of steps the board refused. */
+        public long getRefusedSteps() { return refusedSteps; }
+
+        /** Get the number of accusations. */
+        public long getAccusations() { return accusations; }
+
+        /** Get the number of accusations that were disputed. */
+        public long getDisputes() { return disputes; }
+
+        /** Get the squares moved per second. */
+        public double getStepsPerSecond() { return elapsedNanos == 0 ? 0 : steps * 1e9 / elapsedNanos; }
+
+        /** Get how long turns took. */
+        public LatencyHistogram.Snapshot getTurnTime() { return turnTime; }
+
+        /** Get how long drawing the board took. */
+        public LatencyHistogram.Snapshot getRenderTime() { return renderTime; }
+
+        /** Get how long games waited for their players' answers. */
+        public LatencyHistogram.Snapshot getInputWait() { return inputWait; }
+
+        /**
+         * Summarise the metrics on one line, with times in microseconds.
+         * @return the summary
+         */
+        public String toString() {
+            return String.format("turns=%d steps=%d refused=%d steps/s=%.1f accusations=%d disputed=%d"
+                            + " render_us p50=%d p99=%d input_wait_us p50=%d p99=%d turn_us p50=%d p99=%d",
+                    turns, steps, refusedSteps, getStepsPerSecond(), accusations, disputes,
+                    renderTime.percentile(50) / 1000, renderTime.percentile(99) / 1000,
+                    inputWait.percentile(50) / 1000, inputWait.percentile(99) / 1000,
+                    turnTime.percentile(50) / 1000, turnTime.percentile(99) / 1000);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package Cluedo.Monitoring;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Waiting for the next word typed by a player.
+ * There is one for every word, so it is only recorded when turned on in the recording's settings.
+ */
+@Name("cluedo.InputWait")
+@Label("Input Wait")
+@Category("Cluedo")
+@Description("Waiting for the next word typed by the player whose turn it is")
+@Enabled(false)
+@StackTrace(false)
+public class InputEvent extends Event {
+    @Label("Player")
+    private int player;
+
+    /**
+     * End the wait, recording it if input events are being recorded.
+     * @param player index of the player whose turn it is
+     */
+    public void end(int player) {
+        if(!shouldCommit()) return;
+        this.player = player;
+        commit();
+    }
+}
@@ -0,0 +1,104 @@
+package Cluedo.Monitoring;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts of durations in nanoseconds, in buckets a quarter of a power of two wide (so a percentile
+ * is within 25% of the true value), that any number of threads can record into without locking.
+ */
+public class LatencyHistogram {
+    /** Bits of each duration, after its leading one, that pick its bucket within a power of two. */
+    private static final int SUB_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = 64 * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    /**
+     * Record a duration.
+     * @param nanos the duration in nanoseconds (negative counts as 0)
+     */
+    public void record(long nanos) {
+        counts.incrementAndGet(bucket(Math.max(0, nanos)));
+    }
+
+    /**
+     * Get the bucket of a duration: durations below SUB_BUCKETS have their own,
+     * and each power of two above is split into SUB_BUCKETS.
+     */
+    static int bucket(long nanos) {
+        if(nanos < SUB_BUCKETS) return (int) nanos;
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int sub = (int) (nanos >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Get the longest duration that falls in a bucket.
+     */
+    static long upperBound(int bucket) {
+        if(bucket < SUB_BUCKETS) return bucket;
+        int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+        long start = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (exponent - SUB_BITS);
+        return start + (1L << (exponent - SUB_BITS)) - 1;
+    }
+
+    /**
+     * Copy the counts. Durations recorded while the copy is made may or may not be in it.
+     * @return the copy
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        for(int i = 0; i < BUCKETS; i++) copy[i] = counts.get(i);
+        return new Snapshot(copy);
+    }
+
+    /**
+     * The counts of a histogram at one moment.
+     */
+    public static class Snapshot {
+        private final long[] counts;
+        private final long count;
+
+        private Snapshot(long[] counts) {
+            this.counts = counts;
+            long count = 0;
+            for(long c: counts) count += c;
+            this.count = count;
+        }
+
+        /**
+         * Get the number of durations recorded.
+         * @return the count
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Get a percentile of the durations.
+         * @param percent the percentile, from 0 to 100
+         * @return the upper bound of the bucket holding it, in nanoseconds, or 0 if nothing was recorded
+         */
+        public long percentile(double percent) {
+            if(count == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(count * percent / 100));
+            long seen = 0;
+            for(int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if(seen >= rank) return upperBound(i);
+            }
+            return upperBound(BUCKETS - 1);
+        }
+
+        /**
+         * Get the durations recorded since an earlier snapshot of the same histogram.
+         * @param earlier the earlier snapshot
+         * @return the difference
+         */
+        public Snapshot since(Snapshot earlier) {
+            long[] difference = new long[BUCKETS];
+            for(int i = 0; i < BUCKETS; i++) difference[i] = counts[i] - earlier.counts[i];
+            return new Snapshot(difference);
+        }
+    }
+}
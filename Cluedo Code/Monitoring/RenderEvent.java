@@ -0,0 +1,30 @@
+package Cluedo.Monitoring;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Drawing the board (Board.drawBoard) and printing it.
+ */
+@Name("cluedo.Render")
+@Label("Render")
+@Category("Cluedo")
+@Description("Drawing the board and printing it")
+@StackTrace(false)
+public class RenderEvent extends Event {
+    @Label("Player")
+    private int player;
+
+    /**
+     * End the drawing, recording it if render events are being recorded.
+     * @param player index of the player whose turn it is
+     */
+    public void end(int player) {
+        if(!shouldCommit()) return;
+        this.player = player;
+        commit();
+    }
+}
@@ -0,0 +1,50 @@
+package Cluedo.Monitoring;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One step of a player's move (Board.movePerson), or a whole move typed at once (Board.movePersonAlong),
+ * whether or not the board allowed it. There is one for nearly every square moved, so it is only recorded when turned on in the recording's settings.
+ */
+@Name("cluedo.Step")
+@Label("Step")
+@Category("Cluedo")
+@Description("One square of a player's move, or a whole move typed at once")
+@Enabled(false)
+@StackTrace(false)
+public class StepEvent extends Event {
+    @Label("Player")
+    private int player;
+    @Label("Move")
+    private String move;
+    @Label("From Square")
+    private int fromCell;
+    @Label("To Square")
+    private int toCell;
+    @Label("Moved")
+    private boolean moved;
+
+    /**
+     * End the step, recording it if step events are being recorded.
+     *
+     * @param player index of the player
+     * @param move w, a, s or d, or a whole move such as wwdds
+     * @param fromCell the square the player was on, as a DistanceTable cell
+     * @param toCell the square the player is on now
+     * @param moved false if the board refused the step or move
+     */
+    public void end(int player, String move, int fromCell, int toCell, boolean moved) {
+        if(!shouldCommit()) return;
+        this.player = player;
+        this.move = move;
+        this.fromCell = fromCell;
+        this.toCell = toCell;
+        this.moved = moved;
+        commit();
+    }
+}
@@ -0,0 +1,41 @@
+package Cluedo.Monitoring;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A player's turn in Game.run, from its start to the player's last move, accusation or envelope check.
+ */
+@Name("cluedo.Turn")
+@Label("Turn")
+@Category("Cluedo")
+@Description("A player's turn, including the time spent waiting for the player")
+public class TurnEvent extends Event {
+    @Label("Player")
+    private int player;
+    @Label("Dice Total")
+    private int dice;
+    @Label("Steps")
+    private int steps;
+    @Label("Won")
+    private boolean won;
+
+    /**
+     * End the turn, recording it if turn events are being recorded.
+     *
+     * @param player index of the player
+     * @param dice the total of the two dice
+     * @param steps squares the player moved
+     * @param won whether the player won
+     */
+    public void end(int player, int dice, int steps, boolean won) {
+        if(!shouldCommit()) return;
+        this.player = player;
+        this.dice = dice;
+        this.steps = steps;
+        this.won = won;
+        commit();
+    }
+}
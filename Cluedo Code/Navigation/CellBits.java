@@ -0,0 +1,124 @@
+package Cluedo.Navigation;
+
+/**
+ * Operations on sets of board squares stored as bits in a long[] of WORDS words.
+ * Square row * 24 + col is bit (cell & 63) of word (cell >> 6).
+ */
+public final class CellBits {
+    /** Number of longs needed for the 600 squares. */
+    public static final int WORDS = (DistanceTable.CELLS + 63) >>> 6;
+
+    /** Squares in the first column, which have no neighbour to the left. */
+    private static final long[] FIRST_COL = new long[WORDS];
+    /** Squares in the last column, which have no neighbour to the right. */
+    private static final long[] LAST_COL = new long[WORDS];
+    /** Bits that stand for squares on the board. */
+    private static final long[] BOARD = new long[WORDS];
+
+    static {
+        for(int cell = 0; cell < DistanceTable.CELLS; cell++) {
+            set(BOARD, cell);
+            if(cell % DistanceTable.COLS == 0) set(FIRST_COL, cell);
+            if(cell % DistanceTable.COLS == DistanceTable.COLS - 1) set(LAST_COL, cell);
+        }
+    }
+
+    private CellBits() {
+    }
+
+    /**
+     * Create an empty set.
+     * @return a new set
+     */
+    public static long[] create() {
+        return new long[WORDS];
+    }
+
+    /** Add a square to a set. */
+    public static void set(long[] bits, int cell) {
+        bits[cell >>> 6] |= 1L << cell;
+    }
+
+    /** Remove a square from a set. */
+    public static void clear(long[] bits, int cell) {
+        bits[cell >>> 6] &= ~(1L << cell);
+    }
+
+    /** Check whether a square is in a set. */
+    public static boolean get(long[] bits, int cell) {
+        return (bits[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    /** Copy a set into another array. */
+    public static void copy(long[] from, long[] to) {
+        System.arraycopy(from, 0, to, 0, WORDS);
+    }
+
+    /** Remove every square from a set. */
+    public static void clearAll(long[] bits) {
+        for(int i = 0; i < WORDS; i++) bits[i] = 0;
+    }
+
+    /** Check whether a set has no squares. */
+    public static boolean isEmpty(long[] bits) {
+        for(int i = 0; i < WORDS; i++) if(bits[i] != 0) return false;
+        return true;
+    }
+
+    /** Check whether two sets have a square in common. */
+    public static boolean intersects(long[] a, long[] b) {
+        for(int i = 0; i < WORDS; i++) if((a[i] & b[i]) != 0) return true;
+        return false;
+    }
+
+    /** Count the squares in a set. */
+    public static int count(long[] bits) {
+        int count = 0;
+        for(int i = 0; i < WORDS; i++) count += Long.bitCount(bits[i]);
+        return count;
+    }
+
+    /**
+     * Get the first square in a set from a square onwards.
+     * @param bits the set
+     * @param from the first square to look at
+     * @return the square, or -1 if there is none
+     */
+    public static int next(long[] bits, int from) {
+        int word = from >>> 6;
+        if(word >= WORDS) return -1;
+        long w = bits[word] & (-1L << from);
+        while(true) {
+            if(w != 0) return (word << 6) + Long.numberOfTrailingZeros(w);
+            if(++word == WORDS) return -1;
+            w = bits[word];
+        }
+    }
+
+    /**
+     * Add every neighbour (up, down, left, right) of the squares in a set, keeping only the squares in a mask.
+     * to = (from + neighbours of from) & mask
+     *
+     * @param from the set of squares (not changed)
+     * @param mask the squares that may be added
+     * @param to where the result is written; must not be the same array as from
+     * @return true if the result has squares that were not in from
+     */
+    public static boolean expand(long[] from, long[] mask, long[] to) {
+        boolean grew = false;
+        for(int i = 0; i < WORDS; i++) {
+            long w = from[i];
+            long prev = i > 0 ? from[i - 1] : 0;
+            long next = i < WORDS - 1 ? from[i + 1] : 0;
+            // square c moves to c + 1 (right), c - 1 (left), c + 24 (down) and c - 24 (up)
+            long right = ((w << 1) | (prev >>> 63)) & ~FIRST_COL[i];
+            long left = ((w >>> 1) | (next << 63)) & ~LAST_COL[i];
+            long down = (w << DistanceTable.COLS) | (prev >>> (64 - DistanceTable.COLS));
+            long up = (w >>> DistanceTable.COLS) | (next << (64 - DistanceTable.COLS));
+            long result = (w | ((right | left | down | up) & mask[i])) & BOARD[i];
+            if(result != w) grew = true;
+            to[i] = result;
+        }
+        return grew;
+    }
+}
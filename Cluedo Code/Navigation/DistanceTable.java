@@ -0,0 +1,303 @@
+package Cluedo.Navigation;
+import Cluedo.Tiles.DoorTile;
+import Cluedo.Tiles.HallTile;
+import Cluedo.Tiles.RoomTile;
+import Cluedo.Tiles.Tile;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shortest numbers of steps between all the squares of the board, worked out once when the board is built.
+ *
+ * Squares are numbered row * 24 + col (see cell()).
+ * Every HallTile and DoorTile is a node of the graph, and each room is a single node,
+ * so every RoomTile of a room has the same distances.
+ * The edges follow Board.movePerson: a step between neighbouring hall or door tiles,
+ * a step from a door into a neighbouring RoomTile (which ends the move),
+ * and a step out of a room through one of the room's doors (Board.teleportPersonToDoor).
+ * A path never passes through a room, because entering a room ends the move.
+ */
+public class DistanceTable {
+    public static final int ROWS = 25;
+    public static final int COLS = 24;
+    public static final int CELLS = ROWS * COLS;
+
+    /** Distance stored for squares that cannot be reached. */
+    public static final int UNREACHABLE = -1;
+
+    /** Graph node of each square: hall and door tiles first, then one node per room; -1 for blocked tiles. */
+    private final short[] nodeOfCell = new short[CELLS];
+    /** Number of hall and door nodes (room nodes come after them). */
+    private final int hallNodes;
+    /** Total number of nodes. */
+    private final int nodes;
+    /** distance[from * nodes + to] is the number of steps, or UNREACHABLE. */
+    private final short[] distance;
+    /** nextCell[from * nodes + to] is the square of the first step, or -1. */
+    private final short[] nextCell;
+
+    /**
+     * Build the table for a board.
+     *
+     * @param tiles the tiles of the board
+     * @param roomDoors the doors of each room by door number, in the same order as Game.ROOM_NAMES
+     */
+    public DistanceTable(Tile[][] tiles, List<Map<Integer, DoorTile>> roomDoors) {
+        int count = 0;
+        for(int cell = 0; cell < CELLS; cell++) {
+            Tile tile = tiles[cell / COLS][cell % COLS];
+            nodeOfCell[cell] = (tile instanceof HallTile || tile instanceof DoorTile) ? (short) count++ : -1;
+        }
+        hallNodes = count;
+        nodes = hallNodes + roomDoors.size();
+        for(int cell = 0; cell < CELLS; cell++) {
+            Tile tile = tiles[cell / COLS][cell % COLS];
+            if(tile instanceof RoomTile) nodeOfCell[cell] = (short) (hallNodes + ((RoomTile) tile).getRoomIndex());
+        }
+
+        // adjacency in compressed rows: the edges of node u are edgeNode/edgeCell[edgeStart[u] .. edgeStart[u + 1]),
+        // where edgeCell is the square the player lands on
+        int[] edgeStart = new int[nodes + 1];
+        // at most four edges per hall or door tile, and one per door out of each room
+        int edgeLimit = hallNodes * 4;
+        for(Map<Integer, DoorTile> doors: roomDoors) edgeLimit += doors.size();
+        int[] edgeNode = new int[edgeLimit];
+        short[] edgeCell = new short[edgeNode.length];
+        int edges = 0;
+        int node = 0;
+        for(int cell = 0; cell < CELLS; cell++) {
+            if(nodeOfCell[cell] < 0 || nodeOfCell[cell] >= hallNodes) continue;
+            edgeStart[node++] = edges;
+            boolean door = tiles[cell / COLS][cell % COLS] instanceof DoorTile;
+            int row = cell / COLS, col = cell % COLS;
+            for(int d = 0; d < 4; d++) {
+                int r = row + ROW_STEP[d], c = col + COL_STEP[d];
+                if(r < 0 || r >= ROWS || c < 0 || c >= COLS) continue;
+                int target = nodeOfCell[r * COLS + c];
+                if(target < 0 || (target >= hallNodes && !door)) continue;
+                edgeNode[edges] = target;
+                edgeCell[edges++] = (short) (r * COLS + c);
+            }
+        }
+        for(int room = 0; room < roomDoors.size(); room++) {
+            edgeStart[hallNodes + room] = edges;
+            for(DoorTile door: roomDoors.get(room).values()) {
+                int cell = cell(door.getRow(), door.getCol());
+                edgeNode[edges] = nodeOfCell[cell];
+                edgeCell[edges++] = (short) cell;
+            }
+        }
+        edgeStart[nodes] = edges;
+
+        distance = new short[nodes * nodes];
+        nextCell = new short[nodes * nodes];
+        int[] queue = new int[nodes];
+        for(int from = 0; from < nodes; from++) {
+            int base = from * nodes;
+            for(int to = 0; to < nodes; to++) {
+                distance[base + to] = UNREACHABLE;
+                nextCell[base + to] = -1;
+            }
+            distance[base + from] = 0;
+            int head = 0, tail = 0;
+            queue[tail++] = from;
+            while(head < tail) {
+                int u = queue[head++];
+                // rooms are only left at the start of a path
+                if(u >= hallNodes && u != from) continue;
+                for(int e = edgeStart[u]; e < edgeStart[u + 1]; e++) {
+                    int v = edgeNode[e];
+                    if(distance[base + v] != UNREACHABLE) continue;
+                    distance[base + v] = (short) (distance[base + u] + 1);
+                    nextCell[base + v] = u == from ? edgeCell[e] : nextCell[base + u];
+                    queue[tail++] = v;
+                }
+            }
+        }
+    }
+
+    private DistanceTable(short[] nodeOfCell, int hallNodes, int nodes, short[] distance, short[] nextCell) {
+        System.arraycopy(nodeOfCell, 0, this.nodeOfCell, 0, CELLS);
+        this.hallNodes = hallNodes;
+        this.nodes = nodes;
+        this.distance = distance;
+        this.nextCell = nextCell;
+    }
+
+    /**
+     * Write the table into a buffer, for a compiled layout (see BoardLayout.encode).
+     * @param buffer the buffer, with at least byteSize() bytes remaining
+     */
+    public void write(ByteBuffer buffer) {
+        buffer.putShort((short) hallNodes).putShort((short) nodes);
+        buffer.asShortBuffer().put(nodeOfCell);
+        buffer.position(buffer.position() + 2 * CELLS);
+        buffer.asShortBuffer().put(distance);
+        buffer.position(buffer.position() + 2 * distance.length);
+        buffer.asShortBuffer().put(nextCell);
+        buffer.position(buffer.position() + 2 * nextCell.length);
+    }
+
+    /**
+     * Get the number of bytes written by write.
+     * @return the size of the table
+     */
+    public int byteSize() {
+        return 4 + 2 * CELLS + 4 * nodes * nodes;
+    }
+
+    /**
+     * Read a table written by write.
+     *
+     * @param buffer the buffer, left after the table
+     * @return the table
+     * @throws IllegalArgumentException if the table is not well formed
+     */
+    public static DistanceTable read(ByteBuffer buffer) {
+        int hallNodes = buffer.getShort(), nodes = buffer.getShort();
+        if(hallNodes < 0 || hallNodes > CELLS || nodes < hallNodes || nodes > CELLS)
+            throw new IllegalArgumentException("Bad number of squares in the distance table");
+        short[] nodeOfCell = new short[CELLS];
+        buffer.asShortBuffer().get(nodeOfCell);
+        buffer.position(buffer.position() + 2 * CELLS);
+        for(short node: nodeOfCell)
+            if(node < -1 || node >= nodes) throw new IllegalArgumentException("Bad square in the distance table");
+        short[] distance = new short[nodes * nodes];
+        buffer.asShortBuffer().get(distance);
+        buffer.position(buffer.position() + 2 * distance.length);
+        for(short steps: distance)
+            if(steps < UNREACHABLE) throw new IllegalArgumentException("Bad distance in the distance table");
+        short[] nextCell = new short[nodes * nodes];
+        buffer.asShortBuffer().get(nextCell);
+        buffer.position(buffer.position() + 2 * nextCell.length);
+        for(short cell: nextCell)
+            if(cell < -1 || cell >= CELLS) throw new IllegalArgumentException("Bad step in the distance table");
+        return new DistanceTable(nodeOfCell, hallNodes, nodes, distance, nextCell);
+    }
+
+    private static final int[] ROW_STEP = {-1, 0, 1, 0};
+    private static final int[] COL_STEP = {0, -1, 0, 1};
+
+    /**
+     * Get the number of a square.
+     * @param row row index
+     * @param col column index
+     * @return row * 24 + col
+     */
+    public static int cell(int row, int col) {
+        return row * COLS + col;
+    }
+
+    /**
+     * Get the number of steps between two squares.
+     * Every square of a room counts as the room itself.
+     *
+     * @param fromCell the starting square
+     * @param toCell the target square
+     * @return the number of steps, or UNREACHABLE
+     */
+    public int distance(int fromCell, int toCell) {
+        int from = nodeOfCell[fromCell], to = nodeOfCell[toCell];
+        if(from < 0 || to < 0) return UNREACHABLE;
+        return distance[from * nodes + to];
+    }
+
+    /**
+     * Get the number of steps from a square into a room.
+     *
+     * @param fromCell the starting square
+     * @param room index of the room (order of Game.ROOM_NAMES)
+     * @return the number of steps, or UNREACHABLE
+     */
+    public int distanceToRoom(int fromCell, int room) {
+        int from = nodeOfCell[fromCell];
+        if(from < 0) return UNREACHABLE;
+        return distance[from * nodes + hallNodes + room];
+    }
+
+    /**
+     * Get the first step of a shortest path between two squares.
+     * The step out of a room is the door square; the step into a room is the RoomTile next to the door.
+     *
+     * @param fromCell the starting square
+     * @param toCell the target square
+     * @return the square of the first step, or -1 if there is no path or the squares are the same
+     */
+    public int nextStep(int fromCell, int toCell) {
+        int from = nodeOfCell[fromCell], to = nodeOfCell[toCell];
+        if(from < 0 || to < 0) return -1;
+        return nextCell[from * nodes + to];
+    }
+
+    /**
+     * Get the first step of a shortest path from a square into a room.
+     *
+     * @param fromCell the starting square
+     * @param room index of the room (order of Game.ROOM_NAMES)
+     * @return the square of the first step, or -1 if there is no path or the square is in the room
+     */
+    public int nextStepToRoom(int fromCell, int room) {
+        int from = nodeOfCell[fromCell];
+        if(from < 0) return -1;
+        return nextCell[from * nodes + hallNodes + room];
+    }
+
+    /**
+     * Check whether a square is a HallTile or DoorTile, the squares a player can stand on outside the rooms.
+     * @param cell the square
+     * @return true for hall and door tiles
+     */
+    public boolean isWalkable(int cell) {
+        int node = nodeOfCell[cell];
+        return node >= 0 && node < hallNodes;
+    }
+
+    /**
+     * Get the room a square is in.
+     * @param cell the square
+     * @return index of the room (order of Game.ROOM_NAMES), or -1 if the square is not a RoomTile
+     */
+    public int roomOf(int cell) {
+        int node = nodeOfCell[cell];
+        return node >= hallNodes ? node - hallNodes : -1;
+    }
+
+    /**
+     * Get the number of rooms.
+     * @return number of rooms
+     */
+    public int roomCount() {
+        return nodes - hallNodes;
+    }
+
+    /**
+     * Get the node of a square; hall and door tiles are numbered from 0 in square order.
+     */
+    int node(int cell) {
+        return nodeOfCell[cell];
+    }
+
+    /**
+     * Get the number of hall and door tiles.
+     */
+    int hallNodes() {
+        return hallNodes;
+    }
+
+    /**
+     * Get the move (as typed into Game.getMove) between two neighbouring squares.
+     *
+     * @param fromCell the starting square
+     * @param toCell a neighbouring square
+     * @return w, a, s, or d; null if the squares are not neighbours
+     */
+    public static String direction(int fromCell, int toCell) {
+        int diff = toCell - fromCell;
+        if(diff == -COLS) return "w";
+        if(diff == COLS) return "s";
+        if(diff == -1 && fromCell % COLS != 0) return "a";
+        if(diff == 1 && toCell % COLS != 0) return "d";
+        return null;
+    }
+}
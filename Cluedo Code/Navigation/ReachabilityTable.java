@@ -0,0 +1,251 @@
+package Cluedo.Navigation;
+import java.nio.ByteBuffer;
+
+/**
+ * The squares and rooms a player can reach from each hall or door tile with each number of moves,
+ * worked out once from the distance table.
+ *
+ * A player may stop at any point of a move (x in Game.getMove), so the squares reachable with n moves
+ * are all the hall and door tiles within n steps, including the starting square.
+ * A room can be entered when one of its doors is within n - 1 steps, and entering a room ends the move.
+ *
+ * The table ignores the other players. A Query applies them: if none of them stand on a reachable square
+ * the stored set is used as it is, and otherwise the set is flooded again with whole-board bit operations.
+ */
+public class ReachabilityTable {
+    /** The most moves a player can have: a roll of two sixes. */
+    public static final int MAX_MOVES = 12;
+
+    private final DistanceTable distances;
+    /** Squares a player can stand on outside the rooms. */
+    private final long[] walkable = CellBits.create();
+    /** Rooms each square can step straight into (bit i for room i); only door tiles have any. */
+    private final short[] enterRooms = new short[DistanceTable.CELLS];
+    /** reach[((node * (MAX_MOVES + 1)) + moves) * WORDS ...] is the set of squares reachable from a hall node. */
+    private final long[] reach;
+    /** rooms[node * (MAX_MOVES + 1) + moves] is the set of rooms that can be entered. */
+    private final short[] rooms;
+
+    /**
+     * Build the table from the distances between the squares.
+     * @param distances the distance table of the board
+     */
+    public ReachabilityTable(DistanceTable distances) {
+        this.distances = distances;
+        int roomCount = distances.roomCount();
+        findEntrances();
+
+        int hallNodes = distances.hallNodes();
+        reach = new long[hallNodes * (MAX_MOVES + 1) * CellBits.WORDS];
+        rooms = new short[hallNodes * (MAX_MOVES + 1)];
+        for(int from = 0; from < DistanceTable.CELLS; from++) {
+            if(!distances.isWalkable(from)) continue;
+            int node = distances.node(from);
+            for(int to = 0; to < DistanceTable.CELLS; to++) {
+                int d = distances.distance(from, to);
+                if(d == DistanceTable.UNREACHABLE || d > MAX_MOVES || !distances.isWalkable(to)) continue;
+                for(int moves = d; moves <= MAX_MOVES; moves++) {
+                    int index = ((node * (MAX_MOVES + 1)) + moves) * CellBits.WORDS + (to >>> 6);
+                    reach[index] |= 1L << to;
+                }
+            }
+            for(int room = 0; room < roomCount; room++) {
+                int d = distances.distanceToRoom(from, room);
+                if(d == DistanceTable.UNREACHABLE) continue;
+                for(int moves = d; moves <= MAX_MOVES; moves++) rooms[node * (MAX_MOVES + 1) + moves] |= 1 << room;
+            }
+        }
+    }
+
+    private ReachabilityTable(DistanceTable distances, long[] reach, short[] rooms) {
+        this.distances = distances;
+        this.reach = reach;
+        this.rooms = rooms;
+        findEntrances();
+    }
+
+    /**
+     * Fill in the walkable squares and the rooms each square can step straight into.
+     */
+    private void findEntrances() {
+        int roomCount = distances.roomCount();
+        for(int cell = 0; cell < DistanceTable.CELLS; cell++) {
+            if(!distances.isWalkable(cell)) continue;
+            CellBits.set(walkable, cell);
+            for(int room = 0; room < roomCount; room++)
+                if(distances.distanceToRoom(cell, room) == 1) enterRooms[cell] |= 1 << room;
+        }
+    }
+
+    /**
+     * Write the table into a buffer, for a compiled layout (see BoardLayout.encode).
+     * Only the sets reachable from each square are written; the rest is worked out again by read.
+     * @param buffer the buffer, with at least byteSize() bytes remaining
+     */
+    public void write(ByteBuffer buffer) {
+        buffer.asLongBuffer().put(reach);
+        buffer.position(buffer.position() + 8 * reach.length);
+        buffer.asShortBuffer().put(rooms);
+        buffer.position(buffer.position() + 2 * rooms.length);
+    }
+
+    /**
+     * Get the number of bytes written by write.
+     * @return the size of the table
+     */
+    public int byteSize() {
+        return 8 * reach.length + 2 * rooms.length;
+    }
+
+    /**
+     * Read a table written by write.
+     *
+     * @param buffer the buffer, left after the table
+     * @param distances the distance table the table was built from
+     * @return the table
+     */
+    public static ReachabilityTable read(ByteBuffer buffer, DistanceTable distances) {
+        int hallNodes = distances.hallNodes();
+        long[] reach = new long[hallNodes * (MAX_MOVES + 1) * CellBits.WORDS];
+        buffer.asLongBuffer().get(reach);
+        buffer.position(buffer.position() + 8 * reach.length);
+        short[] rooms = new short[hallNodes * (MAX_MOVES + 1)];
+        buffer.asShortBuffer().get(rooms);
+        buffer.position(buffer.position() + 2 * rooms.length);
+        return new ReachabilityTable(distances, reach, rooms);
+    }
+
+    /**
+     * Get the rooms that can be entered from a square when nobody is in the way.
+     *
+     * @param cell a hall or door tile
+     * @param moves number of moves (0 to 12)
+     * @return a set of rooms (bit i for room i)
+     */
+    public int rooms(int cell, int moves) {
+        return rooms[distances.node(cell) * (MAX_MOVES + 1) + moves];
+    }
+
+    /**
+     * Copy the squares that can be reached from a square when nobody is in the way.
+     *
+     * @param cell a hall or door tile
+     * @param moves number of moves (0 to 12)
+     * @param out where the set of squares is written
+     */
+    public void reachable(int cell, int moves, long[] out) {
+        System.arraycopy(reach, offset(cell, moves), out, 0, CellBits.WORDS);
+    }
+
+    /**
+     * Get the squares a player can stand on outside the rooms.
+     * @return the set of hall and door tiles (must not be changed)
+     */
+    public long[] walkable() {
+        return walkable;
+    }
+
+    private int offset(int cell, int moves) {
+        return ((distances.node(cell) * (MAX_MOVES + 1)) + moves) * CellBits.WORDS;
+    }
+
+    /**
+     * Create a query object. A query keeps its own scratch space, so it makes no allocations,
+     * but it must only be used by one thread at a time.
+     * @return a new query
+     */
+    public Query newQuery() {
+        return new Query();
+    }
+
+    /**
+     * Answers reachability questions with the other players on the board.
+     */
+    public class Query {
+        private final long[] cells = CellBits.create();
+        private final long[] free = CellBits.create();
+        private final long[] front = CellBits.create();
+        private final long[] back = CellBits.create();
+        private int enterable;
+
+        private Query() {
+        }
+
+        /**
+         * Work out where a player on a hall or door tile can go.
+         *
+         * @param cell the square the player is on
+         * @param moves number of moves (0 to 12)
+         * @param occupied squares with someone on them (the player's own square is ignored)
+         */
+        public void fromCell(int cell, int moves, long[] occupied) {
+            int offset = offset(cell, moves);
+            boolean blocked = false;
+            for(int i = 0; i < CellBits.WORDS; i++) {
+                long others = occupied[i];
+                if(i == cell >>> 6) others &= ~(1L << cell);
+                if((reach[offset + i] & others) != 0) blocked = true;
+            }
+            if(!blocked) {
+                System.arraycopy(reach, offset, cells, 0, CellBits.WORDS);
+                enterable = rooms[distances.node(cell) * (MAX_MOVES + 1) + moves];
+                return;
+            }
+            CellBits.clearAll(cells);
+            enterable = 0;
+            flood(cell, moves, occupied);
+        }
+
+        /**
+         * Work out where a player in a room can go: out through any free door (one move), then onwards.
+         *
+         * @param doorCells the door squares of the room
+         * @param moves number of moves (1 to 12)
+         * @param occupied squares with someone on them
+         */
+        public void fromRoom(int[] doorCells, int moves, long[] occupied) {
+            CellBits.clearAll(cells);
+            enterable = 0;
+            for(int door: doorCells)
+                if(!CellBits.get(occupied, door)) flood(door, moves - 1, occupied);
+        }
+
+        /**
+         * Add the squares reachable from a square, walking around occupied squares, to the result.
+         */
+        private void flood(int cell, int moves, long[] occupied) {
+            for(int i = 0; i < CellBits.WORDS; i++) free[i] = walkable[i] & ~occupied[i];
+            long[] current = front, other = back;
+            CellBits.clearAll(current);
+            CellBits.set(current, cell);
+            for(int step = 1; step < moves; step++) {
+                if(!CellBits.expand(current, free, other)) break;
+                long[] swap = current; current = other; other = swap;
+            }
+            if(moves > 0) {
+                // rooms are entered from a door reached with at least one move left
+                for(int door = CellBits.next(current, 0); door >= 0; door = CellBits.next(current, door + 1))
+                    enterable |= enterRooms[door];
+                CellBits.expand(current, free, other);
+                current = other;
+            }
+            for(int i = 0; i < CellBits.WORDS; i++) cells[i] |= current[i];
+        }
+
+        /**
+         * Get the squares found by the last query.
+         * @return the set of squares (reused by the next query)
+         */
+        public long[] cells() {
+            return cells;
+        }
+
+        /**
+         * Get the rooms found by the last query.
+         * @return a set of rooms (bit i for room i)
+         */
+        public int rooms() {
+            return enterable;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package Cluedo.Persistence;
+import Cluedo.Card;
+import Cluedo.Game;
+import Cluedo.GameListener;
+import Cluedo.Zobrist;
+import Cluedo.Items.MovableItem;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Records everything that happens in a game to an append-only journal file, written through a memory map.
+ *
+ * The journal starts with a snapshot of the game (SnapshotCodec) and then has one record per event:
+ *   TURN      player, hash                    a turn started; hash is the state's hash then (Game.getStateHash),
+ *                                             folded to 32 bits (Zobrist.fold), to find where a replay goes wrong
+ *   MOVE      item, cell                      a person (0 to 5) or weapon (6 to 11) moved to a square
+ *   ACCUSE    player, person, weapon, room    card indexes
+ *   DISPUTE   disputer + 1, shown + 1         0 for nobody and for no card
+ *   ENVELOPE  player, correct                 correct is 0 or 1
+ * Every record is a type byte then its fields as varints. A type byte of 0 ends the journal.
+ *
+ * The file grows a chunk at a time and is cut to its length when the journal is closed.
+ * The type byte of a record is written after its fields, so after a crash the journal ends
+ * at the last whole record (the unused part of the chunk is zeros). JournalReader replays it.
+ * The snapshot records the board's layout. Version 2 journals have a version 1 snapshot, of a game on the
+ * standard board; version 1 journals also have no hash in their TURN records.
+ */
+public class GameJournal implements GameListener, Closeable {
+    public static final byte[] MAGIC = {'C', 'L', 'J'};
+    public static final byte VERSION = 3;
+
+    public static final byte END = 0, SNAPSHOT = 1, TURN = 2, MOVE = 3, ACCUSE = 4, DISPUTE = 5, ENVELOPE = 6;
+
+    /** Longest record other than the snapshot. */
+    static final int MAX_RECORD = 1 + 4 * Varint.MAX_BYTES;
+
+    /** Bytes mapped at a time. */
+    private static final int CHUNK = 1 << 20;
+
+    private final FileChannel channel;
+    private final Game game;
+    private final MovableItem[] items = new MovableItem[12];
+    private MappedByteBuffer map;
+    /** Position of the map in the file. */
+    private long mapStart;
+    private long events;
+
+    /**
+     * Create a journal for a game, starting with a snapshot of it, and record the game's events from now on.
+     *
+     * @param file the journal file (replaced if it exists)
+     * @param game an initialised game, between turns
+     * @throws IOException if the file cannot be written
+     */
+    public GameJournal(Path file, Game game) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0, CHUNK);
+        map.put(MAGIC).put(VERSION);
+        this.game = game;
+
+        byte[] snapshot = SnapshotCodec.encode(game);
+        int start = map.position();
+        map.position(start + 1);
+        Varint.write(map, snapshot.length);
+        map.put(snapshot);
+        map.put(start, SNAPSHOT);
+
+        System.arraycopy(game.getPeople(), 0, items, 0, 6);
+        System.arraycopy(game.getWeapons(), 0, items, 6, 6);
+        game.setListener(this);
+    }
+
+    /**
+     * Get the number of events recorded (not counting the snapshot).
+     * @return the number of events
+     */
+    public long getEventCount() {
+        return events;
+    }
+
+    /**
+     * Get the length of the journal so far.
+     * @return the length in bytes
+     */
+    public long length() {
+        return mapStart + map.position();
+    }
+
+    @Override
+    public void turnStarted(int player) {
+        // the state at the start of a turn: no moves rolled yet
+        record(TURN, player, Zobrist.fold(game.getBoard().getHash() ^ Zobrist.player(player)));
+    }
+
+    @Override
+    public void itemMoved(MovableItem item, int fromCell, int toCell) {
+        record(MOVE, itemIndex(item), toCell);
+    }
+
+    @Override
+    public void accused(int player, Card person, Card weapon, Card room) {
+        record(ACCUSE, player, person.getIndex(), weapon.getIndex(), room.getIndex());
+    }
+
+    @Override
+    public void disputed(int disputer, Card shown) {
+        record(DISPUTE, disputer + 1, shown == null ? 0 : shown.getIndex() + 1);
+    }
+
+    @Override
+    public void envelopeChecked(int player, boolean correct) {
+        record(ENVELOPE, player, correct ? 1 : 0);
+    }
+
+    private int itemIndex(MovableItem item) {
+        // the people then the weapons, so an item's place is its number
+        int id = item.getId();
+        if(id >= 0 && id < items.length && items[id] == item) return id;
+        throw new IllegalArgumentException("The " + item.getName() + " is not in this game");
+    }
+
+    /**
+     * Append a record; its type byte goes in last.
+     */
+    private void record(byte type, int... fields) {
+        if(map == null) throw new IllegalStateException("The journal is closed");
+        if(map.remaining() < MAX_RECORD) nextChunk();
+        int start = map.position();
+        map.position(start + 1);
+        for(int field: fields) Varint.write(map, field);
+        map.put(start, type);
+        events++;
+    }
+
+    /**
+     * Map the next chunk of the file, starting at the end of the journal.
+     */
+    private void nextChunk() {
+        try {
+            mapStart += map.position();
+            map = channel.map(FileChannel.MapMode.READ_WRITE, mapStart, CHUNK);
+        }catch(IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Write the journal so far to the disk.
+     */
+    public void flush() {
+        map.force();
+    }
+
+    /**
+     * Stop recording and cut the file to the length of the journal.
+     * The game's listener is not removed; set it to null if the game carries on.
+     */
+    @Override
+    public void close() throws IOException {
+        long length = length();
+        map.force();
+        map = null;
+        channel.truncate(length);
+        channel.close();
+    }
+}
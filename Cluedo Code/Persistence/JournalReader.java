@@ -0,0 +1,226 @@
+package Cluedo.Persistence;
+import Cluedo.BoardLayout;
+import Cluedo.Game;
+import Cluedo.GameInput;
+import Cluedo.LayoutCompiler;
+import Cluedo.Items.MovableItem;
+import Cluedo.Zobrist;
+import Cluedo.Navigation.DistanceTable;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a journal written by GameJournal, one record at a time, through a memory-mapped window
+ * that slides along the file, so journals of any length are read without loading them onto the heap.
+ *
+ * Call next() to move to each record, and the getters for its fields. The fields of a record
+ * are only valid until the next call.
+ */
+public class JournalReader implements Closeable {
+    /** Bytes mapped at a time. */
+    private static final long WINDOW = 64L << 20;
+
+    private final FileChannel channel;
+    private final long fileLength;
+    private MappedByteBuffer map;
+    /** Position of the map in the file. */
+    private long mapStart;
+
+    private final byte version;
+    private final byte[] snapshot;
+    private byte type;
+    private final int[] fields = new int[4];
+    private long events;
+
+    /**
+     * Open a journal and read its snapshot.
+     *
+     * @param file the journal file
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the file is not a journal of a supported version
+     */
+    public JournalReader(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        fileLength = channel.size();
+        map(0);
+        for(byte b: GameJournal.MAGIC)
+            if(remaining() == 0 || map.get() != b) throw new IllegalArgumentException("Not a game journal");
+        version = remaining() > 0 ? map.get() : -1;
+        if(version < 1 || version > GameJournal.VERSION) throw new IllegalArgumentException("Unsupported journal version " + version);
+        if(remaining() == 0 || map.get() != GameJournal.SNAPSHOT)
+            throw new IllegalArgumentException("The journal has no snapshot");
+        try {
+            snapshot = new byte[Varint.read(map)];
+            map.get(snapshot);
+        }catch(BufferUnderflowException e) {
+            throw new IllegalArgumentException("The journal's snapshot is cut short");
+        }
+    }
+
+    private void map(long start) throws IOException {
+        mapStart = start;
+        map = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(WINDOW, fileLength - start));
+    }
+
+    private long remaining() {
+        return map.remaining();
+    }
+
+    /**
+     * Move to the next record.
+     * @return false at the end of the journal
+     * @throws IOException if the file cannot be read
+     */
+    public boolean next() throws IOException {
+        // slide the window along when a record might not fit in what is left of it
+        if(map.remaining() < GameJournal.MAX_RECORD && mapStart + map.limit() < fileLength)
+            map(mapStart + map.position());
+        if(!map.hasRemaining()) return false;
+        type = map.get();
+        switch(type) {
+            case GameJournal.TURN:
+                read(version == 1 ? 1 : 2);
+                break;
+            case GameJournal.MOVE:
+            case GameJournal.DISPUTE:
+            case GameJournal.ENVELOPE:
+                read(2);
+                break;
+            case GameJournal.ACCUSE:
+                read(4);
+                break;
+            case GameJournal.END:
+                map.position(map.position() - 1);
+                return false;
+            default:
+                throw new IllegalArgumentException("Bad record type " + type + " at byte " + (mapStart + map.position() - 1));
+        }
+        events++;
+        return true;
+    }
+
+    private void read(int count) {
+        for(int i = 0; i < count; i++) fields[i] = Varint.read(map);
+    }
+
+    /** Get the type of the record (GameJournal.TURN, MOVE, ACCUSE, DISPUTE or ENVELOPE). */
+    public byte type() {
+        return type;
+    }
+
+    /**
+     * Get a field of the record, in the order listed in GameJournal.
+     * @param i index of the field
+     * @return the field
+     */
+    public int field(int i) {
+        return fields[i];
+    }
+
+    /** Get the number of records read so far. */
+    public long eventIndex() {
+        return events;
+    }
+
+    /**
+     * Check the state's hash recorded with a TURN record, which version 1 journals do not have.
+     * @return true if the record has a hash (field 1)
+     */
+    public boolean hasHash() {
+        return type == GameJournal.TURN && version > 1;
+    }
+
+    /** Get the snapshot at the start of the journal. */
+    public byte[] snapshot() {
+        return snapshot;
+    }
+
+    @Override
+    public void close() throws IOException {
+        map = null;
+        channel.close();
+    }
+
+    /**
+     * Rebuild a recorded game on the standard board as it was after a number of events.
+     *
+     * @param file the journal file
+     * @param events the number of events to apply, or Long.MAX_VALUE for all of them
+     * @param in where the rebuilt game reads its players' answers
+     * @param out where the rebuilt game is printed
+     * @return the game; if it is run, it carries on from the start of the current player's turn
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the journal is damaged or of a game on another board, or the rebuilt
+     *                                  game's state does not have the hash recorded at a turn
+     */
+    public static Game replay(Path file, long events, GameInput in, PrintStream out) throws IOException {
+        return replay(file, events, BoardLayout.standard(), in, out);
+    }
+
+    /**
+     * Rebuild a recorded game as it was after a number of events.
+     *
+     * @param file the journal file
+     * @param events the number of events to apply, or Long.MAX_VALUE for all of them
+     * @param layout the layout of the game's board
+     * @param in where the rebuilt game reads its players' answers
+     * @param out where the rebuilt game is printed
+     * @return the game; if it is run, it carries on from the start of the current player's turn
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the journal is damaged or of a game on another board, or the rebuilt
+     *                                  game's state does not have the hash recorded at a turn
+     */
+    public static Game replay(Path file, long events, BoardLayout layout, GameInput in, PrintStream out) throws IOException {
+        try(JournalReader reader = new JournalReader(file)) {
+            Game game = SnapshotCodec.decode(reader.snapshot(), layout, in, out);
+            MovableItem[] items = new MovableItem[12];
+            System.arraycopy(game.getPeople(), 0, items, 0, 6);
+            System.arraycopy(game.getWeapons(), 0, items, 6, 6);
+            while(reader.eventIndex() < events && reader.next()) {
+                if(reader.type() == GameJournal.TURN) {
+                    game.setCurrentPlayer(reader.field(0));
+                    if(reader.hasHash() && Zobrist.fold(game.getStateHash()) != reader.field(1))
+                        throw new IllegalArgumentException("The rebuilt game is not as recorded at event " + reader.eventIndex());
+                }else if(reader.type() == GameJournal.MOVE) {
+                    MovableItem item = items[reader.field(0)];
+                    int cell = reader.field(1);
+                    if(!game.getBoard().placeItem(item, cell / DistanceTable.COLS, cell % DistanceTable.COLS))
+                        throw new IllegalArgumentException("The " + item.getName() + " cannot move to square " + cell
+                                + " at event " + reader.eventIndex());
+                }
+            }
+            return game;
+        }
+    }
+
+    /**
+     * Print a summary of a journal, and the board after a number of events.
+     *
+     * @param args the journal file, the number of events (default all),
+     *             and the layout file of the game's board (default the standard board)
+     * @throws IOException if a file cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        Path file = Paths.get(args[0]);
+        long events = args.length > 1 ? Long.parseLong(args[1]) : Long.MAX_VALUE;
+        long[] counts = new long[GameJournal.ENVELOPE + 1];
+        long start = System.nanoTime();
+        try(JournalReader reader = new JournalReader(file)) {
+            while(reader.next()) counts[reader.type()]++;
+            System.out.println(reader.eventIndex() + " events read in " + (System.nanoTime() - start) / 1000000 + " ms: "
+                    + counts[GameJournal.TURN] + " turns, " + counts[GameJournal.MOVE] + " moves, "
+                    + counts[GameJournal.ACCUSE] + " accusations, " + counts[GameJournal.ENVELOPE] + " envelope checks");
+        }
+        BoardLayout layout = args.length > 2 ? LayoutCompiler.load(Paths.get(args[2])) : BoardLayout.standard();
+        Game game = replay(file, events, layout, null, System.out);
+        game.getBoard().drawBoard();
+        System.out.println(game.getPlayers()[game.getCurrentPlayer()].getName() + "'s turn");
+    }
+}
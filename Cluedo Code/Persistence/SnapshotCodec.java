@@ -0,0 +1,181 @@
+package Cluedo.Persistence;
+import Cluedo.BoardLayout;
+import Cluedo.Card;
+import Cluedo.Game;
+import Cluedo.GameInput;
+import Cluedo.Items.MovableItem;
+import Cluedo.Navigation.DistanceTable;
+import Cluedo.Player;
+import java.io.PrintStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Saves the whole state of a game between turns in a few dozen bytes, and restores it.
+ *
+ * Format (version 2):
+ *   'C', version                      2 bytes
+ *   layout name                       1 byte length, then ASCII (BoardLayout.getName)
+ *   layout source CRC                 4 bytes (BoardLayout.getSourceCrc)
+ *   number of players                 varint
+ *   current player                    varint
+ *   murder character, weapon, room    1 byte each (card index)
+ *   each player's hand, in order      1 byte per card (18 / players cards each)
+ *   the extra cards                   1 byte per card (the rest of the 21)
+ *   the six characters, then the six weapons     varint DistanceTable cell each
+ *
+ * Hand sizes follow from the number of players, so they are not stored.
+ * A three player game on the standard board takes up to 62 bytes.
+ * Version 1 snapshots have no layout, and are of games on the standard board.
+ */
+public final class SnapshotCodec {
+    public static final byte MAGIC = 'C';
+    public static final byte VERSION = 2;
+
+    /** Most bytes a snapshot can take. */
+    public static final int MAX_SIZE = 2 + 1 + 255 + 4 + 2 * Varint.MAX_BYTES + 21 + 12 * Varint.MAX_BYTES;
+
+    private SnapshotCodec() {
+    }
+
+    /**
+     * Save a game.
+     * @param game an initialised game, between turns
+     * @return the snapshot
+     */
+    public static byte[] encode(Game game) {
+        ByteBuffer buffer = ByteBuffer.allocate(MAX_SIZE);
+        encode(game, buffer);
+        byte[] data = new byte[buffer.position()];
+        buffer.flip().get(data);
+        return data;
+    }
+
+    /**
+     * Save a game into a buffer.
+     * @param game an initialised game, between turns
+     * @param buffer the buffer to write to, with at least MAX_SIZE bytes remaining
+     */
+    public static void encode(Game game, ByteBuffer buffer) {
+        Player[] players = game.getPlayers();
+        BoardLayout layout = game.getLayout();
+        buffer.put(MAGIC).put(VERSION);
+        buffer.put((byte) layout.getName().length()).put(layout.getName().getBytes(StandardCharsets.US_ASCII));
+        buffer.putInt(layout.getSourceCrc());
+        Varint.write(buffer, players.length);
+        Varint.write(buffer, game.getCurrentPlayer());
+        for(Card card: game.getMurderCards()) buffer.put((byte) card.getIndex());
+        for(Player player: players)
+            for(Card card: player.getHand()) buffer.put((byte) card.getIndex());
+        for(Card card: game.getExtraCards()) buffer.put((byte) card.getIndex());
+        for(MovableItem item: game.getPeople()) Varint.write(buffer, DistanceTable.cell(item.row(), item.col()));
+        for(MovableItem item: game.getWeapons()) Varint.write(buffer, DistanceTable.cell(item.row(), item.col()));
+    }
+
+    /**
+     * Restore a game on the standard board.
+     *
+     * @param data the snapshot
+     * @param in where the restored game reads its players' answers
+     * @param out where the restored game is printed
+     * @return the game, ready to run from the start of the current player's turn
+     * @throws IllegalArgumentException if the snapshot is not a valid snapshot of a supported version,
+     *                                  or is of a game on another board
+     */
+    public static Game decode(byte[] data, GameInput in, PrintStream out) {
+        return decode(ByteBuffer.wrap(data), BoardLayout.standard(), in, out);
+    }
+
+    /**
+     * Restore a game on a board with a layout.
+     *
+     * @param data the snapshot
+     * @param layout the layout of the game's board
+     * @param in where the restored game reads its players' answers
+     * @param out where the restored game is printed
+     * @return the game, ready to run from the start of the current player's turn
+     * @throws IllegalArgumentException if the snapshot is not a valid snapshot of a supported version,
+     *                                  or is of a game on another board
+     */
+    public static Game decode(byte[] data, BoardLayout layout, GameInput in, PrintStream out) {
+        return decode(ByteBuffer.wrap(data), layout, in, out);
+    }
+
+    /**
+     * Restore a game from a buffer, leaving the buffer after the snapshot.
+     *
+     * @param buffer the buffer to read from
+     * @param layout the layout of the game's board
+     * @param in where the restored game reads its players' answers
+     * @param out where the restored game is printed
+     * @return the game, ready to run from the start of the current player's turn
+     * @throws IllegalArgumentException if the snapshot is not a valid snapshot of a supported version,
+     *                                  or is of a game on another board
+     */
+    public static Game decode(ByteBuffer buffer, BoardLayout layout, GameInput in, PrintStream out) {
+        try {
+            if(buffer.get() != MAGIC) throw new IllegalArgumentException("Not a game snapshot");
+            int version = buffer.get();
+            if(version < 1 || version > VERSION) throw new IllegalArgumentException("Unsupported snapshot version " + version);
+            String layoutName = BoardLayout.standard().getName();
+            int layoutCrc = BoardLayout.standard().getSourceCrc();
+            if(version > 1) {
+                byte[] name = new byte[buffer.get() & 0xFF];
+                buffer.get(name);
+                layoutName = new String(name, StandardCharsets.US_ASCII);
+                layoutCrc = buffer.getInt();
+            }
+            if(!layoutName.equals(layout.getName()))
+                throw new IllegalArgumentException("The snapshot is of a game on the " + layoutName + " board, not the "
+                        + layout.getName() + " board");
+            if(layoutCrc != layout.getSourceCrc())
+                throw new IllegalArgumentException("The snapshot is of a game on another version of the " + layoutName + " board");
+            int playerNum = Varint.read(buffer);
+            if(playerNum < 3 || playerNum > 6) throw new IllegalArgumentException("Bad number of players " + playerNum);
+            int current = Varint.read(buffer);
+            if(current < 0 || current >= playerNum) throw new IllegalArgumentException("Bad current player " + current);
+
+            int seen = 0;
+            int[] murder = new int[3];
+            for(int i = 0; i < 3; i++) {
+                murder[i] = buffer.get();
+                seen = see(seen, murder[i]);
+            }
+            if(murder[0] >= 6 || murder[1] < 6 || murder[1] >= 12 || murder[2] < 12)
+                throw new IllegalArgumentException("Bad murder cards");
+            int[][] hands = new int[playerNum][18 / playerNum];
+            for(int[] hand: hands)
+                for(int j = 0; j < hand.length; j++) {
+                    hand[j] = buffer.get();
+                    seen = see(seen, hand[j]);
+                }
+            int[] extra = new int[18 % playerNum];
+            for(int j = 0; j < extra.length; j++) {
+                extra[j] = buffer.get();
+                seen = see(seen, extra[j]);
+            }
+
+            int[] cells = new int[12];
+            for(int i = 0; i < 12; i++) {
+                cells[i] = Varint.read(buffer);
+                if(cells[i] < 0 || cells[i] >= DistanceTable.CELLS) throw new IllegalArgumentException("Bad square " + cells[i]);
+            }
+            Game game = new Game(in, out);
+            game.setLayout(layout);
+            game.restore(murder, hands, extra, cells, current);
+            return game;
+        }catch(BufferUnderflowException e) {
+            throw new IllegalArgumentException("Snapshot is cut short");
+        }
+    }
+
+    /**
+     * Check a card index and add it to the cards seen.
+     */
+    private static int see(int seen, int card) {
+        if(card < 0 || card >= 21) throw new IllegalArgumentException("Bad card " + card);
+        if((seen & (1 << card)) != 0) throw new IllegalArgumentException("Card " + card + " appears twice");
+        return seen | (1 << card);
+    }
+}
@@ -0,0 +1,59 @@
+package Cluedo.Persistence;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Unsigned variable-length integers: seven bits per byte, lowest bits first,
+ * with the top bit set on every byte but the last. Numbers below 128 take one byte.
+ */
+public final class Varint {
+    /** Most bytes a varint of an int can take. */
+    public static final int MAX_BYTES = 5;
+
+    private Varint() {
+    }
+
+    /**
+     * Write a number.
+     * @param buffer the buffer to write to
+     * @param value a number (treated as unsigned)
+     */
+    public static void write(ByteBuffer buffer, int value) {
+        while((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    /**
+     * Read a number.
+     * @param buffer the buffer to read from
+     * @return the number, which is negative if its last byte sets the top bit; callers check its range
+     * @throws IllegalArgumentException if the varint is longer than MAX_BYTES
+     * @throws BufferUnderflowException if the buffer ends in the middle of it
+     */
+    public static int read(ByteBuffer buffer) {
+        int value = 0;
+        for(int shift = 0; shift < 7 * MAX_BYTES; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if(b >= 0) return value;
+        }
+        throw new IllegalArgumentException("Varint is too long");
+    }
+
+    /**
+     * Get the number of bytes a number takes.
+     * @param value a number (treated as unsigned)
+     * @return 1 to MAX_BYTES
+     */
+    public static int size(int value) {
+        int size = 1;
+        while((value & ~0x7F) != 0) {
+            size++;
+            value >>>= 7;
+        }
+        return size;
+    }
+}
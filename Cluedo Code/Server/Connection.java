@@ -0,0 +1,42 @@
+package Cluedo.Server;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A client connected to the server.
+ * Everything but the write queue and the closing flag is only used by the selector thread.
+ */
+class Connection {
+    /** Longest line a client may send. */
+    static final int MAX_LINE = 1024;
+
+    final SocketChannel channel;
+    final SelectionKey key;
+    final ByteBuffer readBuffer = ByteBuffer.allocate(MAX_LINE);
+    /** The line being received. */
+    final StringBuilder line = new StringBuilder();
+    /** Output waiting to be written, added by the selector thread and the game thread. */
+    final Queue<ByteBuffer> writes = new ConcurrentLinkedQueue<>();
+    /** Set when the connection is to be closed once its output has been written. */
+    volatile boolean closing;
+
+    /** The game the client is in, or null before it creates or joins one. */
+    Session session;
+    /** The client's seat (player index) in the game. */
+    int seat;
+
+    /** The game the client is watching, or null if it is not a spectator. */
+    SpectatorFeed watching;
+    /** Number of the next frame to send the spectator, or -1 to send a keyframe. */
+    long nextFrame;
+    /** The frame being written to the spectator, or null. */
+    ByteBuffer frame;
+
+    Connection(SocketChannel channel, SelectionKey key) {
+        this.channel = channel;
+        this.key = key;
+    }
+}
@@ -0,0 +1,496 @@
+package Cluedo.Server;
+import Cluedo.BoardLayout;
+import Cluedo.LayoutCompiler;
+import Cluedo.Monitoring.GameMetrics;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hosts many games at once for players connecting over TCP.
+ *
+ * Every connection is handled by one selector thread; no thread waits on a connection.
+ * Each game keeps its usual turn loop (Game.run), which runs on a thread of the game executor
+ * and waits on a QueueInput that the selector thread fills with the lines of the player whose turn it is.
+ * What the game prints is queued on its players' connections and written by the selector thread.
+ *
+ * The protocol is line based. Before a game starts, a client sends one of:
+ *   NEW n    create a game for n players (3 to 6) and take seat 0; answered with "GAME id SEAT 0"
+ *   NEW n layout   the same, on one of the board layouts the server offers (see addLayout)
+ *   JOIN id  take the next seat of a game; answered with "GAME id SEAT k"
+ *   WATCH id watch a game without playing; answered with "WATCHING id", then the game's frames (see SpectatorFeed)
+ *   STATS    answered with one line of "STATS", the metrics of every game played on the server and its SessionHost's counts
+ *   QUIT     disconnect
+ * The game starts once every seat is taken. From then on, the lines of the player whose turn it is
+ * are the answers to the game's questions; other players are answered with "WAIT".
+ * Words beyond what the player's turn takes are dropped when the turn ends (see QueueInput).
+ * A whole move such as "wwdds" can be sent as one answer instead of one line for each step.
+ * Spectators are sent a keyframe of the board and then only what moved; they can send STATS and QUIT,
+ * and are disconnected when the game ends.
+ * Errors are answered with "ERROR" and a reason.
+ */
+public class GameServer implements Runnable, Closeable {
+    public static final int DEFAULT_PORT = 4225;
+
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    /** Runs the turn loops of the games. */
+    private final SessionHost host;
+
+    private final Map<Integer, Session> sessions = new ConcurrentHashMap<>();
+    /** The board layouts games can be played on, by lower case name. */
+    private final Map<String, BoardLayout> layouts = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger(1);
+    /** Turns, moves and latencies of every game on the server. */
+    private final GameMetrics metrics = new GameMetrics();
+    /** Connections with new output, queued by game threads for the selector thread. */
+    private final Queue<Connection> pendingWrites = new ConcurrentLinkedQueue<>();
+    /** Games with new frames for their spectators, queued by game threads for the selector thread. */
+    private final Queue<SpectatorFeed> pendingFeeds = new ConcurrentLinkedQueue<>();
+    /** Where games are journaled (see setJournalDirectory), or null. */
+    private volatile Path journalDirectory;
+    private volatile boolean running = true;
+
+    /**
+     * Open a server running each game on a platform thread of its own.
+     *
+     * @param port the port to listen on, or 0 for any free port
+     * @throws IOException if the port cannot be opened
+     */
+    public GameServer(int port) throws IOException {
+        this(port, new SessionHost(false));
+    }
+
+    /**
+     * Open a server.
+     *
+     * @param port the port to listen on, or 0 for any free port
+     * @param host runs the turn loops of the games; it is closed with the server
+     * @throws IOException if the port cannot be opened
+     */
+    public GameServer(int port, SessionHost host) throws IOException {
+        this.host = host;
+        addLayout(BoardLayout.standard());
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port));
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    /**
+     * Get the port the server listens on.
+     * @return the port
+     */
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * Offer games on a board layout, by its name; a layout with the same name is replaced.
+     * @param layout the layout
+     */
+    public void addLayout(BoardLayout layout) {
+        layouts.put(layout.getName().toLowerCase(), layout);
+    }
+
+    /**
+     * Journal every game started from now on into a directory, as game-id.journal (see GameJournal).
+     * A journal of the same name from an earlier run of the server is replaced.
+     *
+     * @param directory an existing directory, or null to stop journaling
+     */
+    public void setJournalDirectory(Path directory) {
+        this.journalDirectory = directory;
+    }
+
+    /**
+     * Get the directory games are journaled into.
+     * @return the directory, or null if games are not journaled
+     */
+    public Path getJournalDirectory() {
+        return journalDirectory;
+    }
+
+    /**
+     * Get the metrics every game on the server records into.
+     * @return the metrics
+     */
+    public GameMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Get the host running the games' turn loops, which counts them.
+     * @return the host
+     */
+    public SessionHost getHost() {
+        return host;
+    }
+
+    /**
+     * Get the number of games created or being played.
+     * @return the number of games
+     */
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * Handle connections until the server is closed.
+     */
+    @Override
+    public void run() {
+        try {
+            while(running) {
+                selector.select();
+                Connection pending;
+                while((pending = pendingWrites.poll()) != null)
+                    if(pending.key.isValid()) pending.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                SpectatorFeed feed;
+                while((feed = pendingFeeds.poll()) != null) wakeSpectators(feed);
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while(keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if(!key.isValid()) continue;
+                    if(key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+                    Connection connection = (Connection) key.attachment();
+                    try {
+                        if(key.isReadable()) read(connection);
+                        if(key.isValid() && key.isWritable()) write(connection);
+                    }catch(IOException e) {
+                        disconnect(connection);
+                    }
+                }
+            }
+        }catch(IOException e) {
+            throw new UncheckedIOException(e);
+        }finally {
+            closeAll();
+        }
+    }
+
+    /**
+     * Stop the server; the selector thread closes every connection and ends the games.
+     */
+    @Override
+    public void close() {
+        running = false;
+        selector.wakeup();
+    }
+
+    private void closeAll() {
+        for(SelectionKey key: selector.keys()) {
+            try {
+                key.channel().close();
+            }catch(IOException e) {
+                // closing anyway
+            }
+        }
+        for(Session session: sessions.values()) session.input.close();
+        sessions.clear();
+        host.close();
+        try {
+            selector.close();
+        }catch(IOException e) {
+            // closing anyway
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if(channel == null) return;
+        channel.configureBlocking(false);
+        SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+        key.attach(new Connection(channel, key));
+    }
+
+    /**
+     * Read what has arrived and handle every complete line.
+     */
+    private void read(Connection connection) throws IOException {
+        ByteBuffer buffer = connection.readBuffer;
+        int n = connection.channel.read(buffer);
+        if(n < 0) {
+            disconnect(connection);
+            return;
+        }
+        buffer.flip();
+        while(buffer.hasRemaining()) {
+            char c = (char) (buffer.get() & 0xFF);
+            if(c == '\n') {
+                String line = connection.line.toString();
+                connection.line.setLength(0);
+                handleLine(connection, line);
+                if(!connection.key.isValid()) return;
+            }else if(c != '\r') {
+                if(connection.line.length() == Connection.MAX_LINE) {
+                    reply(connection, "ERROR line too long");
+                    closeAfterWrites(connection);
+                    buffer.clear();
+                    return;
+                }
+                connection.line.append(c);
+            }
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Write queued output until it is all written or the socket is full.
+     */
+    private void write(Connection connection) throws IOException {
+        ByteBuffer data;
+        while((data = connection.writes.peek()) != null) {
+            connection.channel.write(data);
+            // the socket is full: carry on when it is writable again
+            if(data.hasRemaining()) return;
+            connection.writes.poll();
+        }
+        if(connection.watching != null && !writeFrames(connection)) return;
+        if(connection.closing) disconnect(connection);
+        else connection.key.interestOps(SelectionKey.OP_READ);
+    }
+
+    /**
+     * Write a spectator the frames it has not been sent yet.
+     * @return false if the socket is full
+     */
+    private boolean writeFrames(Connection connection) throws IOException {
+        while(true) {
+            if(connection.frame == null) connection.frame = connection.watching.next(connection);
+            if(connection.frame == null) return true;
+            connection.channel.write(connection.frame);
+            if(connection.frame.hasRemaining()) return false;
+            connection.frame = null;
+        }
+    }
+
+    private void handleLine(Connection connection, String line) {
+        String[] words = line.trim().split("\\s+");
+        String command = words[0].toUpperCase();
+        if(command.equals("QUIT")) {
+            disconnect(connection);
+            return;
+        }
+        if(command.equals("STATS")) {
+            reply(connection, "STATS " + metrics.snapshot() + " " + host);
+            return;
+        }
+        if(connection.watching != null) {
+            reply(connection, "ERROR spectators can only send STATS or QUIT");
+            return;
+        }
+        Session session = connection.session;
+        if(session == null) {
+            if(command.equals("NEW") && words.length == 2) newGame(connection, words[1], BoardLayout.standard().getName());
+            else if(command.equals("NEW") && words.length == 3) newGame(connection, words[1], words[2]);
+            else if(command.equals("JOIN") && words.length == 2) joinGame(connection, words[1]);
+            else if(command.equals("WATCH") && words.length == 2) watchGame(connection, words[1]);
+            else reply(connection, "ERROR expected NEW players [layout], JOIN game, WATCH game, STATS or QUIT");
+        }else if(!session.started) {
+            reply(connection, "WAIT for " + (session.seats.length - session.joined) + " more players");
+        }else if(session.game.getCurrentPlayer() != connection.seat) {
+            reply(connection, "WAIT it is not your turn");
+        }else {
+            session.input.offer(connection.seat, line);
+        }
+    }
+
+    private void newGame(Connection connection, String players, String layoutName) {
+        int playerNum;
+        try {
+            playerNum = Integer.parseInt(players);
+        }catch(NumberFormatException e) {
+            playerNum = -1;
+        }
+        if(playerNum < 3 || playerNum > 6) {
+            reply(connection, "ERROR a game needs 3 to 6 players");
+            return;
+        }
+        BoardLayout layout = layouts.get(layoutName.toLowerCase());
+        if(layout == null) {
+            reply(connection, "ERROR no board layout " + layoutName);
+            return;
+        }
+        Session session = new Session(this, nextId.getAndIncrement(), playerNum, layout);
+        sessions.put(session.id, session);
+        take(connection, session);
+    }
+
+    private void joinGame(Connection connection, String id) {
+        Session session;
+        try {
+            session = sessions.get(Integer.parseInt(id));
+        }catch(NumberFormatException e) {
+            session = null;
+        }
+        if(session == null) reply(connection, "ERROR no game " + id);
+        else if(session.isFull()) reply(connection, "ERROR game " + id + " is full");
+        else take(connection, session);
+    }
+
+    private void watchGame(Connection connection, String id) {
+        Session session;
+        try {
+            session = sessions.get(Integer.parseInt(id));
+        }catch(NumberFormatException e) {
+            session = null;
+        }
+        if(session == null) {
+            reply(connection, "ERROR no game " + id);
+            return;
+        }
+        session.feed.watch(connection);
+        reply(connection, "WATCHING " + session.id);
+    }
+
+    /**
+     * Give a connection the next seat of a game, and start the game when it is full.
+     */
+    private void take(Connection connection, Session session) {
+        connection.session = session;
+        connection.seat = session.joined;
+        session.seats[session.joined++] = connection;
+        reply(connection, "GAME " + session.id + " SEAT " + connection.seat);
+        if(session.isFull()) {
+            session.started = true;
+            host.start(session);
+        }
+    }
+
+    /**
+     * Send a line from the selector thread.
+     */
+    private void reply(Connection connection, String text) {
+        connection.writes.add(ByteBuffer.wrap((text + "\n").getBytes(StandardCharsets.UTF_8)));
+        if(connection.key.isValid()) connection.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+    }
+
+    /**
+     * Queue output for a connection; may be called from any thread.
+     * @param connection the connection
+     * @param data the output
+     */
+    void send(Connection connection, ByteBuffer data) {
+        connection.writes.add(data);
+        pendingWrites.add(connection);
+        selector.wakeup();
+    }
+
+    /**
+     * Have the selector thread send a game's spectators its new frames; may be called from any thread.
+     * @param feed the game's frames
+     */
+    void feedUpdated(SpectatorFeed feed) {
+        if(!feed.isWatched() && !feed.isEnded()) return;
+        if(!feed.queued.compareAndSet(false, true)) return;
+        pendingFeeds.add(feed);
+        selector.wakeup();
+    }
+
+    /**
+     * Make every spectator of a game writable, so its new frames are written (selector thread);
+     * once the game is over they are disconnected after the last frame.
+     */
+    private void wakeSpectators(SpectatorFeed feed) {
+        feed.queued.set(false);
+        boolean ended = feed.isEnded();
+        for(Connection spectator: feed.spectators) {
+            if(ended) spectator.closing = true;
+            if(spectator.key.isValid()) spectator.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        }
+    }
+
+    /**
+     * Close a connection once its output has been written; may be called from any thread.
+     */
+    private void closeAfterWrites(Connection connection) {
+        connection.closing = true;
+        pendingWrites.add(connection);
+        selector.wakeup();
+    }
+
+    /**
+     * Called on the game thread when a game is over.
+     * @param session the game
+     */
+    void sessionEnded(Session session) {
+        sessions.remove(session.id);
+        session.closeJournal();
+        session.feed.end();
+        feedUpdated(session.feed);
+        for(Connection seat: session.seats)
+            if(seat != null) closeAfterWrites(seat);
+    }
+
+    /**
+     * Close a connection at once; the other players of its game are disconnected too.
+     */
+    private void disconnect(Connection connection) {
+        connection.key.cancel();
+        try {
+            connection.channel.close();
+        }catch(IOException e) {
+            // closing anyway
+        }
+        if(connection.watching != null) connection.watching.leave(connection);
+        Session session = connection.session;
+        if(session == null) return;
+        connection.session = null;
+        // a running game ends when its input is closed; one still waiting for players is ended here
+        if(session.started) {
+            session.input.close();
+            return;
+        }
+        for(Connection seat: session.seats)
+            if(seat != null && seat != connection) reply(seat, "ERROR a player left before the game started");
+        sessionEnded(session);
+    }
+
+    /**
+     * Run a server until the process is stopped.
+     * @param args the port (default 4225), then any layout files to offer besides the standard board,
+     *             and -journal followed by a directory to journal every game into
+     * @throws IOException if the port cannot be opened, a layout file cannot be read or the directory cannot be made
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        GameServer server = new GameServer(port, new SessionHost());
+        server.getHost().monitorPinning(Duration.ofMillis(20));
+        for(int i = 1; i < args.length; i++) {
+            if(args[i].equals("-journal") && i + 1 < args.length) {
+                Path directory = Files.createDirectories(Paths.get(args[++i]));
+                server.setJournalDirectory(directory);
+                System.out.println("Journaling games into " + directory);
+                continue;
+            }
+            BoardLayout layout = LayoutCompiler.load(Paths.get(args[i]));
+            server.addLayout(layout);
+            System.out.println("Offering the " + layout.getName() + " board from " + args[i]);
+        }
+        System.out.println("Cluedo server listening on port " + server.getPort());
+        server.run();
+    }
+}
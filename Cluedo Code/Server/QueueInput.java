@@ -0,0 +1,80 @@
+package Cluedo.Server;
+import Cluedo.GameInput;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.IntSupplier;
+
+/**
+ * Input for a game whose players type somewhere else, such as over a network connection.
+ * Lines are handed over with offer and split into words; the game thread waits for the next word.
+ *
+ * Each word is kept with the seat that typed it, and a word is only read while it is still that seat's turn:
+ * words a player sends beyond what their turn takes are dropped, instead of answering the next player's questions.
+ */
+public class QueueInput implements GameInput {
+    /** Put in the queue when the input is closed (compared by identity). */
+    private static final Word CLOSED = new Word(-1, "");
+
+    private final BlockingQueue<Word> words = new LinkedBlockingQueue<>();
+    /** The seat whose turn it is. */
+    private final IntSupplier currentSeat;
+
+    /**
+     * A word and the seat that typed it.
+     */
+    private static final class Word {
+        final int seat;
+        final String text;
+
+        Word(int seat, String text) {
+            this.seat = seat;
+            this.text = text;
+        }
+    }
+
+    /**
+     * Construct an input.
+     * @param currentSeat gets the seat whose turn it is, such as Game.getCurrentPlayer
+     */
+    public QueueInput(IntSupplier currentSeat) {
+        this.currentSeat = currentSeat;
+    }
+
+    /**
+     * Hand over a line typed by a player.
+     * @param seat the seat of the player
+     * @param line the line
+     */
+    public void offer(int seat, String line) {
+        for(String word: line.trim().split("\\s+"))
+            if(!word.isEmpty()) words.add(new Word(seat, word));
+    }
+
+    /**
+     * Close the input: the game gets the words already offered, then NoSuchElementException.
+     */
+    public void close() {
+        words.add(CLOSED);
+    }
+
+    @Override
+    public String next() {
+        while(true) {
+            Word word;
+            try {
+                word = words.take();
+            }catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new NoSuchElementException("Interrupted while waiting for input");
+            }
+            if(word == CLOSED) {
+                // leave it for any later call
+                words.add(CLOSED);
+                throw new NoSuchElementException("The input was closed");
+            }
+            // words left over from an earlier turn are dropped
+            if(word.seat == currentSeat.getAsInt()) return word.text;
+        }
+    }
+}
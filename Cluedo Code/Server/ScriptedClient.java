@@ -0,0 +1,153 @@
+package Cluedo.Server;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A client that sends lines to a server and waits for text to appear in what it receives,
+ * for trying out a server over loopback without a person at the keyboard.
+ */
+public class ScriptedClient implements Closeable {
+    private final Socket socket;
+    private final InputStream in;
+    private final OutputStream out;
+    /** Everything received and not yet passed by expect. */
+    private final StringBuilder received = new StringBuilder();
+
+    /**
+     * Connect to a server.
+     *
+     * @param host the server's host
+     * @param port the server's port
+     * @throws IOException if the connection fails
+     */
+    public ScriptedClient(String host, int port) throws IOException {
+        socket = new Socket(host, port);
+        in = socket.getInputStream();
+        out = socket.getOutputStream();
+    }
+
+    /**
+     * Send a line.
+     * @param line the line, without its line break
+     * @throws IOException if the connection fails
+     */
+    public void send(String line) throws IOException {
+        out.write((line + "\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    /**
+     * Wait until some text is received.
+     *
+     * @param text the text to wait for
+     * @param timeoutMillis how long to wait
+     * @return everything received up to and including the text
+     * @throws IOException if the text does not arrive in time or the connection is closed first
+     */
+    public String expect(String text, int timeoutMillis) throws IOException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        byte[] buffer = new byte[4096];
+        int at;
+        while((at = received.indexOf(text)) < 0) {
+            int left = (int) (deadline - System.currentTimeMillis());
+            if(left <= 0) throw new IOException("Timed out waiting for \"" + text + "\"");
+            socket.setSoTimeout(left);
+            int n;
+            try {
+                n = in.read(buffer);
+            }catch(SocketTimeoutException e) {
+                continue;
+            }
+            if(n < 0) throw new IOException("Connection closed before \"" + text + "\"");
+            received.append(new String(buffer, 0, n, StandardCharsets.UTF_8));
+        }
+        String upTo = received.substring(0, at + text.length());
+        received.delete(0, at + text.length());
+        return upTo;
+    }
+
+    /**
+     * Wait until the server closes the connection.
+     *
+     * @param timeoutMillis how long to wait
+     * @return everything received before it closed
+     * @throws IOException if it is not closed in time
+     */
+    public String expectClosed(int timeoutMillis) throws IOException {
+        socket.setSoTimeout(timeoutMillis);
+        byte[] buffer = new byte[4096];
+        int n;
+        while((n = in.read(buffer)) >= 0) received.append(new String(buffer, 0, n, StandardCharsets.UTF_8));
+        String rest = received.toString();
+        received.setLength(0);
+        return rest;
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+
+    /**
+     * Start a server on a free loopback port, play the first turns of a three player game
+     * with scripted clients and a spectator, leave it, and report whether everything was answered as expected.
+     *
+     * @param args not used
+     * @throws Exception if the server does not answer as expected
+     */
+    public static void main(String[] args) throws Exception {
+        int timeout = 5000;
+        GameServer server = new GameServer(0);
+        Thread loop = new Thread(server, "cluedo-server");
+        loop.start();
+        try(ScriptedClient first = new ScriptedClient("localhost", server.getPort());
+            ScriptedClient second = new ScriptedClient("localhost", server.getPort());
+            ScriptedClient third = new ScriptedClient("localhost", server.getPort());
+            ScriptedClient watcher = new ScriptedClient("localhost", server.getPort())) {
+            first.send("NEW 3");
+            String game = first.expect("SEAT 0", timeout).trim().split("\\s+")[1];
+            watcher.send("WATCH " + game);
+            watcher.expect("WATCHING " + game, timeout);
+            second.send("JOIN " + game);
+            second.expect("SEAT 1", timeout);
+            third.send("JOIN " + game);
+            third.expect("SEAT 2", timeout);
+            watcher.expect("KEYFRAME 0", timeout);
+            watcher.expect("ITEMS 0", timeout);
+
+            ScriptedClient[] seats = {first, second, third};
+            for(int i = 0; i < seats.length; i++) {
+                ScriptedClient seat = seats[i];
+                seat.expect("Please enter in your move", timeout);
+                // every player sees every prompt; only the player whose turn it is answers
+                for(ScriptedClient other: seats)
+                    if(other != seat) other.expect("Please enter in your move", timeout);
+                // the first player sends more words than their turn takes, which must not answer the next player
+                seat.send(i == 0 ? "x x x" : "x");
+            }
+            first.expect("Please enter in your move", timeout);
+            // any answer sent out of turn was answered with WAIT before these
+            for(ScriptedClient seat: seats) {
+                seat.send("STATS");
+                if(seat.expect("STATS ", timeout).contains("WAIT"))
+                    throw new IOException("A player's extra words answered another player's turn");
+            }
+            second.send("x");
+            second.expect("WAIT it is not your turn", timeout);
+
+            third.send("QUIT");
+            first.expectClosed(timeout);
+            second.expectClosed(timeout);
+            watcher.expectClosed(timeout);
+            System.out.println("Loopback session passed on port " + server.getPort());
+        }finally {
+            server.close();
+            loop.join();
+        }
+    }
+}
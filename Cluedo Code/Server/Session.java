@@ -0,0 +1,115 @@
+package Cluedo.Server;
+import Cluedo.BoardLayout;
+import Cluedo.Game;
+import Cluedo.Items.MovableItem;
+import Cluedo.Persistence.GameJournal;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.NoSuchElementException;
+
+/**
+ * A game hosted by the server and the connections of its players.
+ * Like the console game, everything the game prints is seen by every player;
+ * only the player whose turn it is can answer.
+ */
+class Session implements Runnable {
+    final int id;
+    final Connection[] seats;
+    /** Number of seats taken. */
+    int joined;
+    /** Set by the selector thread when the game is handed to a game thread. */
+    boolean started;
+
+    /** The answers of the player whose turn it is. */
+    final QueueInput input = new QueueInput(this::currentSeat);
+    /** The frames sent to spectators. */
+    final SpectatorFeed feed = new SpectatorFeed();
+    final Game game;
+    private final PrintStream out;
+    private final GameServer server;
+    /** Records the game, if the server journals its games (game thread). */
+    private GameJournal journal;
+
+    Session(GameServer server, int id, int playerNum, BoardLayout layout) {
+        this.server = server;
+        this.id = id;
+        this.seats = new Connection[playerNum];
+        this.out = new PrintStream(new SessionOutput(server, this), true, StandardCharsets.UTF_8);
+        this.game = new Game(input, out);
+        game.setLayout(layout);
+        game.setMetrics(server.getMetrics());
+    }
+
+    /**
+     * Check whether every seat is taken.
+     */
+    boolean isFull() {
+        return joined == seats.length;
+    }
+
+    /**
+     * Get the seat whose turn it is (game thread).
+     */
+    private int currentSeat() {
+        return game.getCurrentPlayer();
+    }
+
+    /**
+     * Start journaling the game into the server's journal directory, if it has one (game thread).
+     * A game that cannot be journaled is still played.
+     */
+    private void openJournal() {
+        Path directory = server.getJournalDirectory();
+        if(directory == null) return;
+        Path file = directory.resolve("game-" + id + ".journal");
+        try {
+            journal = new GameJournal(file, game);
+        }catch(IOException e) {
+            System.out.println("Game " + id + " is not journaled: cannot write " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Close the journal of the game, if it has one; called when the game ends.
+     */
+    void closeJournal() {
+        if(journal == null) return;
+        try {
+            journal.close();
+        }catch(IOException e) {
+            System.out.println("Game " + id + ": cannot close its journal: " + e.getMessage());
+        }
+        journal = null;
+    }
+
+    /**
+     * Publish a frame for the spectators, if anything has moved since the last one (game thread).
+     */
+    void publishFrame() {
+        if(feed.publish()) server.feedUpdated(feed);
+    }
+
+    /**
+     * Play the game, until somebody wins or a player leaves.
+     */
+    @Override
+    public void run() {
+        try {
+            game.initialise(seats.length);
+            openJournal();
+            MovableItem[] items = new MovableItem[12];
+            System.arraycopy(game.getPeople(), 0, items, 0, 6);
+            System.arraycopy(game.getWeapons(), 0, items, 6, 6);
+            feed.start(game.getBoard(), items);
+            server.feedUpdated(feed);
+            game.run();
+        }catch(NoSuchElementException e) {
+            out.println("A player has left the game");
+        }finally {
+            out.flush();
+            server.sessionEnded(this);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package Cluedo.Server;
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs the blocking turn loop of every game of a GameServer on a thread of its own, and counts the games.
+ *
+ * With virtual threads on a Java that has them, each game gets a virtual thread, which costs a few hundred bytes
+ * while it waits for a human to answer, so one process can hold tens of thousands of idle games.
+ * Otherwise each game gets a daemon platform thread, with the same behaviour and a much larger footprint.
+ *
+ * A virtual thread that blocks while holding a monitor pins its carrier thread, which stops other
+ * games from running on it. monitorPinning counts those events through JFR so that they can be found.
+ */
+public class SessionHost implements Closeable {
+    private final ExecutorService executor;
+    private final boolean virtual;
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger peak = new AtomicInteger();
+    private final LongAdder started = new LongAdder();
+    private final LongAdder finished = new LongAdder();
+    private final LongAdder pinnedEvents = new LongAdder();
+    private final LongAdder pinnedNanos = new LongAdder();
+    /** The JFR stream counting pinned threads, or null if it is not running. */
+    private Closeable pinningMonitor;
+
+    /**
+     * Construct a host, using virtual threads if this Java has them.
+     */
+    public SessionHost() {
+        this(true);
+    }
+
+    /**
+     * Construct a host.
+     * @param virtualThreads true to use virtual threads if this Java has them, false for platform threads
+     */
+    public SessionHost(boolean virtualThreads) {
+        ExecutorService executor = virtualThreads ? newVirtualThreadExecutor() : null;
+        this.virtual = executor != null;
+        this.executor = virtual ? executor : Executors.newCachedThreadPool(gameThreads());
+    }
+
+    /**
+     * Get an executor running each task on a new virtual thread.
+     * It is looked up by reflection so that the game still builds and runs on Javas without virtual threads.
+     *
+     * @return the executor, or null if virtual threads are not available
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }catch(ReflectiveOperationException e) {
+            // no such method, or a preview feature that is not enabled
+            return null;
+        }
+    }
+
+    /**
+     * Daemon platform threads, so that games still running do not keep the process alive.
+     */
+    private static ThreadFactory gameThreads() {
+        AtomicInteger count = new AtomicInteger();
+        return task -> {
+            Thread thread = new Thread(task, "cluedo-game-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Run a game's turn loop on a thread of its own, counting it while it runs.
+     * @param session the game
+     */
+    void start(Session session) {
+        started.increment();
+        peak.accumulateAndGet(active.incrementAndGet(), Math::max);
+        executor.execute(() -> {
+            try {
+                session.run();
+            }finally {
+                active.decrementAndGet();
+                finished.increment();
+            }
+        });
+    }
+
+    /**
+     * Start counting the times a game's virtual thread is pinned to its carrier for at least a threshold.
+     * Does nothing if JFR is not available; on Javas without virtual threads the count stays at zero.
+     *
+     * @param threshold the shortest pinning counted
+     * @return true if the count was started
+     */
+    public synchronized boolean monitorPinning(Duration threshold) {
+        if(pinningMonitor != null) return true;
+        try {
+            pinningMonitor = PinningMonitor.start(threshold, pinnedEvents, pinnedNanos);
+            return true;
+        }catch(LinkageError | IllegalStateException | SecurityException e) {
+            return false;
+        }
+    }
+
+    /** Check whether games run on virtual threads. */
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    /** Get the number of games whose turn loop is running. */
+    public int getActiveSessions() {
+        return active.get();
+    }
+
+    /** Get the most games that were running at once. */
+    public int getPeakSessions() {
+        return peak.get();
+    }
+
+    /** Get the number of games started. */
+    public long getStartedSessions() {
+        return started.sum();
+    }
+
+    /** Get the number of games whose turn loop has ended. */
+    public long getFinishedSessions() {
+        return finished.sum();
+    }
+
+    /** Get the number of times a game's thread was pinned to its carrier (see monitorPinning). */
+    public long getPinnedEvents() {
+        return pinnedEvents.sum();
+    }
+
+    /** Get the total time games' threads were pinned to their carriers, in nanoseconds. */
+    public long getPinnedNanos() {
+        return pinnedNanos.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("threads=%s sessions=%d peak=%d started=%d finished=%d pinned=%d pinned_ms=%d",
+                virtual ? "virtual" : "platform", getActiveSessions(), getPeakSessions(), getStartedSessions(),
+                getFinishedSessions(), getPinnedEvents(), getPinnedNanos() / 1000000);
+    }
+
+    /**
+     * Stop the pinning count and the executor. Games still running are not closed.
+     */
+    @Override
+    public synchronized void close() {
+        if(pinningMonitor != null) {
+            try {
+                pinningMonitor.close();
+            }catch(IOException e) {
+                // closing anyway
+            }
+            pinningMonitor = null;
+        }
+        executor.shutdown();
+    }
+
+    /**
+     * Counts jdk.VirtualThreadPinned events. Kept in its own class so that the host still loads
+     * when the jdk.jfr module is missing.
+     */
+    private static class PinningMonitor {
+        static Closeable start(Duration threshold, LongAdder events, LongAdder nanos) {
+            jdk.jfr.consumer.RecordingStream stream = new jdk.jfr.consumer.RecordingStream();
+            stream.enable("jdk.VirtualThreadPinned").withThreshold(threshold);
+            stream.onEvent("jdk.VirtualThreadPinned", event -> {
+                events.increment();
+                nanos.add(event.getDuration().toNanos());
+            });
+            stream.startAsync();
+            return stream::close;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package Cluedo.Server;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Collects what a game prints and sends it to every player of the game when it is flushed
+ * (the game flushes before it waits for an answer). Each flush also publishes a frame for the game's spectators.
+ */
+class SessionOutput extends OutputStream {
+    private final GameServer server;
+    private final Session session;
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+    SessionOutput(GameServer server, Session session) {
+        this.server = server;
+        this.session = session;
+    }
+
+    @Override
+    public synchronized void write(int b) {
+        buffer.write(b);
+    }
+
+    @Override
+    public synchronized void write(byte[] b, int off, int len) {
+        buffer.write(b, off, len);
+    }
+
+    @Override
+    public synchronized void flush() {
+        session.publishFrame();
+        if(buffer.size() == 0) return;
+        ByteBuffer data = ByteBuffer.wrap(buffer.toByteArray());
+        buffer.reset();
+        for(Connection seat: session.seats) server.send(seat, data.duplicate());
+    }
+}
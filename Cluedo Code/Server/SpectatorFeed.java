@@ -0,0 +1,204 @@
+package Cluedo.Server;
+import Cluedo.Board;
+import Cluedo.BoardRenderer;
+import Cluedo.Items.MovableItem;
+import Cluedo.Navigation.DistanceTable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * What the spectators of a game are sent: a keyframe of the board, then only the moves of the people and weapons.
+ *
+ * Each time the game's output is flushed, the game thread publishes a frame: where every item is,
+ * and a line with just the items that moved since the last frame:
+ *   MOVED seq id:cell ...
+ * The last RING frames are kept in a ring, each line a read-only buffer shared by every spectator,
+ * so publishing never waits on a spectator and costs the same for one spectator as for thousands.
+ * The selector thread writes each spectator the frames it has not been sent yet, while its socket takes them.
+ * A spectator that has just started watching, or has fallen more than RING frames behind, is sent a keyframe
+ * of the latest frame instead and carries on from there:
+ *   KEYFRAME seq
+ *   the board, as drawBoard draws it
+ *   ITEMS seq id:cell ...     (every item)
+ * Items are numbered as their cards (Item.getId), and cell is row * 24 + column, or -1 for an item off the board.
+ */
+final class SpectatorFeed {
+    /** Number of frames kept for spectators that are behind. */
+    static final int RING = 64;
+
+    /**
+     * A published frame, never changed once published.
+     */
+    private static final class Frame {
+        final long seq;
+        /** The square of each item. */
+        final int[] cells;
+        /** The MOVED line, or null if it was not written (nobody was watching, or it is the first frame). */
+        final ByteBuffer moved;
+
+        Frame(long seq, int[] cells, ByteBuffer moved) {
+            this.seq = seq;
+            this.cells = cells;
+            this.moved = moved;
+        }
+    }
+
+    private final AtomicReferenceArray<Frame> ring = new AtomicReferenceArray<>(RING);
+    /** Number of the latest frame, or -1 before the game starts. */
+    private volatile long latest = -1;
+    private volatile boolean ended;
+    /** Set while the feed is queued for the selector thread, so it is queued once however many frames it has. */
+    final AtomicBoolean queued = new AtomicBoolean();
+
+    /** Set on the game thread by start, before the first frame. */
+    private Board board;
+    private MovableItem[] items;
+    private char[] glyphs;
+    private BoardRenderer template;
+    /** Where each item was in the latest frame (game thread only). */
+    private int[] cells;
+    private final StringBuilder line = new StringBuilder();
+
+    /** The connections watching (selector thread only). */
+    final Set<Connection> spectators = new HashSet<>();
+    /** Size of spectators, for the game thread. */
+    private volatile int watching;
+    /** The last keyframe written, and the frame it shows (selector thread only). */
+    private ByteBuffer keyframe;
+    private long keyframeSeq = -1;
+
+    /**
+     * Publish the first frame, once the game has been set up (game thread).
+     *
+     * @param board the game's board
+     * @param items the people and weapons, each at the index of its id
+     */
+    void start(Board board, MovableItem[] items) {
+        this.board = board;
+        this.items = items.clone();
+        this.glyphs = new char[items.length];
+        for(int i = 0; i < items.length; i++) glyphs[i] = items[i].getGlyph();
+        this.template = board.getLayout().getRenderer();
+        this.cells = positions();
+        ring.set(0, new Frame(0, cells, null));
+        latest = 0;
+    }
+
+    /**
+     * Publish a frame if anything has moved since the last one (game thread).
+     * @return true if a frame was published
+     */
+    boolean publish() {
+        if(board == null) return false;
+        int[] now = positions();
+        line.setLength(0);
+        for(int i = 0; i < now.length; i++)
+            if(now[i] != cells[i]) line.append(' ').append(i).append(':').append(now[i]);
+        if(line.length() == 0) return false;
+        long seq = latest + 1;
+        ByteBuffer moved = null;
+        // with nobody watching, the frame is only kept for the keyframe of the first spectator
+        if(watching > 0) moved = ascii("MOVED " + seq + line + "\n");
+        cells = now;
+        ring.set((int) (seq % RING), new Frame(seq, now, moved));
+        latest = seq;
+        return true;
+    }
+
+    private int[] positions() {
+        int[] now = new int[items.length];
+        for(int i = 0; i < items.length; i++) {
+            MovableItem item = items[i];
+            int cell = DistanceTable.cell(item.row(), item.col());
+            now[i] = board.getItemAt(cell) == item ? cell : -1;
+        }
+        return now;
+    }
+
+    /**
+     * Record that the game is over (game thread); spectators are disconnected once they have been sent every frame.
+     */
+    void end() {
+        ended = true;
+    }
+
+    /**
+     * Check whether the game is over.
+     */
+    boolean isEnded() {
+        return ended;
+    }
+
+    /**
+     * Check whether anybody is watching, so the game thread only wakes the selector thread for spectators.
+     */
+    boolean isWatched() {
+        return watching > 0;
+    }
+
+    /**
+     * Add a spectator, who is sent a keyframe first (selector thread).
+     */
+    void watch(Connection spectator) {
+        spectator.watching = this;
+        spectator.nextFrame = -1;
+        spectators.add(spectator);
+        watching = spectators.size();
+    }
+
+    /**
+     * Remove a spectator (selector thread).
+     */
+    void leave(Connection spectator) {
+        spectator.watching = null;
+        spectator.frame = null;
+        spectators.remove(spectator);
+        watching = spectators.size();
+    }
+
+    /**
+     * Get the next output for a spectator, and move it past that output (selector thread).
+     *
+     * @param spectator the spectator
+     * @return the output, or null if the spectator has been sent the latest frame
+     */
+    ByteBuffer next(Connection spectator) {
+        long last = latest;
+        if(last < 0 || spectator.nextFrame > last) return null;
+        if(spectator.nextFrame >= 0) {
+            Frame frame = ring.get((int) (spectator.nextFrame % RING));
+            if(frame != null && frame.seq == spectator.nextFrame && frame.moved != null) {
+                spectator.nextFrame++;
+                return frame.moved.duplicate();
+            }
+        }
+        // just started watching, too far behind, or a frame published while nobody watched: start again from a keyframe
+        Frame frame = ring.get((int) (last % RING));
+        spectator.nextFrame = frame.seq + 1;
+        return keyframe(frame).duplicate();
+    }
+
+    /**
+     * Write the keyframe of a frame, once for every spectator that needs it.
+     */
+    private ByteBuffer keyframe(Frame frame) {
+        if(keyframeSeq == frame.seq) return keyframe;
+        StringBuilder sb = new StringBuilder();
+        sb.append("KEYFRAME ").append(frame.seq).append('\n');
+        sb.append(template.draw(frame.cells, glyphs)).append('\n');
+        sb.append("ITEMS ").append(frame.seq);
+        for(int i = 0; i < frame.cells.length; i++) sb.append(' ').append(i).append(':').append(frame.cells[i]);
+        sb.append('\n');
+        keyframe = ascii(sb.toString());
+        keyframeSeq = frame.seq;
+        return keyframe;
+    }
+
+    private static ByteBuffer ascii(String text) {
+        return ByteBuffer.wrap(text.getBytes(StandardCharsets.US_ASCII)).asReadOnlyBuffer();
+    }
+}
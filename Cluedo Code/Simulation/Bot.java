@@ -0,0 +1,88 @@
+package Cluedo.Simulation;
+import Cluedo.Card;
+import Cluedo.Tiles.DoorTile;
+import java.util.Map;
+
+/**
+ * A Bot makes the decisions for one player in a headless game,
+ * in place of the console prompts in Game.
+ * A new bot is created for every seat of every game, so a bot may keep its own state.
+ */
+public interface Bot {
+
+    /**
+     * Decide whether to make an accusation from the room the player is in.
+     *
+     * @param game the game being played
+     * @param seat index of the player
+     * @return true to make an accusation
+     */
+    boolean wantsAccusation(HeadlessGame game, int seat);
+
+    /**
+     * Choose the door to leave the room from (only asked when the room has more than one door).
+     *
+     * @param game the game being played
+     * @param seat index of the player
+     * @param doors the doors of the room (key is the door number)
+     * @return the number of the door
+     */
+    int chooseExit(HeadlessGame game, int seat, Map<Integer, DoorTile> doors);
+
+    /**
+     * Choose the next step.
+     *
+     * @param game the game being played
+     * @param seat index of the player
+     * @param movesRemaining number of moves left this turn
+     * @return w, a, s, d, or x to finish moving
+     */
+    String nextMove(HeadlessGame game, int seat, int movesRemaining);
+
+    /**
+     * Choose the weapon of an accusation.
+     *
+     * @param game the game being played
+     * @param seat index of the player
+     * @return a weapon card
+     */
+    Card chooseWeapon(HeadlessGame game, int seat);
+
+    /**
+     * Choose the character of an accusation.
+     *
+     * @param game the game being played
+     * @param seat index of the player
+     * @return a character card
+     */
+    Card chooseCharacter(HeadlessGame game, int seat);
+
+    /**
+     * Decide whether to check the envelope after nobody could dispute an accusation.
+     *
+     * @param game the game being played
+     * @param seat index of the player
+     * @param person the accused character
+     * @param weapon the accused weapon
+     * @param room the accused room
+     * @return true to check the envelope
+     */
+    boolean checkEnvelope(HeadlessGame game, int seat, Card person, Card weapon, Card room);
+
+    /**
+     * Called for every bot after any player's accusation has been disputed or not.
+     * The game prints the disputing card to everyone, so every bot is told what it was.
+     *
+     * @param game the game being played
+     * @param seat index of this bot's player
+     * @param accuser index of the player who made the accusation
+     * @param person the accused character
+     * @param weapon the accused weapon
+     * @param room the accused room
+     * @param disputer index of the disputing player, or -1 if nobody could dispute
+     * @param shown the card shown by the disputing player, or null
+     */
+    default void observeAccusation(HeadlessGame game, int seat, int accuser, Card person, Card weapon, Card room,
+                                   int disputer, Card shown) {
+    }
+}
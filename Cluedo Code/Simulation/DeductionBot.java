@@ -0,0 +1,146 @@
+package Cluedo.Simulation;
+import Cluedo.BitBoard;
+import Cluedo.Board;
+import Cluedo.Card;
+import Cluedo.GameRandom;
+import Cluedo.Deduction.Notepad;
+import Cluedo.Items.Person;
+import Cluedo.Navigation.DistanceTable;
+import Cluedo.Tiles.DoorTile;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A bot that keeps a Notepad of everything it has seen, walks the shortest way to the nearest room
+ * that may be the murder room, accuses cards that may still be in the envelope,
+ * and checks the envelope only when it knows all three cards.
+ */
+public class DeductionBot implements Bot {
+    private Notepad notepad;
+
+    /**
+     * Get the notepad, filling it in from the bot's hand and the extra cards the first time.
+     */
+    private Notepad notepad(HeadlessGame game, int seat) {
+        if(notepad == null) {
+            notepad = new Notepad(game.getPlayerCount());
+            notepad.learnExtraCards(mask(game.getGame().getExtraCards()));
+            notepad.learnHand(seat, game.getGame().getCardOwners().hand(seat));
+        }
+        return notepad;
+    }
+
+    /**
+     * Get the cards as a mask of card indexes.
+     * @param cards some cards
+     * @return bit i set for the card with index i
+     */
+    static int mask(List<Card> cards) {
+        int mask = 0;
+        for(Card card: cards) mask |= 1 << card.getIndex();
+        return mask;
+    }
+
+    /**
+     * Pick one of the cards of a mask at random.
+     * @param cards a non-empty mask of cards
+     * @param random the game's random numbers
+     * @return index of the card
+     */
+    static int pick(int cards, GameRandom random) {
+        int n = random.nextInt(Integer.bitCount(cards));
+        for(int i = 0; i < n; i++) cards &= cards - 1;
+        return Integer.numberOfTrailingZeros(cards);
+    }
+
+    private int cellOf(HeadlessGame game, int seat) {
+        Person person = game.getPlayer(seat).getPerson();
+        return DistanceTable.cell(person.row(), person.col());
+    }
+
+    /**
+     * Choose the nearest room, other than the one the player is in, whose card may be in the envelope.
+     * @return index of the room, or -1 if there is none
+     */
+    private int targetRoom(HeadlessGame game, int seat, int fromCell) {
+        DistanceTable distances = game.getBoard().getDistances();
+        int candidates = notepad(game, seat).envelopeCandidates();
+        int here = distances.roomOf(fromCell);
+        int best = -1, bestDistance = Integer.MAX_VALUE;
+        for(int room = 0; room < distances.roomCount(); room++) {
+            if(room == here || (candidates & (1 << (12 + room))) == 0) continue;
+            int d = distances.distanceToRoom(fromCell, room);
+            if(d != DistanceTable.UNREACHABLE && d < bestDistance) {
+                best = room;
+                bestDistance = d;
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public boolean wantsAccusation(HeadlessGame game, int seat) {
+        Board board = game.getBoard();
+        int room = board.roomIndex(board.getRoom(game.getPlayer(seat)));
+        return (notepad(game, seat).envelopeCandidates() & (1 << (12 + room))) != 0;
+    }
+
+    @Override
+    public int chooseExit(HeadlessGame game, int seat, Map<Integer, DoorTile> doors) {
+        Board board = game.getBoard();
+        DistanceTable distances = board.getDistances();
+        int target = targetRoom(game, seat, cellOf(game, seat));
+        int best = 1, bestDistance = Integer.MAX_VALUE;
+        for(Map.Entry<Integer, DoorTile> door: doors.entrySet()) {
+            int cell = DistanceTable.cell(door.getValue().getRow(), door.getValue().getCol());
+            if(board.getItemAt(cell) != null) continue;
+            int d = target < 0 ? 0 : distances.distanceToRoom(cell, target);
+            if(d != DistanceTable.UNREACHABLE && d < bestDistance) {
+                best = door.getKey();
+                bestDistance = d;
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public String nextMove(HeadlessGame game, int seat, int movesRemaining) {
+        int cell = cellOf(game, seat);
+        int legal = game.getBoard().legalMoves(game.getPlayer(seat));
+        if(legal == 0) return "x";
+        int target = targetRoom(game, seat, cell);
+        if(target >= 0) {
+            String move = DistanceTable.direction(cell, game.getBoard().getDistances().nextStepToRoom(cell, target));
+            for(int i = 0; i < BitBoard.MOVES.length; i++)
+                if(BitBoard.MOVES[i].equals(move) && (legal & (1 << i)) != 0) return move;
+        }
+        // the way is blocked, or there is nowhere to go: step aside at random
+        int n = game.getRandom().nextInt(Integer.bitCount(legal));
+        for(int i = 0; i < n; i++) legal &= legal - 1;
+        return BitBoard.MOVES[Integer.numberOfTrailingZeros(legal)];
+    }
+
+    @Override
+    public Card chooseWeapon(HeadlessGame game, int seat) {
+        return game.getGame().getCard(pick(notepad(game, seat).envelopeCandidates() & Notepad.WEAPONS, game.getRandom()));
+    }
+
+    @Override
+    public Card chooseCharacter(HeadlessGame game, int seat) {
+        return game.getGame().getCard(pick(notepad(game, seat).envelopeCandidates() & Notepad.CHARACTERS, game.getRandom()));
+    }
+
+    @Override
+    public boolean checkEnvelope(HeadlessGame game, int seat, Card person, Card weapon, Card room) {
+        int accused = (1 << person.getIndex()) | (1 << weapon.getIndex()) | (1 << room.getIndex());
+        Notepad notepad = notepad(game, seat);
+        return (notepad.knownHas(notepad.envelope()) & accused) == accused;
+    }
+
+    @Override
+    public void observeAccusation(HeadlessGame game, int seat, int accuser, Card person, Card weapon, Card room,
+                                  int disputer, Card shown) {
+        notepad(game, seat).learnAccusation(accuser, person.getIndex(), weapon.getIndex(), room.getIndex(),
+                disputer, shown == null ? -1 : shown.getIndex());
+    }
+}
@@ -0,0 +1,83 @@
+package Cluedo.Simulation;
+
+/**
+ * The outcome of one headless game.
+ */
+public class GameResult {
+    /**
+     * Index of the winning player, or -1 if the game hit its turn limit.
+     */
+    private final int winner;
+    /**
+     * Number of turns played (one turn per player per round).
+     */
+    private final int turns;
+    /**
+     * Number of accusations made by each player.
+     */
+    private final int[] accusations;
+    /**
+     * Number of times each player checked the envelope (including the winning check).
+     */
+    private final int[] envelopeChecks;
+
+    /**
+     * Construct the result of a game.
+     *
+     * @param winner index of the winning player, or -1
+     * @param turns number of turns played
+     * @param accusations number of accusations made by each player
+     * @param envelopeChecks number of envelope checks by each player
+     */
+    public GameResult(int winner, int turns, int[] accusations, int[] envelopeChecks) {
+        this.winner = winner;
+        this.turns = turns;
+        this.accusations = accusations;
+        this.envelopeChecks = envelopeChecks;
+    }
+
+    /**
+     * Get the winner.
+     * @return index of the winning player, or -1 if nobody won
+     */
+    public int getWinner() { return winner; }
+
+    /**
+     * Get the number of turns played.
+     * @return number of turns
+     */
+    public int getTurns() { return turns; }
+
+    /**
+     * Get the number of accusations made.
+     * @return number of accusations
+     */
+    public int getAccusations() { return sum(accusations); }
+
+    /**
+     * Get the number of accusations made by a player.
+     * @param seat index of the player
+     * @return number of accusations
+     */
+    public int getAccusations(int seat) { return accusations[seat]; }
+
+    /**
+     * Get the number of envelope checks.
+     * @return number of envelope checks
+     */
+    public int getEnvelopeChecks() { return sum(envelopeChecks); }
+
+    /**
+     * Get the number of times a player checked the envelope.
+     * Every check but the winner's last one was wrong.
+     * @param seat index of the player
+     * @return number of envelope checks
+     */
+    public int getEnvelopeChecks(int seat) { return envelopeChecks[seat]; }
+
+    private static int sum(int[] counts) {
+        int total = 0;
+        for(int count: counts) total += count;
+        return total;
+    }
+}
@@ -0,0 +1,196 @@
+package Cluedo.Simulation;
+import Cluedo.Board;
+import Cluedo.Card;
+import Cluedo.Game;
+import Cluedo.GameRandom;
+import Cluedo.Player;
+import Cluedo.TurnDecisions;
+import Cluedo.Navigation.DistanceTable;
+import Cluedo.Tiles.DoorTile;
+import java.util.Map;
+
+/**
+ * A game played by bots: Game.playTurn plays every turn by the same rules as Game.run,
+ * asking the bots instead of reading the console, and nothing is drawn.
+ */
+public class HeadlessGame {
+    /**
+     * How many invalid moves a bot may ask for in a row before its move is finished for it.
+     */
+    private static final int MAX_INVALID_MOVES = 4;
+
+    /**
+     * The game holding the board, players and cards.
+     */
+    private final Game game;
+    /**
+     * The bot deciding for each player (same order as the players).
+     */
+    private final Bot[] bots;
+    /**
+     * Rounds played before the game is abandoned without a winner.
+     */
+    private final int maxRounds;
+
+    private int turns;
+    /** Asks the bots, for Game.playTurn. */
+    private final TurnDecisions decisions = new BotDecisions();
+    /** Accusations made by each player. */
+    private final int[] accusations;
+    /** Envelope checks made by each player. */
+    private final int[] envelopeChecks;
+
+    /**
+     * Deal a new game for the bots.
+     *
+     * @param bots one bot per player (from 3 to 6)
+     * @param maxRounds rounds played before the game is abandoned
+     */
+    public HeadlessGame(Bot[] bots, int maxRounds) {
+        this(bots, maxRounds, new GameRandom());
+    }
+
+    /**
+     * Deal a new game for the bots from given random numbers, which the bots also use,
+     * so that the same random numbers play the same game.
+     *
+     * @param bots one bot per player (from 3 to 6)
+     * @param maxRounds rounds played before the game is abandoned
+     * @param random the random numbers of the game
+     */
+    public HeadlessGame(Bot[] bots, int maxRounds, GameRandom random) {
+        if(bots.length < 3 || bots.length > 6) throw new IllegalArgumentException("A game needs 3 to 6 players");
+        this.bots = bots;
+        this.maxRounds = maxRounds;
+        this.accusations = new int[bots.length];
+        this.envelopeChecks = new int[bots.length];
+        // bots are never asked questions and nothing is printed, so the game has no input or output
+        this.game = new Game(null, null, random);
+        game.initialise(bots.length);
+    }
+
+    /**
+     * Get the game the bots are playing.
+     * @return the game
+     */
+    public Game getGame() { return game; }
+
+    /**
+     * Get the board of the game.
+     * @return the board
+     */
+    public Board getBoard() { return game.getBoard(); }
+
+    /**
+     * Get the player in a seat.
+     * @param seat index of the player
+     * @return the player
+     */
+    public Player getPlayer(int seat) { return game.getPlayers()[seat]; }
+
+    /**
+     * Get the random numbers of the game, for the bots' choices.
+     * @return the generator
+     */
+    public GameRandom getRandom() { return game.getRandom(); }
+
+    /**
+     * Get the number of players.
+     * @return number of players
+     */
+    public int getPlayerCount() { return bots.length; }
+
+    /**
+     * Get the number of turns started so far, which tells a bot when a new turn of its own has started.
+     * @return number of turns
+     */
+    public int getTurnCount() { return turns; }
+
+    /**
+     * Get the Zobrist hash of the game's state (Game.getStateHash): where the people and weapons are,
+     * whose turn it is and how many moves they have left.
+     * @return the hash
+     */
+    public long getStateHash() {
+        return game.getStateHash();
+    }
+
+    /**
+     * Play the game until a player wins or the round limit is reached.
+     *
+     * @return the result of the game
+     */
+    public GameResult run() {
+        for(int round = 0; round < maxRounds; round++) {
+            for(int i = 0; i < bots.length; i++) {
+                turns++;
+                if(game.playTurn(i, decisions)) return result(i);
+            }
+        }
+        return result(-1);
+    }
+
+    /**
+     * Asks each player's bot, and counts the accusations and envelope checks.
+     */
+    private class BotDecisions implements TurnDecisions {
+        @Override
+        public boolean wantsAccusation(int player) {
+            return bots[player].wantsAccusation(HeadlessGame.this, player);
+        }
+
+        /**
+         * The door the bot chooses, or the first free door if that one is blocked (a bot would choose it again).
+         */
+        @Override
+        public int chooseExit(int player, Map<Integer, DoorTile> doors) {
+            int chosen = bots[player].chooseExit(HeadlessGame.this, player, doors);
+            DoorTile door = doors.get(chosen);
+            if(door != null && isFree(door)) return chosen;
+            for(Map.Entry<Integer, DoorTile> entry: doors.entrySet())
+                if(isFree(entry.getValue())) return entry.getKey();
+            throw new IllegalStateException("Room exits are free but no door could be used.");
+        }
+
+        private boolean isFree(DoorTile door) {
+            return game.getBoard().getItemAt(DistanceTable.cell(door.getRow(), door.getCol())) == null;
+        }
+
+        @Override
+        public String nextMove(int player, int movesRemaining, int refused) {
+            if(refused >= MAX_INVALID_MOVES) return "x";
+            return bots[player].nextMove(HeadlessGame.this, player, movesRemaining);
+        }
+
+        @Override
+        public Card chooseWeapon(int player) {
+            return bots[player].chooseWeapon(HeadlessGame.this, player);
+        }
+
+        @Override
+        public Card chooseCharacter(int player) {
+            return bots[player].chooseCharacter(HeadlessGame.this, player);
+        }
+
+        @Override
+        public void accusationSettled(int accuser, Card person, Card weapon, Card room, int disputer, Card shown) {
+            accusations[accuser]++;
+            for(int i = 0; i < bots.length; i++)
+                bots[i].observeAccusation(HeadlessGame.this, i, accuser, person, weapon, room, disputer, shown);
+        }
+
+        @Override
+        public boolean checkEnvelope(int player, Card person, Card weapon, Card room) {
+            return bots[player].checkEnvelope(HeadlessGame.this, player, person, weapon, room);
+        }
+
+        @Override
+        public void envelopeChecked(int player, boolean correct) {
+            envelopeChecks[player]++;
+        }
+    }
+
+    private GameResult result(int winner) {
+        return new GameResult(winner, turns, accusations, envelopeChecks);
+    }
+}
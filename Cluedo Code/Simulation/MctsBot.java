@@ -0,0 +1,360 @@
+package Cluedo.Simulation;
+import Cluedo.BitBoard;
+import Cluedo.Board;
+import Cluedo.Card;
+import Cluedo.Deduction.DealSampler;
+import Cluedo.Deduction.Notepad;
+import Cluedo.Items.Person;
+import Cluedo.Navigation.DistanceTable;
+import Cluedo.Player;
+import Cluedo.Tiles.DoorTile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A bot that chooses the room to go to and the cards to accuse with information-set Monte Carlo tree search.
+ *
+ * For every decision it draws the hidden cards many times, each time a deal consistent with its Notepad
+ * (DealSampler), and plays the rest of the game out in a Playout. The tree holds only the bot's own decisions,
+ * and every playout walks it with UCB, counting a decision as available whenever the drawn deal allows it.
+ * Several trees are searched at once on a fork-join pool (root parallelism) and their visits are added up,
+ * so more cores give more playouts in the same time. A search ends after a number of playouts per tree or
+ * when its time is up, whichever comes first; with no time limit the same seed always makes the same choices.
+ *
+ * Moving follows the chosen room the shortest way, like DeductionBot, and the envelope is checked whenever its
+ * cards may be the murder cards, since a wrong check costs nothing.
+ */
+public class MctsBot implements Bot {
+    /** Exploration constant of UCB. */
+    private static final double EXPLORATION = 0.7;
+    /** Deals drawn for one playout before one breaking a "has one of these" fact is used anyway. */
+    private static final int MAX_DRAWS = 32;
+
+    private final ForkJoinPool pool;
+    private final int trees;
+    private final int playouts;
+    private final long budgetNanos;
+
+    private Notepad notepad;
+    /** Cards shown to everyone so far. */
+    private int shownToAll;
+    /** A square of each room. */
+    private int[] roomCell;
+    /** The room being headed for, and the turn it was chosen in. */
+    private int target = -1;
+    private int plannedTurn = -1;
+    /** The character chosen with the weapon of an accusation. */
+    private int person;
+
+    /**
+     * Construct a bot that searches on the common fork-join pool.
+     *
+     * @param trees trees searched at once
+     * @param playouts playouts per tree and decision
+     * @param budgetMillis time for each decision in milliseconds, or 0 for no limit
+     */
+    public MctsBot(int trees, int playouts, long budgetMillis) {
+        this(ForkJoinPool.commonPool(), trees, playouts, budgetMillis);
+    }
+
+    /**
+     * Construct a bot.
+     *
+     * @param pool the pool the trees are searched on
+     * @param trees trees searched at once
+     * @param playouts playouts per tree and decision
+     * @param budgetMillis time for each decision in milliseconds, or 0 for no limit
+     */
+    public MctsBot(ForkJoinPool pool, int trees, int playouts, long budgetMillis) {
+        if(trees < 1 || playouts < 1) throw new IllegalArgumentException("A search needs at least one tree and playout");
+        this.pool = pool;
+        this.trees = trees;
+        this.playouts = playouts;
+        this.budgetNanos = budgetMillis * 1000000L;
+    }
+
+    /**
+     * Get the notepad, filling it in from the bot's hand and the extra cards the first time.
+     */
+    private Notepad notepad(HeadlessGame game, int seat) {
+        if(notepad == null) {
+            notepad = new Notepad(game.getPlayerCount());
+            notepad.learnExtraCards(DeductionBot.mask(game.getGame().getExtraCards()));
+            notepad.learnHand(seat, game.getGame().getCardOwners().hand(seat));
+            DistanceTable distances = game.getBoard().getDistances();
+            roomCell = new int[distances.roomCount()];
+            for(int cell = DistanceTable.CELLS - 1; cell >= 0; cell--)
+                if(distances.roomOf(cell) >= 0) roomCell[distances.roomOf(cell)] = cell;
+        }
+        return notepad;
+    }
+
+    private static int cellOf(Player player) {
+        Person person = player.getPerson();
+        return DistanceTable.cell(person.row(), person.col());
+    }
+
+    /**
+     * Choose the room to head for this turn, unless it has been chosen already.
+     * @param roll the roll, or -1 if it is not known yet
+     */
+    private void plan(HeadlessGame game, int seat, int roll) {
+        if(plannedTurn == game.getTurnCount()) return;
+        plannedTurn = game.getTurnCount();
+        target = search(game, seat, roll, false);
+    }
+
+    /**
+     * Search for the best decision.
+     *
+     * @param roll the roll, or -1 if it is not known
+     * @param accuse true to choose an accusation in the room the player is in, false to choose a room
+     * @return the room, or the accusation as a Playout action
+     */
+    private int search(HeadlessGame game, int seat, int roll, boolean accuse) {
+        Notepad notepad = notepad(game, seat);
+        int playerNum = game.getPlayerCount();
+        int[] cells = new int[playerNum];
+        int[] candidates = new int[playerNum];
+        for(int p = 0; p < playerNum; p++) {
+            cells[p] = cellOf(game.getPlayer(p));
+            candidates[p] = p == seat ? notepad.envelopeCandidates() : notepad.inPlay() & ~shownToAll;
+        }
+        Playout start = new Playout(game.getBoard().getDistances(), roomCell, seat, cells, candidates);
+        DealSampler sampler = new DealSampler(notepad);
+        long seed = game.getRandom().nextLong();
+
+        // the decisions open to the bot do not depend on how the hidden cards lie, so any deal lists them
+        Playout root = new Playout(start);
+        int[] deal = new int[Notepad.CARDS];
+        sampler.sample(new SplittableRandom(seed), deal);
+        root.reset(start, deal, new SplittableRandom(seed));
+        int[] actions = new int[Playout.ACTIONS];
+        int count = accuse ? root.suggestions(actions) : root.rooms(actions);
+        if(count == 0) return accuse ? Playout.SUGGESTION : root.defaultRoom(seat);
+        if(count == 1) return actions[0];
+
+        long deadline = budgetNanos > 0 ? System.nanoTime() + budgetNanos : Long.MAX_VALUE;
+        List<Tree> searches = new ArrayList<>();
+        for(int t = 0; t < trees; t++)
+            searches.add(new Tree(start, sampler, seat, playerNum, roll, accuse, playouts,
+                    seed + (t + 1) * 0x9E3779B97F4A7C15L, deadline));
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                ForkJoinTask.invokeAll(searches);
+            }
+        });
+
+        int[] visits = new int[Playout.ACTIONS];
+        double[] wins = new double[Playout.ACTIONS];
+        for(Tree tree: searches)
+            for(Node child = tree.root.child; child != null; child = child.sibling) {
+                visits[child.action] += child.visits;
+                wins[child.action] += child.wins;
+            }
+        int best = actions[0];
+        for(int i = 1; i < count; i++) {
+            int a = actions[i];
+            if(visits[a] > visits[best] || visits[a] == visits[best] && wins[a] > wins[best]) best = a;
+        }
+        return best;
+    }
+
+    /**
+     * A decision in a tree: the bot's decisions made to reach it, of which this is the last.
+     */
+    private static final class Node {
+        final int action;
+        /** The first decision after this one, and the next decision after the same parent. */
+        Node child, sibling;
+        int visits;
+        /** Number of playouts in which this decision could be made. */
+        int available;
+        double wins;
+
+        Node(int action) {
+            this.action = action;
+        }
+    }
+
+    /**
+     * One tree, searched by one worker.
+     */
+    @SuppressWarnings("serial") // never serialized
+    private static final class Tree extends RecursiveAction implements Playout.Chooser {
+        private final Playout start;
+        private final DealSampler sampler;
+        private final int seat, playerNum;
+        private final int roll;
+        private final boolean accuse;
+        private final int playouts;
+        private final long seed;
+        private final long deadline;
+        final Node root = new Node(-1);
+
+        /** The nodes the current playout has been through. */
+        private Node[] path = new Node[64];
+        private int depth;
+        /** The node the playout is at, while it is still in the tree. */
+        private Node node;
+        private boolean inTree;
+        /** The children of the node being chosen from, by action. */
+        private final Node[] byAction = new Node[Playout.ACTIONS];
+        private SplittableRandom random;
+
+        Tree(Playout start, DealSampler sampler, int seat, int playerNum, int roll, boolean accuse, int playouts,
+             long seed, long deadline) {
+            this.start = start;
+            this.sampler = sampler;
+            this.seat = seat;
+            this.playerNum = playerNum;
+            this.roll = roll;
+            this.accuse = accuse;
+            this.playouts = playouts;
+            this.seed = seed;
+            this.deadline = deadline;
+        }
+
+        @Override
+        protected void compute() {
+            random = new SplittableRandom(seed);
+            Playout playout = new Playout(start);
+            int[] deal = new int[Notepad.CARDS];
+            for(int i = 0; i < playouts; i++) {
+                if((i & 15) == 0 && System.nanoTime() >= deadline) break;
+                for(int draw = 1; !sampler.sample(random, deal) && draw < MAX_DRAWS; draw++) {
+                    // drawn again
+                }
+                playout.reset(start, deal, random);
+                node = root;
+                inTree = true;
+                depth = 0;
+                int winner = playout.play(this, roll, accuse);
+                // a game nobody won in time counts as a share of a win
+                double reward = winner == seat ? 1 : winner < 0 ? 1.0 / playerNum : 0;
+                for(int d = 0; d < depth; d++) {
+                    path[d].visits++;
+                    path[d].wins += reward;
+                }
+            }
+        }
+
+        @Override
+        public int choose(int[] actions, int count, int fallback) {
+            if(!inTree) return fallback;
+            for(Node child = node.child; child != null; child = child.sibling) byAction[child.action] = child;
+            int unexplored = 0;
+            for(int i = 0; i < count; i++) {
+                Node child = byAction[actions[i]];
+                if(child == null) unexplored++;
+                else child.available++;
+            }
+            Node chosen = null;
+            if(unexplored > 0) {
+                // try a decision not tried yet, and play the rest of the game without the tree
+                int k = random.nextInt(unexplored);
+                for(int i = 0; chosen == null; i++)
+                    if(byAction[actions[i]] == null && k-- == 0) chosen = new Node(actions[i]);
+                chosen.available = 1;
+                chosen.sibling = node.child;
+                node.child = chosen;
+                inTree = false;
+            }else {
+                double best = -1;
+                for(int i = 0; i < count; i++) {
+                    Node child = byAction[actions[i]];
+                    double score = child.wins / child.visits + EXPLORATION * Math.sqrt(Math.log(child.available) / child.visits);
+                    if(score > best) {
+                        best = score;
+                        chosen = child;
+                    }
+                }
+            }
+            for(Node child = node.child; child != null; child = child.sibling) byAction[child.action] = null;
+            if(depth == path.length) path = Arrays.copyOf(path, 2 * depth);
+            path[depth++] = chosen;
+            node = chosen;
+            return chosen.action;
+        }
+    }
+
+    @Override
+    public boolean wantsAccusation(HeadlessGame game, int seat) {
+        Board board = game.getBoard();
+        int room = board.roomIndex(board.getRoom(game.getPlayer(seat)));
+        if(plannedTurn != game.getTurnCount()) {
+            // in a room at the start of the turn: accuse here, or go somewhere else
+            plan(game, seat, -1);
+            return target == room;
+        }
+        return target == room || (notepad(game, seat).envelopeCandidates() & (1 << (12 + room))) != 0;
+    }
+
+    @Override
+    public int chooseExit(HeadlessGame game, int seat, Map<Integer, DoorTile> doors) {
+        Board board = game.getBoard();
+        DistanceTable distances = board.getDistances();
+        int best = 1, bestDistance = Integer.MAX_VALUE;
+        for(Map.Entry<Integer, DoorTile> door: doors.entrySet()) {
+            int cell = DistanceTable.cell(door.getValue().getRow(), door.getValue().getCol());
+            if(board.getItemAt(cell) != null) continue;
+            int d = target < 0 ? 0 : distances.distanceToRoom(cell, target);
+            if(d != DistanceTable.UNREACHABLE && d < bestDistance) {
+                best = door.getKey();
+                bestDistance = d;
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public String nextMove(HeadlessGame game, int seat, int movesRemaining) {
+        plan(game, seat, movesRemaining);
+        Player player = game.getPlayer(seat);
+        int cell = cellOf(player);
+        int legal = game.getBoard().legalMoves(player);
+        if(legal == 0) return "x";
+        if(target >= 0) {
+            String move = DistanceTable.direction(cell, game.getBoard().getDistances().nextStepToRoom(cell, target));
+            for(int i = 0; i < BitBoard.MOVES.length; i++)
+                if(BitBoard.MOVES[i].equals(move) && (legal & (1 << i)) != 0) return move;
+        }
+        // the way is blocked: step aside at random
+        int n = game.getRandom().nextInt(Integer.bitCount(legal));
+        for(int i = 0; i < n; i++) legal &= legal - 1;
+        return BitBoard.MOVES[Integer.numberOfTrailingZeros(legal)];
+    }
+
+    @Override
+    public Card chooseWeapon(HeadlessGame game, int seat) {
+        int action = search(game, seat, -1, true) - Playout.SUGGESTION;
+        person = action / 6;
+        return game.getGame().getCard(6 + action % 6);
+    }
+
+    @Override
+    public Card chooseCharacter(HeadlessGame game, int seat) {
+        return game.getGame().getCard(person);
+    }
+
+    @Override
+    public boolean checkEnvelope(HeadlessGame game, int seat, Card person, Card weapon, Card room) {
+        int accused = (1 << person.getIndex()) | (1 << weapon.getIndex()) | (1 << room.getIndex());
+        return (accused & ~notepad(game, seat).envelopeCandidates()) == 0;
+    }
+
+    @Override
+    public void observeAccusation(HeadlessGame game, int seat, int accuser, Card person, Card weapon, Card room,
+                                  int disputer, Card shown) {
+        if(shown != null) shownToAll |= 1 << shown.getIndex();
+        notepad(game, seat).learnAccusation(accuser, person.getIndex(), weapon.getIndex(), room.getIndex(),
+                disputer, shown == null ? -1 : shown.getIndex());
+    }
+}
@@ -0,0 +1,253 @@
+package Cluedo.Simulation;
+import Cluedo.Deduction.Notepad;
+import Cluedo.Navigation.DistanceTable;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * A fast model of the rest of a headless game with every card dealt, played out many times by MctsBot.
+ *
+ * Only what decides the winner is kept: the square of each player's person, the cards each player knows
+ * are not in the envelope, and who holds each card. A player heads for a room the shortest way (DistanceTable),
+ * leaving a room through its nearest door, and enters it with any roll of at least the distance, as in
+ * HeadlessGame; other people are not in the way. The accused character is called to the room, every card shown
+ * is seen by everyone (Game prints it), and an accusation nobody disputes is checked against the envelope,
+ * which wins if the accuser holds none of its cards.
+ *
+ * The player being searched for asks a Chooser for its decisions; everyone else plays like DeductionBot:
+ * accuse from a room whose card may be in the envelope, or go to the nearest such room, and name cards
+ * that may be in the envelope.
+ */
+final class Playout {
+    /** Number of decisions: a room to go to (0 to 8), or a character and weapon to accuse (SUGGESTION onwards). */
+    static final int ACTIONS = 9 + 6 * 6;
+    /** The first action of an accusation: SUGGESTION + character * 6 + weapon - 6. */
+    static final int SUGGESTION = 9;
+    /** Turns played before a playout counts as nobody's win. */
+    static final int MAX_TURNS = 400;
+
+    private static final int[] KINDS = {Notepad.CHARACTERS, Notepad.WEAPONS, Notepad.ROOMS};
+
+    /**
+     * Makes the decisions of the player being searched for.
+     */
+    interface Chooser {
+        /**
+         * Choose one of some actions.
+         *
+         * @param actions the actions that can be taken
+         * @param count number of actions
+         * @param fallback the action DeductionBot's way of playing would take
+         * @return the action
+         */
+        int choose(int[] actions, int count, int fallback);
+    }
+
+    private final DistanceTable distances;
+    /** A square of each room. */
+    private final int[] roomCell;
+    private final int playerNum;
+    /** The player being searched for. */
+    private final int seat;
+
+    /** The square of each player's person. */
+    private final int[] cell;
+    /** Cards each player does not know to be out of the envelope. */
+    private final int[] candidates;
+    /** Owner of every card: a player, playerNum for the envelope, or -1 for the extra cards. */
+    private final int[] owner = new int[Notepad.CARDS];
+    private final int[] hand;
+    private int envelope;
+    private SplittableRandom random;
+    /** Reused for the actions of a decision. */
+    private final int[] actions = new int[ACTIONS];
+
+    /**
+     * Set up a playout from the game as it is.
+     *
+     * @param distances the board's distances
+     * @param roomCell a square of each room
+     * @param seat the player being searched for
+     * @param cell the square of each player's person
+     * @param candidates the cards each player does not know to be out of the envelope
+     *                   (the searched player's own knowledge, and what is known to everyone for the others)
+     */
+    Playout(DistanceTable distances, int[] roomCell, int seat, int[] cell, int[] candidates) {
+        this.distances = distances;
+        this.roomCell = roomCell;
+        this.playerNum = cell.length;
+        this.seat = seat;
+        this.cell = cell.clone();
+        this.candidates = candidates.clone();
+        this.hand = new int[playerNum];
+    }
+
+    /**
+     * Make a playout of the same game, to play from another's state with reset.
+     * @param other the playout
+     */
+    Playout(Playout other) {
+        this(other.distances, other.roomCell, other.seat, other.cell, other.candidates);
+    }
+
+    /**
+     * Start again from another playout's state, with the cards dealt another way.
+     *
+     * @param start the state to start from
+     * @param deal the owner of every card (as drawn by DealSampler)
+     * @param random the random numbers for the dice and the other players' choices
+     */
+    void reset(Playout start, int[] deal, SplittableRandom random) {
+        System.arraycopy(start.cell, 0, cell, 0, playerNum);
+        System.arraycopy(deal, 0, owner, 0, Notepad.CARDS);
+        Arrays.fill(hand, 0);
+        envelope = 0;
+        for(int card = 0; card < Notepad.CARDS; card++) {
+            if(owner[card] == playerNum) envelope |= 1 << card;
+            else if(owner[card] >= 0) hand[owner[card]] |= 1 << card;
+        }
+        for(int p = 0; p < playerNum; p++)
+            candidates[p] = p == seat ? start.candidates[p] : start.candidates[p] & ~hand[p];
+        this.random = random;
+    }
+
+    /**
+     * Play until somebody wins, starting with the searched player's turn.
+     *
+     * @param chooser makes the searched player's decisions
+     * @param roll the searched player's roll this turn, or -1 to roll it
+     * @param accuseNow true to start with the searched player's accusation in the room they are in
+     * @return index of the winner, or -1 if nobody won in MAX_TURNS turns
+     */
+    int play(Chooser chooser, int roll, boolean accuseNow) {
+        int player = seat;
+        for(int turn = 0; turn < MAX_TURNS; turn++) {
+            boolean first = turn == 0;
+            int room = accuseNow && first ? distances.roomOf(cell[player]) : move(player, chooser, first ? roll : -1);
+            if(room >= 0 && accuse(player, room, chooser)) return player;
+            player = player + 1 == playerNum ? 0 : player + 1;
+        }
+        return -1;
+    }
+
+    /**
+     * Choose a room and go towards it.
+     * @return the room the player accuses from, or -1 if they did not reach one
+     */
+    private int move(int player, Chooser chooser, int roll) {
+        int target = player == seat ? chooseRoom(chooser) : defaultRoom(player);
+        if(target < 0) return -1;
+        int from = cell[player];
+        if(distances.roomOf(from) == target) return target;
+        int distance = distances.distanceToRoom(from, target);
+        if(distance == DistanceTable.UNREACHABLE) return -1;
+        if(roll < 0) roll = 2 + random.nextInt(6) + random.nextInt(6);
+        if(distance <= roll) {
+            cell[player] = roomCell[target];
+            return target;
+        }
+        for(int step = 0; step < roll; step++) from = distances.nextStepToRoom(from, target);
+        cell[player] = from;
+        return -1;
+    }
+
+    /**
+     * Get the rooms the searched player may choose to go to (or stay in): the rooms whose card may be the envelope's.
+     * @param actions set to the rooms
+     * @return number of rooms
+     */
+    int rooms(int[] actions) {
+        int count = 0;
+        int from = cell[seat];
+        for(int room = 0; room < roomCell.length; room++)
+            if((candidates[seat] & (1 << (12 + room))) != 0
+                    && (distances.roomOf(from) == room || distances.distanceToRoom(from, room) != DistanceTable.UNREACHABLE))
+                actions[count++] = room;
+        return count;
+    }
+
+    /**
+     * Get the accusations the searched player may choose: characters and weapons that may be in the envelope
+     * or are in their own hand.
+     * @param actions set to the accusations
+     * @return number of accusations
+     */
+    int suggestions(int[] actions) {
+        int cards = candidates[seat] | hand[seat];
+        int count = 0;
+        for(int people = cards & Notepad.CHARACTERS; people != 0; people &= people - 1)
+            for(int weapons = cards & Notepad.WEAPONS; weapons != 0; weapons &= weapons - 1)
+                actions[count++] = SUGGESTION + Integer.numberOfTrailingZeros(people) * 6
+                        + Integer.numberOfTrailingZeros(weapons) - 6;
+        return count;
+    }
+
+    private int chooseRoom(Chooser chooser) {
+        int count = rooms(actions);
+        if(count == 0) return -1;
+        return chooser.choose(actions, count, defaultRoom(seat));
+    }
+
+    /**
+     * The room DeductionBot would go to: the room the player is in if its card may be in the envelope,
+     * otherwise the nearest room whose card may be.
+     */
+    int defaultRoom(int player) {
+        int from = cell[player];
+        int here = distances.roomOf(from);
+        if(here >= 0 && (candidates[player] & (1 << (12 + here))) != 0) return here;
+        int best = -1, bestDistance = Integer.MAX_VALUE;
+        for(int room = 0; room < roomCell.length; room++) {
+            if(room == here || (candidates[player] & (1 << (12 + room))) == 0) continue;
+            int d = distances.distanceToRoom(from, room);
+            if(d != DistanceTable.UNREACHABLE && d < bestDistance) {
+                best = room;
+                bestDistance = d;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Make an accusation and settle it.
+     * @return true if the accuser wins
+     */
+    private boolean accuse(int player, int room, Chooser chooser) {
+        int person = pick(candidates[player] & Notepad.CHARACTERS);
+        int weapon = pick(candidates[player] & Notepad.WEAPONS);
+        if(player == seat) {
+            int action = chooser.choose(actions, suggestions(actions), SUGGESTION + person * 6 + weapon - 6);
+            person = (action - SUGGESTION) / 6;
+            weapon = 6 + (action - SUGGESTION) % 6;
+        }
+        int roomCard = 12 + room;
+        if(person < playerNum) cell[person] = roomCell[room];
+        int accused = (1 << person) | (1 << weapon) | (1 << roomCard);
+        for(int i = 1; i < playerNum; i++) {
+            int disputer = player + i < playerNum ? player + i : player + i - playerNum;
+            int shown = owner[weapon] == disputer ? weapon : owner[roomCard] == disputer ? roomCard
+                    : owner[person] == disputer ? person : -1;
+            if(shown >= 0) {
+                for(int p = 0; p < playerNum; p++) candidates[p] &= ~(1 << shown);
+                return false;
+            }
+        }
+        // nobody could dispute it: the cards the accuser does not hold are in the envelope
+        for(int kind: KINDS) {
+            int card = accused & kind;
+            if((card & hand[player]) == 0 && (card & candidates[player]) != 0)
+                candidates[player] = candidates[player] & ~kind | card;
+        }
+        return accused == envelope;
+    }
+
+    /**
+     * Pick one of some cards at random, or -1 if there are none.
+     */
+    private int pick(int cards) {
+        if(cards == 0) return -1;
+        int n = random.nextInt(Integer.bitCount(cards));
+        for(int i = 0; i < n; i++) cards &= cards - 1;
+        return Integer.numberOfTrailingZeros(cards);
+    }
+}
@@ -0,0 +1,53 @@
+package Cluedo.Simulation;
+import Cluedo.BitBoard;
+import Cluedo.Card;
+import Cluedo.Game;
+import Cluedo.Tiles.DoorTile;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A bot that walks at random and accuses at random.
+ * It only checks the envelope when none of the accused cards are in its hand or the extra cards,
+ * in which case the accusation must be correct.
+ */
+public class RandomBot implements Bot {
+    @Override
+    public boolean wantsAccusation(HeadlessGame game, int seat) {
+        return game.getRandom().nextInt(2) == 0;
+    }
+
+    @Override
+    public int chooseExit(HeadlessGame game, int seat, Map<Integer, DoorTile> doors) {
+        return game.getRandom().nextInt(doors.size()) + 1;
+    }
+
+    @Override
+    public String nextMove(HeadlessGame game, int seat, int movesRemaining) {
+        int legal = game.getBoard().legalMoves(game.getPlayer(seat));
+        if(legal == 0) return "x";
+        // pick one of the set bits at random
+        int pick = game.getRandom().nextInt(Integer.bitCount(legal));
+        for(int i = 0; i < pick; i++) legal &= legal - 1;
+        return BitBoard.MOVES[Integer.numberOfTrailingZeros(legal)];
+    }
+
+    @Override
+    public Card chooseWeapon(HeadlessGame game, int seat) {
+        return game.getGame().getCard(Game.CHARACTER_NAMES.length + game.getRandom().nextInt(Game.WEAPON_NAMES.length));
+    }
+
+    @Override
+    public Card chooseCharacter(HeadlessGame game, int seat) {
+        return game.getGame().getCard(game.getRandom().nextInt(Game.CHARACTER_NAMES.length));
+    }
+
+    @Override
+    public boolean checkEnvelope(HeadlessGame game, int seat, Card person, Card weapon, Card room) {
+        List<Card> hand = game.getPlayer(seat).getHand();
+        List<Card> extraCards = game.getGame().getExtraCards();
+        for(Card card: new Card[]{person, weapon, room})
+            if(hand.contains(card) || extraCards.contains(card)) return false;
+        return true;
+    }
+}
@@ -0,0 +1,224 @@
+package Cluedo.Simulation;
+import Cluedo.Game;
+import Cluedo.GameInput;
+import Cluedo.GameRandom;
+import Cluedo.WordReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Plays scripts of recorded games through the real Game, at full speed, to check that the game
+ * still behaves the same way (every game prints exactly what it printed when it was recorded) and
+ * to load it.
+ *
+ * A script holds any number of games, each written as
+ *   game seed players  answer answer ...  end checksum
+ * The answers are the words typed during the game. The game is dealt and its dice rolled from the seed,
+ * so the same answers play the same game. It stops when someone wins or the answers run out.
+ * The checksum is the CRC-32 of everything the game printed, in hex, or - if it has not been recorded.
+ */
+public class ScriptRunner {
+    /** Words that may be answered to any question, for generated scripts; moves are the most common. */
+    private static final String[] ANSWERS = {"w", "a", "s", "d", "w", "a", "s", "d", "w", "a", "s", "d",
+            "x", "yes", "no", "1", "2", "3", "4", "5", "6", "c"};
+
+    private final WordReader reader;
+    /** Where the script is written again with the checksums of this run, or null. */
+    private final Writer record;
+    private final boolean verbose;
+
+    private long games;
+    private long finished;
+    private long mismatches;
+    private long unchecked;
+    private long answers;
+
+    /**
+     * Construct a runner.
+     *
+     * @param reader the script
+     * @param record where the script is written again with this run's checksums, or null
+     * @param verbose whether the games are printed
+     */
+    public ScriptRunner(WordReader reader, Writer record, boolean verbose) {
+        this.reader = reader;
+        this.record = record;
+        this.verbose = verbose;
+    }
+
+    /**
+     * Play every game of the script.
+     * @throws IOException if the recorded script cannot be written
+     * @throws IllegalArgumentException if the script is not well formed
+     */
+    public void run() throws IOException {
+        while(true) {
+            String word;
+            try {
+                word = reader.next();
+            }catch(NoSuchElementException e) {
+                return;
+            }
+            if(!word.equals("game")) throw new IllegalArgumentException("Expected game at game " + (games + 1) + ", not " + word);
+            play();
+        }
+    }
+
+    /**
+     * Play the next game of the script, whose "game" has been read.
+     */
+    private void play() throws IOException {
+        long seed;
+        int playerNum;
+        try {
+            seed = Long.parseLong(reader.next());
+            playerNum = Integer.parseInt(reader.next());
+        }catch(NumberFormatException e) {
+            throw new IllegalArgumentException("Bad seed or number of players in game " + (games + 1));
+        }
+        if(playerNum < 3 || playerNum > 6)
+            throw new IllegalArgumentException("Game " + (games + 1) + " has " + playerNum + " players");
+
+        CRC32 crc = new CRC32();
+        OutputStream sink = verbose ? System.out : OutputStream.nullOutputStream();
+        PrintStream out = new PrintStream(new CheckedOutputStream(sink, crc), false);
+        Section section = new Section();
+        Game game = new Game(section, out, new GameRandom(seed));
+        game.initialise(playerNum);
+        try {
+            game.run();
+            finished++;
+        }catch(NoSuchElementException e) {
+            // the answers ran out before anyone won
+        }
+        out.flush();
+        section.skipRest();
+        games++;
+        answers += section.used;
+
+        String expected = reader.next();
+        String actual = Long.toHexString(crc.getValue());
+        if(expected.equals("-")) unchecked++;
+        else if(!expected.equalsIgnoreCase(actual)) {
+            mismatches++;
+            System.out.println("Game " + games + " (seed " + seed + ") printed " + actual + ", recorded " + expected);
+        }
+        if(record != null) {
+            record.write("game " + seed + " " + playerNum);
+            for(String answer: section.words) record.write(" " + answer);
+            record.write(" end " + actual + "\n");
+        }
+    }
+
+    /**
+     * The answers of one game, up to its "end".
+     */
+    private class Section implements GameInput {
+        private boolean ended;
+        private int used;
+        /** The answers read, kept only when the script is recorded. */
+        private final List<String> words = new ArrayList<>();
+
+        @Override
+        public String next() {
+            if(ended) throw new NoSuchElementException("The game's answers ran out");
+            String word = reader.next();
+            if(word.equals("end")) {
+                ended = true;
+                throw new NoSuchElementException("The game's answers ran out");
+            }
+            if(record != null) words.add(word);
+            used++;
+            return word;
+        }
+
+        /**
+         * Read up to the end of the game's answers; those after the end of a finished game are not used.
+         */
+        void skipRest() {
+            while(!ended) {
+                String word = reader.next();
+                if(word.equals("end")) ended = true;
+                else if(record != null) words.add(word);
+            }
+        }
+    }
+
+    /** Get the number of games played. */
+    public long getGames() { return games; }
+
+    /** Get the number of games that someone won. */
+    public long getFinished() { return finished; }
+
+    /** Get the number of games that did not print what was recorded. */
+    public long getMismatches() { return mismatches; }
+
+    /**
+     * Write a script of games with random answers, for load tests; run it with a record file to add checksums.
+     *
+     * @param file the script file
+     * @param games number of games
+     * @param playerNum number of players in each game
+     * @param answers answers per game
+     * @param seed seed of the games and answers
+     * @throws IOException if the file cannot be written
+     */
+    public static void generate(Path file, long games, int playerNum, int answers, long seed) throws IOException {
+        GameRandom random = new GameRandom(seed);
+        try(BufferedWriter writer = Files.newBufferedWriter(file)) {
+            for(long g = 0; g < games; g++) {
+                writer.write("game " + random.nextLong() + " " + playerNum);
+                for(int i = 0; i < answers; i++) {
+                    writer.write(i % 24 == 0 ? '\n' : ' ');
+                    writer.write(ANSWERS[random.nextInt(ANSWERS.length)]);
+                }
+                writer.write("\nend -\n");
+            }
+        }
+    }
+
+    /**
+     * Play a script, or generate one.
+     *
+     * @param args a script file, then optionally a file to write it to with this run's checksums,
+     *             and -v to print the games;
+     *             or "generate", a file, number of games, players, answers per game and seed
+     * @throws IOException if a file cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        if(args.length > 0 && args[0].equals("generate")) {
+            generate(Paths.get(args[1]), Long.parseLong(args[2]), Integer.parseInt(args[3]),
+                    Integer.parseInt(args[4]), Long.parseLong(args[5]));
+            return;
+        }
+        boolean verbose = false;
+        Path recordFile = null;
+        for(int i = 1; i < args.length; i++) {
+            if(args[i].equals("-v")) verbose = true;
+            else recordFile = Paths.get(args[i]);
+        }
+        long start = System.nanoTime();
+        try(WordReader reader = WordReader.open(Paths.get(args[0]));
+            Writer record = recordFile == null ? null : Files.newBufferedWriter(recordFile)) {
+            ScriptRunner runner = new ScriptRunner(reader, record, verbose);
+            runner.run();
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%d games (%d won) with %d answers in %.2f s: %.0f games/s, %.0f answers/s%n",
+                    runner.games, runner.finished, runner.answers, seconds, runner.games / seconds, runner.answers / seconds);
+            System.out.println(runner.mismatches + " games printed something other than recorded, "
+                    + runner.unchecked + " had no checksum");
+            if(runner.mismatches > 0) System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package Cluedo.Simulation;
+
+/**
+ * Totals over a batch of headless games.
+ * Each batch of games keeps its own stats, and the batches are merged when they finish.
+ */
+public class SimulationStats {
+    /**
+     * Wins for each seat.
+     */
+    private final long[] wins;
+    private long games;
+    private long unfinished;
+    private long turns;
+    private long accusations;
+    private long envelopeChecks;
+    /**
+     * Wall-clock time of the run, set by the simulator when the run finishes.
+     */
+    private long elapsedNanos;
+
+    /**
+     * Construct empty stats.
+     * @param playerNum number of players in each game
+     */
+    public SimulationStats(int playerNum) {
+        wins = new long[playerNum];
+    }
+
+    /**
+     * Add the result of one game.
+     * @param result the result of the game
+     */
+    public void add(GameResult result) {
+        games++;
+        if(result.getWinner() < 0) unfinished++;
+        else wins[result.getWinner()]++;
+        turns += result.getTurns();
+        accusations += result.getAccusations();
+        envelopeChecks += result.getEnvelopeChecks();
+    }
+
+    /**
+     * Add the totals of another batch of games into these stats.
+     * @param other stats of the other batch
+     * @return these stats
+     */
+    public SimulationStats merge(SimulationStats other) {
+        games += other.games;
+        unfinished += other.unfinished;
+        turns += other.turns;
+        accusations += other.accusations;
+        envelopeChecks += other.envelopeChecks;
+        for(int i = 0; i < wins.length; i++) wins[i] += other.wins[i];
+        return this;
+    }
+
+    void setElapsedNanos(long elapsedNanos) { this.elapsedNanos = elapsedNanos; }
+
+    /**
+     * Get the number of games played.
+     * @return number of games
+     */
+    public long getGames() { return games; }
+
+    /**
+     * Get the number of wins for a seat.
+     * @param seat index of the player
+     * @return number of wins
+     */
+    public long getWins(int seat) { return wins[seat]; }
+
+    /**
+     * Get the number of games that reached the round limit without a winner.
+     * @return number of unfinished games
+     */
+    public long getUnfinished() { return unfinished; }
+
+    /**
+     * Get the average number of turns per game.
+     * @return average turns
+     */
+    public double getAverageTurns() { return games == 0 ? 0 : (double) turns / games; }
+
+    /**
+     * Get the number of games finished per second of wall-clock time.
+     * @return games per second
+     */
+    public double getGamesPerSecond() { return elapsedNanos == 0 ? 0 : games * 1e9 / elapsedNanos; }
+
+    /**
+     * Summarise the stats.
+     * @return one line per figure
+     */
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Games: %d in %.2fs (%.0f games/sec)%n", games, elapsedNanos / 1e9, getGamesPerSecond()));
+        for(int i = 0; i < wins.length; i++)
+            sb.append(String.format("  Seat %d wins: %d (%.1f%%)%n", i + 1, wins[i], games == 0 ? 0 : 100.0 * wins[i] / games));
+        sb.append(String.format("Unfinished: %d%n", unfinished));
+        sb.append(String.format("Average turns: %.1f%n", getAverageTurns()));
+        sb.append(String.format("Accusations: %d, envelope checks: %d", accusations, envelopeChecks));
+        return sb.toString();
+    }
+}
@@ -0,0 +1,166 @@
+package Cluedo.Simulation;
+import Cluedo.GameRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * Runs many independent headless games over a fork-join pool,
+ * splitting the games into batches that are stolen by idle worker threads.
+ *
+ * Every game has its own random numbers, seeded from the simulator's seed and the game's number,
+ * so a run gives the same totals from the same seed however the games are spread over threads.
+ */
+public class Simulator {
+    /**
+     * Games in a batch that is played by one worker without splitting further.
+     */
+    private static final long BATCH_SIZE = 256;
+
+    /**
+     * Rounds played before a game is abandoned.
+     */
+    public static final int DEFAULT_MAX_ROUNDS = 500;
+
+    private final int playerNum;
+    /**
+     * Creates the bot for a seat; called for every seat of every game.
+     */
+    private final IntFunction<Bot> bots;
+    private final int maxRounds;
+    private final long seed;
+
+    /**
+     * Construct a simulator with a seed of its own.
+     *
+     * @param playerNum number of players in each game (from 3 to 6)
+     * @param bots creates the bot for a seat
+     * @param maxRounds rounds played before a game is abandoned
+     */
+    public Simulator(int playerNum, IntFunction<Bot> bots, int maxRounds) {
+        this(playerNum, bots, maxRounds, new GameRandom().nextLong());
+    }
+
+    /**
+     * Construct a simulator whose runs can be repeated exactly.
+     *
+     * @param playerNum number of players in each game (from 3 to 6)
+     * @param bots creates the bot for a seat
+     * @param maxRounds rounds played before a game is abandoned
+     * @param seed the seed the games' random numbers are made from
+     */
+    public Simulator(int playerNum, IntFunction<Bot> bots, int maxRounds, long seed) {
+        this.playerNum = playerNum;
+        this.bots = bots;
+        this.maxRounds = maxRounds;
+        this.seed = seed;
+    }
+
+    /**
+     * Get the seed the games' random numbers are made from.
+     * @return the seed
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Play a number of games on the common fork-join pool.
+     *
+     * @param games number of games to play
+     * @return totals over all the games
+     */
+    public SimulationStats run(long games) {
+        return run(games, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Play a number of games on a fork-join pool.
+     *
+     * @param games number of games to play
+     * @param pool the pool to play them on
+     * @return totals over all the games
+     */
+    public SimulationStats run(long games, ForkJoinPool pool) {
+        long start = System.nanoTime();
+        SimulationStats stats = pool.invoke(new Batch(0, games));
+        stats.setElapsedNanos(System.nanoTime() - start);
+        return stats;
+    }
+
+    /**
+     * Play one game of a run. Game number i is the same game in every run with the same seed.
+     *
+     * @param index the game's number
+     * @return the result of the game
+     */
+    public GameResult play(long index) {
+        Bot[] seats = new Bot[playerNum];
+        for(int i = 0; i < playerNum; i++) seats[i] = bots.apply(i);
+        return new HeadlessGame(seats, maxRounds, new GameRandom(gameSeed(index))).run();
+    }
+
+    /**
+     * Mix the simulator's seed with a game's number, so that neighbouring games get unrelated seeds.
+     */
+    private long gameSeed(long index) {
+        return mix(seed + (index + 1) * 0x9E3779B97F4A7C15L);
+    }
+
+    /**
+     * Scramble the bits of a number (the finaliser of MurmurHash3).
+     */
+    static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return z ^ (z >>> 33);
+    }
+
+    /**
+     * A range of games, split in half until it is small enough to play directly.
+     */
+    @SuppressWarnings("serial") // never serialized
+    private class Batch extends RecursiveTask<SimulationStats> {
+        private final long from, to;
+
+        Batch(long from, long to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected SimulationStats compute() {
+            if(to - from <= BATCH_SIZE) {
+                SimulationStats stats = new SimulationStats(playerNum);
+                for(long i = from; i < to; i++) stats.add(play(i));
+                return stats;
+            }
+            long mid = (from + to) >>> 1;
+            Batch left = new Batch(from, mid);
+            left.fork();
+            SimulationStats right = new Batch(mid, to).compute();
+            return left.join().merge(right);
+        }
+    }
+
+    /**
+     * Play bots against each other and print the results.
+     *
+     * @param args number of games (default 100000), number of players (default 6),
+     *             the bot (a Tournament.strategy name, default deduction), and the seed (default random)
+     */
+    public static void main(String[] args) {
+        long games = args.length > 0 ? Long.parseLong(args[0]) : 100000;
+        int playerNum = args.length > 1 ? Integer.parseInt(args[1]) : 6;
+        String bot = args.length > 2 ? args[2] : "deduction";
+        Supplier<Bot> strategy = Tournament.strategy(bot);
+        IntFunction<Bot> bots = seat -> strategy.get();
+        Simulator simulator = args.length > 3
+                ? new Simulator(playerNum, bots, DEFAULT_MAX_ROUNDS, Long.parseLong(args[3]))
+                : new Simulator(playerNum, bots, DEFAULT_MAX_ROUNDS);
+        System.out.println("Simulating " + games + " games of " + playerNum + " " + bot + " bots on "
+                + ForkJoinPool.commonPool().getParallelism() + " workers with seed " + simulator.getSeed());
+        System.out.println(simulator.run(games));
+    }
+}
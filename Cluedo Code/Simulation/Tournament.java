@@ -0,0 +1,218 @@
+package Cluedo.Simulation;
+import Cluedo.GameRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Supplier;
+
+/**
+ * A round-robin tournament between bot strategies.
+ *
+ * For every number of players in a range, every way of giving the seats to the strategies
+ * (a lineup) plays the same set of deals, so no strategy is helped by its seat or by luck of the deal.
+ * The games are split into batches over a fork-join pool, and every game adds its result straight
+ * into the shared TournamentStats.
+ */
+public class Tournament {
+    /**
+     * Games in a batch that is played by one worker without splitting further.
+     */
+    private static final long BATCH_SIZE = 64;
+    /** Trees and playouts per tree of each decision of the mcts strategy. */
+    static final int MCTS_TREES = 4, MCTS_PLAYOUTS = 500;
+
+    private final String[] names;
+    private final List<Supplier<Bot>> strategies;
+    private final int minPlayers;
+    private final int maxPlayers;
+    /** Deals played by every lineup. */
+    private final long deals;
+    private final int maxRounds;
+    private final long seed;
+    /** The strategy of each seat, for every lineup. */
+    private final int[][] lineups;
+
+    /**
+     * Construct a tournament.
+     *
+     * @param names names of the strategies
+     * @param strategies creates a bot of each strategy; called for every seat of every game
+     * @param minPlayers fewest players in a game (at least 3)
+     * @param maxPlayers most players in a game (at most 6)
+     * @param deals deals played by every lineup
+     * @param maxRounds rounds played before a game is abandoned
+     * @param seed the seed the deals are made from
+     */
+    public Tournament(String[] names, List<Supplier<Bot>> strategies, int minPlayers, int maxPlayers, long deals,
+                      int maxRounds, long seed) {
+        if(minPlayers < 3 || maxPlayers > 6 || minPlayers > maxPlayers)
+            throw new IllegalArgumentException("A game needs 3 to 6 players");
+        if(names.length != strategies.size() || names.length == 0)
+            throw new IllegalArgumentException("Every strategy needs a name");
+        this.names = names;
+        this.strategies = strategies;
+        this.minPlayers = minPlayers;
+        this.maxPlayers = maxPlayers;
+        this.deals = deals;
+        this.maxRounds = maxRounds;
+        this.seed = seed;
+        this.lineups = lineups(strategies.size(), minPlayers, maxPlayers);
+    }
+
+    /**
+     * List every way of giving the seats of games of each size to the strategies,
+     * leaving out games of one strategy against itself when there are others.
+     */
+    private static int[][] lineups(int strategyNum, int minPlayers, int maxPlayers) {
+        List<int[]> lineups = new ArrayList<>();
+        for(int playerNum = minPlayers; playerNum <= maxPlayers; playerNum++) {
+            long count = Math.round(Math.pow(strategyNum, playerNum));
+            for(long code = 0; code < count; code++) {
+                int[] lineup = new int[playerNum];
+                long rest = code;
+                boolean mixed = false;
+                for(int seat = 0; seat < playerNum; seat++) {
+                    lineup[seat] = (int) (rest % strategyNum);
+                    rest /= strategyNum;
+                    mixed |= lineup[seat] != lineup[0];
+                }
+                if(mixed || strategyNum == 1) lineups.add(lineup);
+            }
+        }
+        return lineups.toArray(new int[0][]);
+    }
+
+    /**
+     * Get the number of lineups.
+     * @return the number of lineups
+     */
+    public int getLineupCount() {
+        return lineups.length;
+    }
+
+    /**
+     * Get the number of games in the tournament.
+     * @return lineups times deals
+     */
+    public long getGameCount() {
+        return lineups.length * deals;
+    }
+
+    /**
+     * Play the tournament on the common fork-join pool.
+     * @return the totals
+     */
+    public TournamentStats run() {
+        return run(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Play the tournament on a fork-join pool.
+     *
+     * @param pool the pool to play it on
+     * @return the totals
+     */
+    public TournamentStats run(ForkJoinPool pool) {
+        TournamentStats stats = new TournamentStats(names, minPlayers, maxPlayers);
+        long start = System.nanoTime();
+        pool.invoke(new Batch(stats, 0, getGameCount()));
+        stats.setLineups(lineups.length);
+        stats.setElapsedNanos(System.nanoTime() - start);
+        return stats;
+    }
+
+    /**
+     * Play one game of the tournament. Game i is the same game in every tournament with the same seed.
+     *
+     * @param index the game's number
+     * @return the result of the game
+     */
+    public GameResult play(long index) {
+        int[] lineup = lineups[(int) (index / deals)];
+        Bot[] seats = new Bot[lineup.length];
+        for(int seat = 0; seat < seats.length; seat++) seats[seat] = strategies.get(lineup[seat]).get();
+        // every lineup of a size plays the same deals
+        long deal = index % deals;
+        long gameSeed = Simulator.mix(seed + lineup.length * 0x632BE59BD9B4E019L + (deal + 1) * 0x9E3779B97F4A7C15L);
+        return new HeadlessGame(seats, maxRounds, new GameRandom(gameSeed)).run();
+    }
+
+    /**
+     * A range of games, split in half until it is small enough to play directly.
+     */
+    @SuppressWarnings("serial") // never serialized
+    private class Batch extends RecursiveAction {
+        private final TournamentStats stats;
+        private final long from, to;
+
+        Batch(TournamentStats stats, long from, long to) {
+            this.stats = stats;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if(to - from <= BATCH_SIZE) {
+                for(long i = from; i < to; i++) stats.add(lineups[(int) (i / deals)], play(i));
+                return;
+            }
+            long mid = (from + to) >>> 1;
+            invokeAll(new Batch(stats, from, mid), new Batch(stats, mid, to));
+        }
+    }
+
+    /**
+     * Get a bot strategy by name.
+     * mcts searches MCTS_TREES trees of MCTS_PLAYOUTS playouts for each decision, which plays the same games on
+     * any machine; mcts:n searches as many trees as the common pool has workers for n milliseconds instead,
+     * so it plays better with a longer time or more cores.
+     *
+     * @param name random, deduction, mcts, or mcts: and the milliseconds of each decision
+     * @return creates bots of the strategy
+     * @throws IllegalArgumentException if there is no such strategy
+     */
+    public static Supplier<Bot> strategy(String name) {
+        if(name.startsWith("mcts:")) {
+            long millis;
+            try {
+                millis = Long.parseLong(name.substring(5));
+            }catch(NumberFormatException e) {
+                millis = 0;
+            }
+            if(millis <= 0) throw new IllegalArgumentException("No strategy called " + name);
+            int trees = ForkJoinPool.commonPool().getParallelism();
+            long budget = millis;
+            return () -> new MctsBot(trees, Integer.MAX_VALUE, budget);
+        }
+        switch(name) {
+            case "random": return RandomBot::new;
+            case "deduction": return DeductionBot::new;
+            case "mcts": return () -> new MctsBot(MCTS_TREES, MCTS_PLAYOUTS, 0);
+            default: throw new IllegalArgumentException("No strategy called " + name);
+        }
+    }
+
+    /**
+     * Play a tournament and print the report.
+     *
+     * @param args deals per lineup (default 200), strategies separated by commas (default deduction,random; see strategy),
+     *             fewest and most players (default 3 and 6), and the seed (default random)
+     */
+    public static void main(String[] args) {
+        long deals = args.length > 0 ? Long.parseLong(args[0]) : 200;
+        String[] names = (args.length > 1 ? args[1] : "deduction,random").split(",");
+        int minPlayers = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+        int maxPlayers = args.length > 3 ? Integer.parseInt(args[3]) : 6;
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : new GameRandom().nextLong();
+        List<Supplier<Bot>> strategies = new ArrayList<>();
+        for(String name: names) strategies.add(strategy(name));
+        Tournament tournament = new Tournament(names, strategies, minPlayers, maxPlayers, deals,
+                Simulator.DEFAULT_MAX_ROUNDS, seed);
+        System.out.println("Playing " + tournament.getGameCount() + " games (" + tournament.getLineupCount()
+                + " lineups of " + minPlayers + " to " + maxPlayers + " players, " + deals + " deals each) on "
+                + ForkJoinPool.commonPool().getParallelism() + " workers with seed " + seed);
+        System.out.println(tournament.run());
+    }
+}
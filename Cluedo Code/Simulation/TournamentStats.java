@@ -0,0 +1,193 @@
+package Cluedo.Simulation;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Totals of a tournament, for each number of players and each strategy.
+ * Every game adds its result straight into LongAdders, so the worker threads of a tournament
+ * share one set of totals without waiting on each other.
+ */
+public class TournamentStats {
+    /** Normal quantile of the 95% confidence intervals. */
+    private static final double Z = 1.959963984540054;
+
+    private final String[] strategies;
+    private final int minPlayers;
+    /** Totals of the games of each size, by number of players - minPlayers. */
+    private final Table[] tables;
+    /** Totals of each strategy in the games of each size, by number of players - minPlayers, then strategy. */
+    private final Standing[][] standings;
+    private long lineups;
+    private long elapsedNanos;
+
+    /**
+     * Totals of the games of one size.
+     */
+    private static class Table {
+        final LongAdder games = new LongAdder();
+        final LongAdder unfinished = new LongAdder();
+        final LongAdder turns = new LongAdder();
+        final LongAdder turnSquares = new LongAdder();
+    }
+
+    /**
+     * Totals of one strategy in the games of one size.
+     */
+    private static class Standing {
+        /** Seats the strategy played (more than one in a game if it had more than one seat). */
+        final LongAdder seats = new LongAdder();
+        final LongAdder wins = new LongAdder();
+        final LongAdder accusations = new LongAdder();
+        final LongAdder envelopeChecks = new LongAdder();
+    }
+
+    /**
+     * Construct empty totals.
+     *
+     * @param strategies names of the strategies
+     * @param minPlayers fewest players in a game
+     * @param maxPlayers most players in a game
+     */
+    public TournamentStats(String[] strategies, int minPlayers, int maxPlayers) {
+        this.strategies = strategies;
+        this.minPlayers = minPlayers;
+        tables = new Table[maxPlayers - minPlayers + 1];
+        standings = new Standing[tables.length][strategies.length];
+        for(int n = 0; n < tables.length; n++) {
+            tables[n] = new Table();
+            for(int s = 0; s < strategies.length; s++) standings[n][s] = new Standing();
+        }
+    }
+
+    /**
+     * Add the result of one game; may be called from any thread.
+     *
+     * @param lineup the strategy of each seat
+     * @param result the result of the game
+     */
+    public void add(int[] lineup, GameResult result) {
+        int size = lineup.length - minPlayers;
+        Table table = tables[size];
+        table.games.increment();
+        if(result.getWinner() < 0) table.unfinished.increment();
+        table.turns.add(result.getTurns());
+        table.turnSquares.add((long) result.getTurns() * result.getTurns());
+        for(int seat = 0; seat < lineup.length; seat++) {
+            Standing standing = standings[size][lineup[seat]];
+            standing.seats.increment();
+            if(result.getWinner() == seat) standing.wins.increment();
+            standing.accusations.add(result.getAccusations(seat));
+            standing.envelopeChecks.add(result.getEnvelopeChecks(seat));
+        }
+    }
+
+    void setLineups(long lineups) { this.lineups = lineups; }
+
+    void setElapsedNanos(long elapsedNanos) { this.elapsedNanos = elapsedNanos; }
+
+    /**
+     * Get the number of games played.
+     * @return number of games
+     */
+    public long getGames() {
+        long games = 0;
+        for(Table table: tables) games += table.games.sum();
+        return games;
+    }
+
+    /**
+     * Get the number of games a strategy won.
+     *
+     * @param strategy index of the strategy
+     * @param playerNum number of players in the games counted
+     * @return number of wins
+     */
+    public long getWins(int strategy, int playerNum) {
+        return standings[playerNum - minPlayers][strategy].wins.sum();
+    }
+
+    /**
+     * Get the number of seats a strategy played.
+     *
+     * @param strategy index of the strategy
+     * @param playerNum number of players in the games counted
+     * @return number of seats
+     */
+    public long getSeats(int strategy, int playerNum) {
+        return standings[playerNum - minPlayers][strategy].seats.sum();
+    }
+
+    /**
+     * Get the number of games finished per second of wall-clock time.
+     * @return games per second
+     */
+    public double getGamesPerSecond() { return elapsedNanos == 0 ? 0 : getGames() * 1e9 / elapsedNanos; }
+
+    /**
+     * Get the 95% Wilson score interval of a proportion.
+     *
+     * @param successes number of successes
+     * @param trials number of trials
+     * @return the lower and upper bounds, or 0 to 1 if there were no trials
+     */
+    public static double[] wilson(long successes, long trials) {
+        if(trials == 0) return new double[]{0, 1};
+        double p = (double) successes / trials;
+        double z2n = Z * Z / trials;
+        double centre = (p + z2n / 2) / (1 + z2n);
+        double half = Z * Math.sqrt(p * (1 - p) / trials + z2n / (4 * trials)) / (1 + z2n);
+        return new double[]{Math.max(0, centre - half), Math.min(1, centre + half)};
+    }
+
+    private static String percent(long successes, long trials) {
+        double[] interval = wilson(successes, trials);
+        return String.format("%5.1f%% [%5.1f%%, %5.1f%%]", trials == 0 ? 0 : 100.0 * successes / trials,
+                100 * interval[0], 100 * interval[1]);
+    }
+
+    /**
+     * Summarise the tournament: for each number of players, the average length of a game,
+     * and each strategy's win rate per seat and the share of its envelope checks that were right,
+     * with 95% confidence intervals. The last table is over every number of players, where a
+     * win counts against a fair share of one game in n for an n player game.
+     *
+     * @return the report
+     */
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Tournament: %d games over %d lineups in %.2fs (%.0f games/sec)%n",
+                getGames(), lineups, elapsedNanos / 1e9, getGamesPerSecond()));
+        int width = 8;
+        for(String name: strategies) width = Math.max(width, name.length());
+        double[] fairShares = new double[strategies.length];
+        long[] allWins = new long[strategies.length];
+        for(int size = 0; size < tables.length; size++) {
+            Table table = tables[size];
+            long games = table.games.sum();
+            if(games == 0) continue;
+            int playerNum = size + minPlayers;
+            double mean = (double) table.turns.sum() / games;
+            double variance = games < 2 ? 0 : (table.turnSquares.sum() - games * mean * mean) / (games - 1);
+            sb.append(String.format("%n%d players: %d games, %d unfinished, average turns %.1f +/- %.1f%n",
+                    playerNum, games, table.unfinished.sum(), mean, Z * Math.sqrt(Math.max(0, variance) / games)));
+            sb.append(String.format("  %-" + width + "s %9s  %-25s %12s  %s%n",
+                    "Strategy", "Seats", "Wins per seat", "Accusations", "Right envelope checks"));
+            for(int s = 0; s < strategies.length; s++) {
+                Standing standing = standings[size][s];
+                long seats = standing.seats.sum();
+                if(seats == 0) continue;
+                long wins = standing.wins.sum();
+                // a check is right only when it wins, which ends the game
+                sb.append(String.format("  %-" + width + "s %9d  %-25s %12.2f  %s%n", strategies[s], seats,
+                        percent(wins, seats), (double) standing.accusations.sum() / seats,
+                        percent(wins, standing.envelopeChecks.sum())));
+                fairShares[s] += (double) seats / playerNum;
+                allWins[s] += wins;
+            }
+        }
+        sb.append(String.format("%nEvery size: wins against a fair share%n"));
+        for(int s = 0; s < strategies.length; s++)
+            if(fairShares[s] > 0)
+                sb.append(String.format("  %-" + width + "s %.3f%n", strategies[s], allWins[s] / fairShares[s]));
+        return sb.toString();
+    }
+}
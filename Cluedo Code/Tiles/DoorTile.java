@@ -1,6 +1,4 @@
 package Cluedo.Tiles;
-import Cluedo.Items.*;
-import Cluedo.Items.Room;
 
 /**
  * This DoorTile class represents the door tiles.
@@ -8,18 +6,22 @@ import Cluedo.Items.Room;
  * which means more than one door tiles for the room.
  */
 public class DoorTile extends Tile {
-    // the room that has the DoorTile
-    private Room room;
+    // index of the room that has the DoorTile (order of Game.ROOM_NAMES)
+    private final int room;
     // the index of the door
-    private int doorNumber;
+    private final int doorNumber;
 
     /**
      * Constructor
      * @param x the index of the door amoung all the doors of the room
+     * @param room index of the room the door leads into
+     * @param row row index
+     * @param col column index
      */
-    public DoorTile(int x, int row, int col) {
+    public DoorTile(int x, int room, int row, int col) {
         super(row, col);
         this.doorNumber = x;
+        this.room = room;
     }
 
     /**
@@ -32,30 +34,19 @@ public class DoorTile extends Tile {
     }
 
     /**
-     * Set the room for the door tile
-     * @param r the room of the door tile
+     * Get the room of the door tile
+     * @return index of the room (order of Game.ROOM_NAMES)
      */
-    public void setRoom(Room r) {
-        this.room = r;
-        this.room.addDoorTile(doorNumber, this);
-    }
-
-    /**
-     * Get the Item of the door tile.
-     * @return the Item
-     */
-    public Item getItem() {
-        return super.getItem();
+    public int getRoomIndex() {
+        return room;
     }
 
     /**
      * Get the String of the door tile
-     * @return the name of the item if there is an item on the door tile;
-     *         return the door tile number otherwise.
+     * @return the door tile number.
      */
     public String toString() {
-        if(getItem() != null) return getItem().toString();
         return "" + this.doorNumber;
     }
 
-}
\ No newline at end of file
+}
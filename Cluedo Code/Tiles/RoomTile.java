@@ -1,28 +1,28 @@
 package Cluedo.Tiles;
-import Cluedo.Items.Room;
 
 /**
  * The RoomTile class defines the tiles of the rooms.
  */
 public class RoomTile extends Tile {
-    // the room that a RoomTile in
-    private Room room;
+    // index of the room that a RoomTile is in (order of Game.ROOM_NAMES)
+    private final int room;
 
     /**
      * Constructing a room tile by its room
-     * @param room
+     * @param room index of the room
+     * @param row row index
+     * @param col column index
      */
-    public RoomTile(Room room, int row, int col) {
+    public RoomTile(int room, int row, int col) {
         super(row, col);
         this.room = room;
     }
 
     /**
      * Get the room of the RoomTile
-     * @return the room object of the room tile
+     * @return index of the room (order of Game.ROOM_NAMES)
      */
-    public Room getRoom() {
-        return this.room;
+    public int getRoomIndex() {
+        return room;
     }
-
-}
\ No newline at end of file
+}
@@ -1,18 +1,15 @@
 package Cluedo.Tiles;
-import Cluedo.Items.Item;
 
 /**
  * Superclass of the different types of tiles.
+ * Tiles are part of the layout (BoardLayout), which is shared by every game, so they never change;
+ * what is on a square is kept by the Board of each game.
  */
 public class Tile {
-    /**
-     * Item on the tile
-     */
-    private Item item;
     /**
      * Position of the Tile: row index and column index.
      */
-    private int row, col;
+    private final int row, col;
 
     /**
      * Construct a Tile object using its position
@@ -22,7 +19,6 @@ public class Tile {
     public Tile(int row, int col) {
         this.row = row;
         this.col = col;
-        this.item = null;
     }
 
     /**
@@ -44,32 +40,10 @@ public class Tile {
     }
 
     /**
-     * Set item on the tile
-     * @param item the item on the tile
-     */
-    public void setItem(Item item) {
-        this.item = item;
-    }
-
-    /**
-     * Get the item on the tile
-     * @return the item object on the tile
-     */
-    public Item getItem(){
-        return this.item;
-    }
-
-    /**
-     * Get the name of the tile.
-     * If there is an item on the tile,
-     * return the name of the item.
-     * If there is nothing on the tile,
-     * return a space.
-     * @return the name of the item if there is an item on the tile;
-     *         otherwise return space " ".
+     * Get the name of the tile, as drawn when nothing is on it.
+     * @return a space
      */
     public String toString(){
-        if(item != null) return item.toString();
-        else return " ";
+        return " ";
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,119 @@
+package Cluedo;
+import Cluedo.Tiles.DoorTile;
+import java.util.Map;
+
+/**
+ * Makes the decisions of the player whose turn it is in Game.playTurn, and is told what came of them.
+ * A game played by people asks them through its input and output; a headless game asks bots (HeadlessGame).
+ * The rules of a turn are only in Game.playTurn, so people and bots play by the same ones.
+ */
+public interface TurnDecisions {
+
+    /**
+     * Called when a player's turn starts, before the dice are rolled.
+     * @param player index of the player
+     */
+    default void turnStarted(int player) {
+    }
+
+    /**
+     * Decide whether to make an accusation from the room the player is in.
+     *
+     * @param player index of the player
+     * @return true to make an accusation
+     */
+    boolean wantsAccusation(int player);
+
+    /**
+     * Choose the door to leave the room from. Only asked when the room has more than one door,
+     * and asked again if someone is blocking the door chosen.
+     *
+     * @param player index of the player
+     * @param doors the doors of the room (key is the door number)
+     * @return the number of the door
+     */
+    int chooseExit(int player, Map<Integer, DoorTile> doors);
+
+    /**
+     * Called when a player could not leave the room they are in because every door is blocked; their turn is over.
+     * @param player index of the player
+     */
+    default void exitsBlocked(int player) {
+    }
+
+    /**
+     * Called when a player has left a room through its only door.
+     * @param player index of the player
+     */
+    default void leftRoom(int player) {
+    }
+
+    /**
+     * Called before a player moves with the dice; not called if they cannot move this turn.
+     *
+     * @param player index of the player
+     * @param dieOne the first die
+     * @param dieTwo the second die
+     */
+    default void rolled(int player, int dieOne, int dieTwo) {
+    }
+
+    /**
+     * Choose the next move.
+     *
+     * @param player index of the player
+     * @param movesRemaining number of moves left this turn
+     * @param refused how many moves the board has refused in a row (0 for a new move)
+     * @return w, a, s or d, several of them to take them all in one go, or x to finish moving
+     */
+    String nextMove(int player, int movesRemaining, int refused);
+
+    /**
+     * Choose the weapon of an accusation.
+     *
+     * @param player index of the player
+     * @return a weapon card
+     */
+    Card chooseWeapon(int player);
+
+    /**
+     * Choose the character of an accusation.
+     *
+     * @param player index of the player
+     * @return a character card
+     */
+    Card chooseCharacter(int player);
+
+    /**
+     * Called when an accusation has been disputed or not. The card shown is printed to every player.
+     *
+     * @param accuser index of the player who made the accusation
+     * @param person the accused character
+     * @param weapon the accused weapon
+     * @param room the accused room
+     * @param disputer index of the disputing player, or -1 if nobody could dispute
+     * @param shown the card shown by the disputing player, or null
+     */
+    default void accusationSettled(int accuser, Card person, Card weapon, Card room, int disputer, Card shown) {
+    }
+
+    /**
+     * Decide whether to check the envelope after nobody could dispute an accusation.
+     *
+     * @param player index of the player
+     * @param person the accused character
+     * @param weapon the accused weapon
+     * @param room the accused room
+     * @return true to check the envelope
+     */
+    boolean checkEnvelope(int player, Card person, Card weapon, Card room);
+
+    /**
+     * Called when a player has checked the envelope.
+     *
+     * @param player index of the player
+     * @param correct true if the accusation was correct, and the player has won
+     */
+    default void envelopeChecked(int player, boolean correct) {
+    }
+}
@@ -0,0 +1,66 @@
+package Cluedo;
+import Cluedo.Navigation.DistanceTable;
+
+/**
+ * The keys of the Zobrist hash of a game: one random 64-bit key for each item on each square,
+ * for each player whose turn it is, and for each number of moves left in a turn.
+ * The hash of a state is the exclusive or of the keys of everything in it, so moving an item
+ * changes it with two exclusive ors (Board.getHash), whatever the number of items.
+ *
+ * The keys are worked out from their numbers with a fixed mixing function rather than drawn from a generator,
+ * so they are the same in every run and on every machine, and a hash can be recorded and checked later.
+ */
+public final class Zobrist {
+    /** Separates the kinds of key. */
+    private static final long ITEM = 0x2545F4914F6CDD1DL, PLAYER = 0x5851F42D4C957F2DL, MOVES = 0x14057B7EF767814FL;
+
+    private Zobrist() {
+    }
+
+    /**
+     * Get the key of an item on a square.
+     * @param id number of the item (Item.getId)
+     * @param cell the square, as a DistanceTable cell
+     * @return the key
+     */
+    public static long item(int id, int cell) {
+        return mix(ITEM + (id * (long) DistanceTable.CELLS + cell));
+    }
+
+    /**
+     * Get the key of a player's turn.
+     * @param player index of the player
+     * @return the key
+     */
+    public static long player(int player) {
+        return mix(PLAYER + player);
+    }
+
+    /**
+     * Get the key of the moves left in a turn; no moves left has no key.
+     * @param moves number of moves left
+     * @return the key, or 0 for no moves
+     */
+    public static long moves(int moves) {
+        return moves == 0 ? 0 : mix(MOVES + moves);
+    }
+
+    /**
+     * Fold a hash to 32 bits, such as to record it in a journal.
+     * @param hash the hash
+     * @return the folded hash
+     */
+    public static int fold(long hash) {
+        return (int) (hash ^ hash >>> 32);
+    }
+
+    /**
+     * The finaliser of SplitMix64: every bit of the result depends on every bit of the number.
+     */
+    private static long mix(long z) {
+        z *= 0x9E3779B97F4A7C15L;
+        z = (z ^ z >>> 30) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ z >>> 27) * 0x94D049BB133111EBL;
+        return z ^ z >>> 31;
+    }
+}
@@ -0,0 +1,76 @@
+package Cluedo.Benchmarks;
+import Cluedo.Card;
+import Cluedo.Game;
+import Cluedo.GameRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Settling an accusation: finding the player who disputes it and the card they show,
+ * which is what makeAccusation does once the player has named the cards.
+ * disputeAll settles all 324 accusations of a player at once, as a bot weighing its choices would.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class AccusationBenchmark {
+    @Param({"3", "6"})
+    public int players;
+
+    private Game game;
+    /** Every person, weapon and room triple, three cards each. */
+    private Card[] triples;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        game = new Game(null, null, new GameRandom(225));
+        game.initialise(players);
+        triples = new Card[6 * 6 * 9 * 3];
+        int i = 0;
+        for(int p = 0; p < 6; p++)
+            for(int w = 6; w < 12; w++)
+                for(int r = 12; r < 21; r++) {
+                    triples[i++] = game.getCard(p);
+                    triples[i++] = game.getCard(w);
+                    triples[i++] = game.getCard(r);
+                }
+    }
+
+    /**
+     * One accusation, by each player in turn, of each triple in turn.
+     */
+    @Benchmark
+    public void dispute(Blackhole blackhole) {
+        int at = next;
+        next = at + 3 == triples.length ? 0 : at + 3;
+        int accuser = at / 3 % players;
+        Card person = triples[at], weapon = triples[at + 1], room = triples[at + 2];
+        int disputer = game.findDisputer(accuser, person, weapon, room);
+        blackhole.consume(disputer < 0 ? null : game.disputeCard(disputer, person, weapon, room));
+    }
+
+    /**
+     * Every accusation one player could make, settled at once (CardOwners.disputes), by each player in turn.
+     */
+    @Benchmark
+    public byte[] disputeAll() {
+        int accuser = next;
+        next = accuser + 1 == players ? 0 : accuser + 1;
+        return game.getCardOwners().disputes(accuser);
+    }
+}
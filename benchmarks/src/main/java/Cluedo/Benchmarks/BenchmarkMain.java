@@ -0,0 +1,27 @@
+package Cluedo.Benchmarks;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler, so that every result comes with its allocation rate
+ * (gc.alloc.rate.norm is bytes allocated per operation), and writes the results to jmh-result.json.
+ *
+ * Takes the usual JMH arguments, for example a pattern to run only some benchmarks:
+ *   java -jar benchmarks/target/benchmarks.jar BoardBenchmark
+ */
+public class BenchmarkMain {
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+        if(commandLine.getProfilers().isEmpty()) options.addProfiler(GCProfiler.class);
+        if(!commandLine.getResultFormat().hasValue()) options.resultFormat(ResultFormatType.JSON);
+        if(!commandLine.getResult().hasValue()) options.result("jmh-result.json");
+        new Runner(options.build()).run();
+    }
+}
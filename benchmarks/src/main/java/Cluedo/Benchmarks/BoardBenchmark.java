@@ -0,0 +1,101 @@
+package Cluedo.Benchmarks;
+import Cluedo.Board;
+import Cluedo.Game;
+import Cluedo.GameRandom;
+import Cluedo.Items.Room;
+import Cluedo.Items.Weapon;
+import Cluedo.Player;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Building a board, moving a person on it and drawing it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class BoardBenchmark {
+    private Game game;
+    private Board board;
+    private Player player;
+    private GameRandom random;
+
+    @Setup
+    public void setUp() {
+        random = new GameRandom(225);
+        game = new Game(null, null, random);
+        game.initialise(6);
+        board = game.getBoard();
+        board.setOutput(new PrintStream(OutputStream.nullOutputStream()));
+        player = game.getPlayers()[0];
+        // off the starting square, so that the person can step back and forth along the hall
+        if(!board.movePerson(player, "w")) throw new IllegalStateException("Miss Scarlett cannot leave her square");
+        board.drawBoard();
+    }
+
+    /**
+     * A new board: its tiles (generateTiles), the rooms' doors (assignRoomsToDoors) and the weapons.
+     * The layout tables every board shares are built by the first board only, as in a server running many games.
+     */
+    @Benchmark
+    public Board construct() {
+        Room[] rooms = new Room[9];
+        for(int i = 0; i < 9; i++) rooms[i] = new Room(Game.ROOM_NAMES[i], 12 + i);
+        Weapon[] weapons = new Weapon[6];
+        for(int i = 0; i < 6; i++) weapons[i] = new Weapon(Game.WEAPON_NAMES[i], 6 + i, 0, 0);
+        return new Board(rooms, weapons, random);
+    }
+
+    /**
+     * Two hall steps, there and back.
+     */
+    @Benchmark
+    public void movePerson(Blackhole blackhole) {
+        blackhole.consume(board.movePerson(player, "s"));
+        blackhole.consume(board.movePerson(player, "w"));
+    }
+
+    /**
+     * Five hall steps up and five back, each checked and made as one move (movePersonAlong),
+     * to compare with ten calls of movePerson.
+     */
+    @Benchmark
+    public void movePersonAlong(Blackhole blackhole) {
+        blackhole.consume(board.movePersonAlong(player, "wwwww", 12));
+        blackhole.consume(board.movePersonAlong(player, "sssss", 12));
+    }
+
+    /**
+     * Drawing the board after a step, as the game does after every move.
+     */
+    @Benchmark
+    public void drawBoardAfterMove() {
+        board.movePerson(player, "s");
+        board.drawBoard();
+        board.movePerson(player, "w");
+        board.drawBoard();
+    }
+
+    /**
+     * Drawing the board when nothing has moved.
+     */
+    @Benchmark
+    public void drawBoard() {
+        board.drawBoard();
+    }
+}
@@ -0,0 +1,53 @@
+package Cluedo.Benchmarks;
+import Cluedo.Simulation.Bot;
+import Cluedo.Simulation.DeductionBot;
+import Cluedo.Simulation.GameResult;
+import Cluedo.Simulation.RandomBot;
+import Cluedo.Simulation.Simulator;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Whole headless games, dealt and played to the end by bots.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class GameBenchmark {
+    @Param({"deduction", "random"})
+    public String bot;
+
+    @Param({"3", "6"})
+    public int players;
+
+    private Simulator simulator;
+    private long index;
+
+    @Setup
+    public void setUp() {
+        IntFunction<Bot> bots = bot.equals("random") ? seat -> new RandomBot() : seat -> new DeductionBot();
+        simulator = new Simulator(players, bots, Simulator.DEFAULT_MAX_ROUNDS, 225);
+    }
+
+    /**
+     * One game; each call plays the next game of the simulator's run, so the games differ but repeat between runs.
+     */
+    @Benchmark
+    public GameResult play() {
+        return simulator.play(index++);
+    }
+}
@@ -0,0 +1,68 @@
+package Cluedo.Benchmarks;
+import Cluedo.Board;
+import Cluedo.Game;
+import Cluedo.GameRandom;
+import Cluedo.Items.Room;
+import Cluedo.Items.Weapon;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Placing an item in a room that is nearly full.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class RoomBenchmark {
+    /** Room index, from Game.ROOM_NAMES. */
+    @Param({"0", "1", "4"})
+    public int room;
+
+    /** Tiles of the room left empty. */
+    @Param({"1", "2", "16"})
+    public int freeTiles;
+
+    private Board board;
+    private Room target;
+    private Weapon item;
+    private GameRandom random;
+
+    @Setup
+    public void setUp() {
+        random = new GameRandom(225);
+        Game game = new Game(null, null, random);
+        game.initialise(6);
+        board = game.getBoard();
+        target = game.getRooms()[room];
+        // extra candlesticks, numbered after the game's own items
+        int id = 21;
+        while(target.getFreeTileCount() > freeTiles)
+            board.teleportItemToRoom(new Weapon(Game.WEAPON_NAMES[0], id++, 0, 0), target);
+        item = new Weapon(Game.WEAPON_NAMES[0], id, 0, 0);
+        if(target.getFreeTileCount() != freeTiles) throw new IllegalStateException("The room is too small");
+    }
+
+    /**
+     * Place the item and take it off again, so that the room stays as full.
+     */
+    @Benchmark
+    public boolean teleportItemToRoom() {
+        boolean placed = board.teleportItemToRoom(item, target);
+        // taking it off puts its square back among the room's free squares
+        board.removeItem(item);
+        return placed;
+    }
+}